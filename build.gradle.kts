@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("org.jetbrains.kotlin.jvm") version "1.9.25"
     id("org.jetbrains.intellij") version "1.17.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.plugin"
@@ -12,8 +13,9 @@ repositories {
 }
 
 dependencies {
-    implementation("com.tencentcloudapi:tencentcloud-sdk-java-tmt:3.1.1104")
-    implementation("com.thoughtworks.qdox:qdox:2.0.3")
+    implementation(project(":core"))
+    // 仅用于基准测试中与旧的 QDox 解析方式对比
+    jmh("com.thoughtworks.qdox:qdox:2.0.3")
 }
 
 // Configure Gradle IntelliJ Plugin
@@ -23,6 +25,17 @@ intellij {
     plugins.set(listOf(/* Plugin Dependencies */))
 }
 
+// Configure JMH benchmarks (src/jmh), run with ./gradlew jmh
+// Read more: https://github.com/melix/jmh-gradle-plugin
+// 只运行部分基准：./gradlew jmh -PjmhIncludes=JavadocCorpusBenchmark
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("TEXT")
+    (project.findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+}
+
 tasks {
     // Set the JVM compatibility versions
     withType<JavaCompile> {
@@ -33,6 +46,27 @@ tasks {
         kotlinOptions.jvmTarget = "11"
     }
 
+    // 运行 jmh 后在控制台打印结果汇总
+    register("jmhReport") {
+        group = "benchmark"
+        description = "Prints the results of the last JMH run"
+        doLast {
+            val results = layout.buildDirectory.file("results/jmh/results.txt").get().asFile
+            println(if (results.exists()) results.readText() else "No JMH results found, run ./gradlew jmh first")
+        }
+    }
+    named("jmh") {
+        finalizedBy("jmhReport")
+    }
+
+    // 录制腾讯 LanguageDetect 对语种识别语料的结果，需要 TENCENTCLOUD_SECRET_ID/TENCENTCLOUD_SECRET_KEY
+    register<JavaExec>("recordLanguageDetect") {
+        group = "benchmark"
+        description = "Records remote LanguageDetect labels for the language detection corpus"
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("com.plugin.fasttranslation.detect.LanguageDetectRecorder")
+    }
+
     patchPluginXml {
         sinceBuild.set("203")
         untilBuild.set("")
@@ -0,0 +1,27 @@
+plugins {
+    application
+}
+
+group = "com.plugin"
+version = rootProject.version
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation(project(":core"))
+    implementation("org.slf4j:slf4j-api:1.7.36")
+    runtimeOnly("org.slf4j:slf4j-simple:1.7.36")
+}
+
+// 运行：./gradlew :cli:run --args="--provider mock src"
+application {
+    mainClass.set("com.plugin.fasttranslation.cli.FastTranslationCli")
+    applicationName = "fast-translation"
+}
+
+tasks.withType<JavaCompile> {
+    sourceCompatibility = "11"
+    targetCompatibility = "11"
+}
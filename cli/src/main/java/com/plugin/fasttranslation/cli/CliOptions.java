@@ -0,0 +1,151 @@
+package com.plugin.fasttranslation.cli;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 命令行参数
+ */
+final class CliOptions {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: fast-translation [options] <file or directory>...",
+            "",
+            "Translates the comments of every supported source file and writes them to a sidecar",
+            "<file>.translation.jsonl next to the source (or under --out), leaving the sources untouched.",
+            "",
+            "Options:",
+            "  --provider <mock|offline|tencent>  translation provider, default mock",
+            "                                     tencent reads TENCENTCLOUD_SECRET_ID, TENCENTCLOUD_SECRET_KEY",
+            "                                     and optionally TENCENTCLOUD_REGION, FAST_TRANSLATION_TERM_REPO_ID",
+            "  --to <native|english>              translate English comments to the native language (default),",
+            "                                     or non-English comments to English",
+            "  --native-language <code>           native language, default zh",
+            "  --threads <n>                      worker threads for reading and parsing files, default CPU count",
+            "  --out <dir>                        write sidecar files under this directory instead",
+            "  --cache-file <file>                persistent translation cache, reused across runs",
+            "  --memory <file>                    shared translation memory consulted before the cache, may be repeated",
+            "  --export-memory <file>             after the run, merge the translations in --cache-file into this",
+            "                                     translation memory file",
+            "  --glossary <file>                  glossary, one \"term\" or \"term=translation\" per line",
+            "  --no-protect-identifiers           do not protect code identifiers and inline code",
+            "  --no-offline-fallback              fail instead of falling back to the offline phrase table",
+            "  --daily-budget <chars>             stop sending requests after this many characters and use only",
+            "                                     the cache and the offline phrase table, default 0 (no limit)",
+            "  --mock-latency <ms>                simulated latency of each mock request, default 0",
+            "  --help                             print this message");
+
+    String provider = "mock";
+    boolean toEnglish;
+    String nativeLanguage = "zh";
+    int threads = Runtime.getRuntime().availableProcessors();
+    Path out;
+    Path cacheFile;
+    Path glossary;
+    final List<Path> memories = new ArrayList<>();
+    Path exportMemory;
+    boolean protectIdentifiers = true;
+    boolean offlineFallback = true;
+    long dailyBudget;
+    long mockLatencyMillis;
+    boolean help;
+    final List<Path> roots = new ArrayList<>();
+
+    /**
+     * @param args 命令行参数
+     * @return 解析结果
+     * @throws IllegalArgumentException 参数不合法
+     */
+    static CliOptions parse(String[] args) {
+        CliOptions options = new CliOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--provider":
+                    options.provider = value(args, ++i, arg);
+                    if (!"mock".equals(options.provider) && !"offline".equals(options.provider)
+                            && !"tencent".equals(options.provider)) {
+                        throw new IllegalArgumentException("unknown provider: " + options.provider);
+                    }
+                    break;
+                case "--to":
+                    String direction = value(args, ++i, arg);
+                    if (!"native".equals(direction) && !"english".equals(direction)) {
+                        throw new IllegalArgumentException("--to must be native or english: " + direction);
+                    }
+                    options.toEnglish = "english".equals(direction);
+                    break;
+                case "--native-language":
+                    options.nativeLanguage = value(args, ++i, arg);
+                    break;
+                case "--threads":
+                    options.threads = number(value(args, ++i, arg), arg, 1);
+                    break;
+                case "--out":
+                    options.out = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--cache-file":
+                    options.cacheFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--memory":
+                    options.memories.add(Paths.get(value(args, ++i, arg)));
+                    break;
+                case "--export-memory":
+                    options.exportMemory = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--glossary":
+                    options.glossary = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--no-protect-identifiers":
+                    options.protectIdentifiers = false;
+                    break;
+                case "--no-offline-fallback":
+                    options.offlineFallback = false;
+                    break;
+                case "--daily-budget":
+                    options.dailyBudget = number(value(args, ++i, arg), arg, 0);
+                    break;
+                case "--mock-latency":
+                    options.mockLatencyMillis = number(value(args, ++i, arg), arg, 0);
+                    break;
+                case "--help":
+                case "-h":
+                    options.help = true;
+                    break;
+                default:
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("unknown option: " + arg);
+                    }
+                    options.roots.add(Paths.get(arg));
+            }
+        }
+        if (options.roots.isEmpty() && !options.help) {
+            throw new IllegalArgumentException("no file or directory given");
+        }
+        if (options.exportMemory != null && options.cacheFile == null) {
+            throw new IllegalArgumentException("--export-memory requires --cache-file");
+        }
+        return options;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " requires a value");
+        }
+        return args[index];
+    }
+
+    private static int number(String value, String option, int min) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min) {
+                return number;
+            }
+        } catch (NumberFormatException ignored) {
+            // 下面统一报错
+        }
+        throw new IllegalArgumentException(option + " must be an integer >= " + min + ": " + value);
+    }
+}
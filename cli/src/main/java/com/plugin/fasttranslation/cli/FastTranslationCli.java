@@ -0,0 +1,240 @@
+package com.plugin.fasttranslation.cli;
+
+import com.plugin.fasttranslation.cache.TranslationCache;
+import com.plugin.fasttranslation.cache.TranslationMemory;
+import com.plugin.fasttranslation.glossary.Glossary;
+import com.plugin.fasttranslation.limit.AdaptiveConcurrencyLimiter;
+import com.plugin.fasttranslation.limit.CharacterBudget;
+import com.plugin.fasttranslation.limit.RetryPolicy;
+import com.plugin.fasttranslation.limit.TokenBucketRateLimiter;
+import com.plugin.fasttranslation.metrics.TranslationMetrics;
+import com.plugin.fasttranslation.offline.PhraseTable;
+import com.plugin.fasttranslation.pipeline.TranslationEngine;
+import com.plugin.fasttranslation.text.CommentScanner;
+import com.plugin.fasttranslation.thirdparty.MockTranslationProvider;
+import com.plugin.fasttranslation.thirdparty.OfflineTranslationProvider;
+import com.plugin.fasttranslation.thirdparty.TencentTranslationProvider;
+import com.plugin.fasttranslation.thirdparty.ThrottledTranslationProvider;
+import com.plugin.fasttranslation.thirdparty.TransportConfig;
+import com.plugin.fasttranslation.thirdparty.TranslationProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 命令行批量翻译：遍历源码树，把注释的译文写入旁路文件，例如在 CI 中为文档预先生成译文。
+ * <ul>
+ *     <li>目录按流式遍历，同时在处理的文件数有上限，内存占用与源码树大小无关</li>
+ *     <li>每个文件是工作窃取线程池中的一个任务，空闲线程从其他线程的队列中领取文件</li>
+ *     <li>翻译使用与插件相同的核心：缓存、术语保护、请求合并、限流重试和离线兜底</li>
+ * </ul>
+ * 结束时输出处理的文件数、耗时和吞吐量(文件/秒)。
+ */
+public final class FastTranslationCli {
+
+    private static final String TENCENT_TERM_REPO_ENV = "FAST_TRANSLATION_TERM_REPO_ID";
+    /** 内存缓存最多保留的字符数 */
+    private static final long CACHE_MEMORY_CHARS = 16_000_000L;
+    /** 同时在途的请求块数上限，与插件一致 */
+    private static final int MAX_PARALLEL_CHUNKS = 8;
+    /** TMT 默认 QPS 上限为 5，本地替身和离线短语表只需防止失控 */
+    private static final double REQUESTS_PER_SECOND = 5;
+    private static final double LOCAL_REQUESTS_PER_SECOND = 1000;
+    /** 每个工作线程最多排队的文件数 */
+    private static final int QUEUED_FILES_PER_THREAD = 4;
+
+    private final AtomicInteger scannedFiles = new AtomicInteger();
+    private final AtomicInteger translatedFiles = new AtomicInteger();
+    private final AtomicInteger failedFiles = new AtomicInteger();
+    private final AtomicLong translatedComments = new AtomicLong();
+
+    private FastTranslationCli() {
+    }
+
+    public static void main(String[] args) {
+        CliOptions options;
+        try {
+            options = CliOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("fast-translation: " + e.getMessage());
+            System.err.println(CliOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(CliOptions.USAGE);
+            return;
+        }
+        try {
+            System.exit(new FastTranslationCli().run(options));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("fast-translation: " + e.getMessage());
+            System.exit(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(130);
+        }
+    }
+
+    /**
+     * @return 进程退出码，有文件处理失败时为 1
+     */
+    private int run(CliOptions options) throws IOException, InterruptedException {
+        TranslationProvider rawProvider = createProvider(options);
+        double permitsPerSecond = rawProvider instanceof TencentTranslationProvider
+                ? REQUESTS_PER_SECOND : LOCAL_REQUESTS_PER_SECOND;
+        ThrottledTranslationProvider provider = new ThrottledTranslationProvider(rawProvider,
+                new TokenBucketRateLimiter(permitsPerSecond, (int) permitsPerSecond),
+                new AdaptiveConcurrencyLimiter(4, 1, MAX_PARALLEL_CHUNKS),
+                new RetryPolicy(4, 200, 5000));
+        String termRepoId = System.getenv(TENCENT_TERM_REPO_ENV);
+        String cacheNamespace = rawProvider instanceof TencentTranslationProvider && termRepoId != null
+                ? termRepoId : rawProvider.getName();
+        Glossary glossary = options.glossary == null ? Glossary.compile("", options.protectIdentifiers)
+                : Glossary.compile(new String(Files.readAllBytes(options.glossary), StandardCharsets.UTF_8),
+                options.protectIdentifiers);
+        List<TranslationMemory> memories = new ArrayList<>();
+        for (Path memory : options.memories) {
+            memories.add(TranslationMemory.open(memory));
+        }
+        CharacterBudget budget = CharacterBudget.inMemory(options.dailyBudget);
+        TranslationCache cache = new TranslationCache(options.cacheFile, CACHE_MEMORY_CHARS);
+        ExecutorService requestExecutor = Executors.newFixedThreadPool(MAX_PARALLEL_CHUNKS, r -> {
+            Thread thread = new Thread(r, "FastTranslation-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+        TranslationEngine engine = new TranslationEngine(provider, cache, cacheNamespace, requestExecutor,
+                new TranslationEngine.Settings() {
+                    @Override
+                    public String getNativeLanguage() {
+                        return options.nativeLanguage;
+                    }
+
+                    @Override
+                    public Glossary getGlossary() {
+                        return glossary;
+                    }
+
+                    @Override
+                    public boolean isOfflineFallbackEnabled() {
+                        return options.offlineFallback;
+                    }
+
+                    @Override
+                    public List<TranslationMemory> getTranslationMemories() {
+                        return memories;
+                    }
+
+                    @Override
+                    public CharacterBudget getCharacterBudget() {
+                        return budget;
+                    }
+                });
+        FileTranslator translator = new FileTranslator(engine, options.toEnglish, options.nativeLanguage);
+
+        long startNanos = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(options.threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        Semaphore queued = new Semaphore(options.threads * QUEUED_FILES_PER_THREAD);
+        try {
+            for (Path root : options.roots) {
+                try (Stream<Path> files = Files.walk(root)) {
+                    Iterator<Path> iterator = files.iterator();
+                    while (iterator.hasNext()) {
+                        Path file = iterator.next();
+                        if (!Files.isRegularFile(file) || CommentScanner.syntaxOf(file.getFileName().toString()) == null) {
+                            continue;
+                        }
+                        queued.acquire();
+                        pool.execute(() -> {
+                            try {
+                                translateFile(translator, root, file, options.out);
+                            } finally {
+                                queued.release();
+                            }
+                        });
+                    }
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            if (options.exportMemory != null) {
+                int entries = engine.exportMemory(options.exportMemory);
+                System.out.printf("translation memory:  %d entries in %s%n", entries, options.exportMemory);
+            }
+        } finally {
+            pool.shutdownNow();
+            cache.close();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        System.out.printf("files scanned:       %d%n", scannedFiles.get());
+        System.out.printf("files translated:    %d%n", translatedFiles.get());
+        System.out.printf("files failed:        %d%n", failedFiles.get());
+        System.out.printf("comments translated: %d%n", translatedComments.get());
+        System.out.printf("elapsed:             %.2f s%n", seconds);
+        System.out.printf("throughput:          %.1f files/s%n", scannedFiles.get() / Math.max(seconds, 1e-9));
+        System.out.println();
+        System.out.print(TranslationMetrics.report());
+        return failedFiles.get() == 0 ? 0 : 1;
+    }
+
+    private void translateFile(FileTranslator translator, Path root, Path file, Path out) {
+        Path sidecarName = file.resolveSibling(file.getFileName() + FileTranslator.SIDECAR_SUFFIX);
+        Path sidecar = sidecarName;
+        if (out != null) {
+            // 输出目录下按 <根目录名>/<相对路径> 存放，多个根目录之间不会冲突
+            Path rootName = root.toAbsolutePath().normalize().getFileName();
+            sidecar = Files.isDirectory(root) ? out.resolve(rootName.toString()).resolve(root.relativize(sidecarName).toString())
+                    : out.resolve(sidecarName.getFileName().toString());
+        }
+        try {
+            int comments = translator.translate(file, sidecar);
+            if (comments > 0) {
+                translatedFiles.incrementAndGet();
+                translatedComments.addAndGet(comments);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedFiles.incrementAndGet();
+        } catch (Exception e) {
+            failedFiles.incrementAndGet();
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("fast-translation: " + file + ": " + cause);
+        } finally {
+            scannedFiles.incrementAndGet();
+        }
+    }
+
+    private static TranslationProvider createProvider(CliOptions options) {
+        if ("mock".equals(options.provider)) {
+            return new MockTranslationProvider("mock", options.mockLatencyMillis);
+        }
+        if (OfflineTranslationProvider.NAME.equals(options.provider)) {
+            return new OfflineTranslationProvider(PhraseTable.getDefault());
+        }
+        String secretId = System.getenv("TENCENTCLOUD_SECRET_ID");
+        String secretKey = System.getenv("TENCENTCLOUD_SECRET_KEY");
+        if (secretId == null || secretKey == null) {
+            throw new IllegalArgumentException("--provider tencent requires TENCENTCLOUD_SECRET_ID and TENCENTCLOUD_SECRET_KEY");
+        }
+        String region = System.getenv("TENCENTCLOUD_REGION");
+        return new TencentTranslationProvider(secretId, secretKey, region == null ? "ap-beijing" : region,
+                TencentTranslationProvider.DEFAULT_ENDPOINT, System.getenv(TENCENT_TERM_REPO_ENV), TransportConfig.DEFAULT);
+    }
+}
@@ -0,0 +1,169 @@
+package com.plugin.fasttranslation.cli;
+
+import com.plugin.fasttranslation.detect.LanguageDetector;
+import com.plugin.fasttranslation.pipeline.TranslationEngine;
+import com.plugin.fasttranslation.text.CommentScanner;
+import com.plugin.fasttranslation.text.CommentText;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 翻译单个文件中的注释并写入旁路文件，源文件保持不变。
+ * 读取、查找注释和拼装在工作窃取线程池中执行，等待翻译结果时通过 {@link ForkJoinPool#managedBlock} 补偿线程，
+ * 其他文件的解析不会因此停顿；不同文件的请求由翻译核心合并为批量请求。
+ */
+final class FileTranslator {
+
+    static final String SIDECAR_SUFFIX = ".translation.jsonl";
+
+    private final TranslationEngine engine;
+    private final boolean toEnglish;
+    private final String sourceLang;
+    private final String targetLang;
+
+    /**
+     * @param engine 翻译核心
+     * @param toEnglish true 时把非英文注释翻译为英文，否则把英文注释翻译为母语
+     * @param nativeLanguage 母语
+     */
+    FileTranslator(TranslationEngine engine, boolean toEnglish, String nativeLanguage) {
+        this.engine = engine;
+        this.toEnglish = toEnglish;
+        this.sourceLang = toEnglish ? "auto" : "en";
+        this.targetLang = toEnglish ? "en" : nativeLanguage;
+    }
+
+    /**
+     * @param file 源文件
+     * @param sidecar 旁路文件，没有需要翻译的注释时删除已有的旁路文件
+     * @return 翻译的注释数
+     */
+    int translate(Path file, Path sidecar) throws IOException, InterruptedException, ExecutionException {
+        String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        List<CommentScanner.Comment> comments = new ArrayList<>();
+        List<CommentText> texts = new ArrayList<>();
+        // 同一文件中相同的注释行只翻译一次
+        Set<String> distinct = new LinkedHashSet<>();
+        for (CommentScanner.Comment comment : CommentScanner.scan(source, CommentScanner.syntaxOf(file.toString()))) {
+            CommentText text = CommentText.parse(comment.getText());
+            if (text.getTranslatableCount() == 0) {
+                continue;
+            }
+            boolean english = "en".equals(LanguageDetector.detect(text.getPlainText()).getLanguage());
+            if (english == toEnglish) {
+                continue;
+            }
+            comments.add(comment);
+            texts.add(text);
+            for (String body : text.getBodies()) {
+                if (body != null) {
+                    distinct.add(body);
+                }
+            }
+        }
+        if (comments.isEmpty()) {
+            Files.deleteIfExists(sidecar);
+            return 0;
+        }
+        String[] textArr = distinct.toArray(new String[0]);
+        String[] translatedArr = join(engine.translateLinesAsync(textArr, sourceLang, targetLang));
+        Map<String, String> translations = new HashMap<>(textArr.length * 2);
+        for (int i = 0; i < textArr.length; i++) {
+            translations.put(textArr[i], translatedArr[i]);
+        }
+
+        Path parent = sidecar.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(sidecar, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < comments.size(); i++) {
+                CommentScanner.Comment comment = comments.get(i);
+                String[] bodies = texts.get(i).getBodies();
+                String[] translated = Arrays.copyOf(bodies, bodies.length);
+                for (int j = 0; j < bodies.length; j++) {
+                    if (bodies[j] != null) {
+                        translated[j] = translations.get(bodies[j]);
+                    }
+                }
+                writer.write("{\"line\":" + comment.getLine()
+                        + ",\"sourceLang\":" + quote(sourceLang)
+                        + ",\"targetLang\":" + quote(targetLang)
+                        + ",\"source\":" + quote(comment.getText())
+                        + ",\"translation\":" + quote(texts.get(i).render(translated)) + "}");
+                writer.newLine();
+            }
+        }
+        return comments.size();
+    }
+
+    /**
+     * 在工作窃取线程池中等待翻译结果，等待期间允许线程池启动补偿线程
+     */
+    private static <T> T join(CompletableFuture<T> future) throws InterruptedException, ExecutionException {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                try {
+                    future.get();
+                } catch (ExecutionException ignored) {
+                    // 由下面的 get 抛出
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return future.isDone();
+            }
+        });
+        return future.get();
+    }
+
+    /**
+     * @return JSON 字符串字面量
+     */
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 16).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,21 @@
+plugins {
+    `java-library`
+}
+
+group = "com.plugin"
+version = rootProject.version
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    api("com.tencentcloudapi:tencentcloud-sdk-java-tmt:3.1.1104")
+    // 插件中由 IntelliJ 平台提供，命令行自行引入，核心不打包日志实现
+    compileOnly("org.slf4j:slf4j-api:1.7.36")
+}
+
+tasks.withType<JavaCompile> {
+    sourceCompatibility = "11"
+    targetCompatibility = "11"
+}
@@ -0,0 +1,473 @@
+package com.plugin.fasttranslation.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 两级翻译缓存：内存中按字符数淘汰的 LRU + 磁盘上只追加写入的持久化文件。
+ * 缓存键由 (规范化后的原文行, 源语言, 目标语言, 术语库ID) 组成。
+ * 磁盘文件超过字节数/条目数上限，或被覆盖的旧记录过多时整理(compaction)：
+ * 只保留每个键最新的记录，超出上限时从最早写入的记录开始丢弃。
+ */
+public class TranslationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TranslationCache.class);
+    private static final char KEY_SEPARATOR = '\u0001';
+
+    /** 磁盘缓存默认的最大字节数 */
+    public static final long DEFAULT_MAX_DISK_BYTES = 64L * 1024 * 1024;
+    /** 磁盘缓存默认的最大条目数，同时限制了内存中索引的大小 */
+    public static final int DEFAULT_MAX_DISK_ENTRIES = 500_000;
+    /** 整理后保留的比例，留出余量避免之后每次写入都触发整理 */
+    private static final double COMPACT_TARGET_RATIO = 0.75;
+    /** 被覆盖的旧记录超过该比例时整理 */
+    private static final double MAX_DEAD_RATIO = 0.5;
+    /** 记录数少于该值时不因旧记录比例整理，小文件整理不划算 */
+    private static final int MIN_COMPACT_RECORDS = 1024;
+
+    private final long maxMemoryChars;
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryChars;
+
+    private final Path diskFile;
+    private final long maxDiskBytes;
+    private final int maxDiskEntries;
+    private FileChannel channel;
+    /** 键的64位哈希 -> 磁盘记录偏移量，读取时会再校验一次完整的键 */
+    private Map<Long, Long> diskIndex = new HashMap<>();
+    /** 磁盘文件中的记录总数，包括已被覆盖的旧记录 */
+    private long diskRecordCount;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong diskHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param diskFile 磁盘缓存文件，为 null 时只使用内存缓存
+     * @param maxMemoryChars 内存缓存允许占用的最大字符数（键+值）
+     */
+    public TranslationCache(Path diskFile, long maxMemoryChars) {
+        this(diskFile, maxMemoryChars, DEFAULT_MAX_DISK_BYTES, DEFAULT_MAX_DISK_ENTRIES);
+    }
+
+    /**
+     * @param diskFile 磁盘缓存文件，为 null 时只使用内存缓存
+     * @param maxMemoryChars 内存缓存允许占用的最大字符数（键+值）
+     * @param maxDiskBytes 磁盘缓存文件的最大字节数
+     * @param maxDiskEntries 磁盘缓存的最大条目数
+     */
+    public TranslationCache(Path diskFile, long maxMemoryChars, long maxDiskBytes, int maxDiskEntries) {
+        this.diskFile = diskFile;
+        this.maxMemoryChars = maxMemoryChars;
+        this.maxDiskBytes = maxDiskBytes;
+        this.maxDiskEntries = maxDiskEntries;
+        if (diskFile != null) {
+            openDisk();
+        }
+    }
+
+    /**
+     * 查询缓存
+     * @param source 原文行
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @param termRepoId 术语库ID
+     * @return 译文，未命中时返回 null
+     */
+    public String get(String source, String sourceLang, String targetLang, String termRepoId) {
+        String key = key(source, sourceLang, targetLang, termRepoId);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        FileChannel diskChannel;
+        Long offset;
+        synchronized (this) {
+            String value = memory.get(key);
+            if (value != null) {
+                hitCount.incrementAndGet();
+                return value;
+            }
+            diskChannel = channel;
+            offset = diskChannel == null ? null : diskIndex.get(hash(keyBytes));
+        }
+        // 磁盘读取不持有锁，FileChannel 的定位读取可以并发
+        String value = offset == null ? null : readDisk(diskChannel, offset, keyBytes);
+        if (value != null) {
+            synchronized (this) {
+                // 读盘期间可能有新的译文写入，以内存中的为准
+                String current = memory.get(key);
+                if (current != null) {
+                    value = current;
+                } else {
+                    putMemory(key, value);
+                }
+            }
+            hitCount.incrementAndGet();
+            diskHitCount.incrementAndGet();
+            return value;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 写入缓存，同时追加到磁盘文件
+     */
+    public void put(String source, String sourceLang, String targetLang, String termRepoId, String target) {
+        if (target == null) {
+            return;
+        }
+        String key = key(source, sourceLang, targetLang, termRepoId);
+        synchronized (this) {
+            if (target.equals(memory.get(key))) {
+                return;
+            }
+            putMemory(key, target);
+            appendDisk(key, target);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public synchronized int getMemorySize() {
+        return memory.size();
+    }
+
+    public synchronized int getDiskSize() {
+        return diskIndex.size();
+    }
+
+    /**
+     * 按写入顺序遍历磁盘缓存中的所有条目，同一个键后写入的条目在后
+     * @param consumer 接收 (原文, 源语言, 目标语言, 术语库ID, 译文)，原文为规范化后的文本
+     */
+    public synchronized void forEachDiskEntry(DiskEntryConsumer consumer) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            scanDisk(channel.size(), true, (offset, end, keyBytes, valueBytes) -> {
+                String[] parts = new String(keyBytes, StandardCharsets.UTF_8).split(String.valueOf(KEY_SEPARATOR), 4);
+                if (parts.length == 4) {
+                    consumer.accept(parts[3], parts[0], parts[1], parts[2], new String(valueBytes, StandardCharsets.UTF_8));
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("读取翻译缓存文件失败,file:{}, msg:{}", diskFile, e.toString());
+        }
+    }
+
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.warn("关闭翻译缓存文件失败,file:{}, msg:{}", diskFile, e.toString());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * 顺序读取磁盘记录时的回调
+     */
+    private interface RecordVisitor {
+        void visit(long offset, long end, byte[] keyBytes, byte[] valueBytes) throws IOException;
+    }
+
+    /**
+     * 磁盘缓存条目的接收方
+     */
+    public interface DiskEntryConsumer {
+        void accept(String source, String sourceLang, String targetLang, String termRepoId, String target);
+    }
+
+    /**
+     * 规范化原文：去掉首尾空白并把连续空白合并为一个空格
+     */
+    static String normalize(String source) {
+        StringBuilder sb = new StringBuilder(source.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String key(String source, String sourceLang, String targetLang, String termRepoId) {
+        return sourceLang + KEY_SEPARATOR + targetLang + KEY_SEPARATOR
+                + (termRepoId == null ? "" : termRepoId) + KEY_SEPARATOR + normalize(source);
+    }
+
+    private void putMemory(String key, String value) {
+        String old = memory.put(key, value);
+        if (old != null) {
+            memoryChars -= key.length() + old.length();
+        }
+        memoryChars += key.length() + value.length();
+        // 按字符数从最久未使用的条目开始淘汰
+        while (memoryChars > maxMemoryChars && !memory.isEmpty()) {
+            Map.Entry<String, String> eldest = memory.entrySet().iterator().next();
+            memoryChars -= eldest.getKey().length() + eldest.getValue().length();
+            memory.remove(eldest.getKey());
+        }
+    }
+
+    // 磁盘记录格式：[int 键长度][键 UTF-8][int 值长度][值 UTF-8]
+    // 文件只通过 FileChannel 和流读写，不做内存映射，整理时(包括 Windows 上)可以直接替换文件
+
+    private void openDisk() {
+        try {
+            Files.createDirectories(diskFile.getParent());
+            channel = FileChannel.open(diskFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            long validEnd = scanDisk(size, false, (offset, end, keyBytes, valueBytes) -> {
+                diskIndex.put(hash(keyBytes), offset);
+                diskRecordCount++;
+            });
+            // 截掉上次异常退出时写了一半的记录
+            if (validEnd < size) {
+                channel.truncate(validEnd);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("打开翻译缓存文件失败,仅使用内存缓存,file:{}, msg:{}", diskFile, e.toString());
+            close();
+            diskIndex.clear();
+            return;
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * 顺序读取磁盘文件中的记录，遇到不完整的记录时停止
+     * @param size 只读取该长度以内的记录
+     * @param withValues 为 false 时跳过值，visitor 收到的值为 null
+     * @return 最后一条完整记录的结束位置
+     */
+    private long scanDisk(long size, boolean withValues, RecordVisitor visitor) throws IOException {
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(diskFile), 64 * 1024))) {
+            while (size - position >= Integer.BYTES) {
+                int keyLen = in.readInt();
+                if (keyLen < 0 || size - position - Integer.BYTES < (long) keyLen + Integer.BYTES) {
+                    break;
+                }
+                byte[] keyBytes = new byte[keyLen];
+                in.readFully(keyBytes);
+                int valueLen = in.readInt();
+                long end = position + Integer.BYTES * 2L + keyLen + valueLen;
+                if (valueLen < 0 || end > size) {
+                    break;
+                }
+                byte[] valueBytes = null;
+                if (withValues) {
+                    valueBytes = new byte[valueLen];
+                    in.readFully(valueBytes);
+                } else {
+                    skipFully(in, valueLen);
+                }
+                visitor.visit(position, end, keyBytes, valueBytes);
+                position = end;
+            }
+        }
+        return position;
+    }
+
+    private String readDisk(FileChannel diskChannel, long offset, byte[] keyBytes) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            readFully(diskChannel, header, offset);
+            int keyLen = header.flip().getInt();
+            if (keyLen != keyBytes.length) {
+                return null;
+            }
+            ByteBuffer record = ByteBuffer.allocate(keyLen + Integer.BYTES);
+            readFully(diskChannel, record, offset + Integer.BYTES);
+            record.flip();
+            byte[] storedKey = new byte[keyLen];
+            record.get(storedKey);
+            if (!Arrays.equals(storedKey, keyBytes)) {
+                return null;
+            }
+            ByteBuffer value = ByteBuffer.allocate(record.getInt());
+            readFully(diskChannel, value, offset + Integer.BYTES + keyLen + Integer.BYTES);
+            return new String(value.array(), StandardCharsets.UTF_8);
+        } catch (ClosedChannelException e) {
+            // 读取期间文件被整理或缓存被关闭，按未命中处理
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("读取翻译缓存文件失败,file:{}, msg:{}", diskFile, e.toString());
+            return null;
+        }
+    }
+
+    private void appendDisk(String key, String value) {
+        if (channel == null) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES * 2 + keyBytes.length + valueBytes.length);
+        record.putInt(keyBytes.length).put(keyBytes).putInt(valueBytes.length).put(valueBytes).flip();
+        try {
+            long offset = channel.size();
+            long position = offset;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            diskIndex.put(hash(keyBytes), offset);
+            diskRecordCount++;
+        } catch (IOException e) {
+            LOGGER.warn("写入翻译缓存文件失败,file:{}, msg:{}", diskFile, e.toString());
+            return;
+        }
+        compactIfNeeded();
+    }
+
+    private void compactIfNeeded() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            long dead = diskRecordCount - diskIndex.size();
+            boolean tooManyDead = diskRecordCount >= MIN_COMPACT_RECORDS && dead > diskRecordCount * MAX_DEAD_RATIO;
+            if (tooManyDead || channel.size() > maxDiskBytes || diskIndex.size() > maxDiskEntries) {
+                compact();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("整理翻译缓存文件失败,file:{}, msg:{}", diskFile, e.toString());
+        }
+    }
+
+    /**
+     * 把每个键最新的记录按原顺序写入临时文件后替换原文件；
+     * 超出上限时丢弃最早写入的记录，直到字节数和条目数都降到上限的 {@link #COMPACT_TARGET_RATIO}
+     */
+    private void compact() throws IOException {
+        long size = channel.size();
+        // 第一遍统计有效记录，第二遍写入时据此决定从头丢弃多少条
+        long[] remaining = new long[2];
+        scanDisk(size, false, (offset, end, keyBytes, valueBytes) -> {
+            if (isLive(offset, keyBytes)) {
+                remaining[0]++;
+                remaining[1] += end - offset;
+            }
+        });
+        long targetEntries = (long) (maxDiskEntries * COMPACT_TARGET_RATIO);
+        long targetBytes = (long) (maxDiskBytes * COMPACT_TARGET_RATIO);
+        Map<Long, Long> newIndex = new HashMap<>();
+        long[] written = new long[1];
+        Path temp = Files.createTempFile(diskFile.getParent(), diskFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+                scanDisk(size, true, (offset, end, keyBytes, valueBytes) -> {
+                    if (!isLive(offset, keyBytes)) {
+                        return;
+                    }
+                    if (remaining[0] > targetEntries || remaining[1] > targetBytes) {
+                        remaining[0]--;
+                        remaining[1] -= end - offset;
+                        return;
+                    }
+                    newIndex.put(hash(keyBytes), written[0]);
+                    out.writeInt(keyBytes.length);
+                    out.write(keyBytes);
+                    out.writeInt(valueBytes.length);
+                    out.write(valueBytes);
+                    written[0] += end - offset;
+                });
+            }
+            // 先关闭旧文件再替换，Windows 上打开中的文件不能被替换
+            channel.close();
+            channel = null;
+            Files.move(temp, diskFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("整理翻译缓存文件,file:{}, 记录数:{} -> {}, 字节数:{} -> {}",
+                    diskFile, diskRecordCount, newIndex.size(), size, written[0]);
+            diskIndex = newIndex;
+            diskRecordCount = newIndex.size();
+        } finally {
+            Files.deleteIfExists(temp);
+            if (channel == null) {
+                // 替换成功时打开新文件；替换失败时重新打开原文件，原来的索引仍然有效
+                channel = FileChannel.open(diskFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+        }
+    }
+
+    /**
+     * 该记录是否为其键最新的记录
+     */
+    private boolean isLive(long offset, byte[] keyBytes) {
+        Long latest = diskIndex.get(hash(keyBytes));
+        return latest != null && latest == offset;
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int skipped = 0;
+        while (skipped < length) {
+            int n = in.skipBytes(length - skipped);
+            if (n <= 0) {
+                throw new IOException("Unexpected end of cache file");
+            }
+            skipped += n;
+        }
+    }
+
+    private static void readFully(FileChannel diskChannel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = diskChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of cache file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * FNV-1a 64位哈希
+     */
+    private static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,400 @@
+package com.plugin.fasttranslation.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 团队共享的翻译记忆：(原文, 源语言, 目标语言) -> (译文, 记录时间)，导出为紧凑的二进制文件随仓库共享。
+ * 文件以只读方式映射到内存，索引也在文件中，打开时只校验文件头，不把条目读入堆；
+ * 查询时按哈希前缀定位到很小的范围，再二分查找并直接在映射区比较键，命中时才解码译文。
+ * <p>
+ * 文件格式(大端序)：
+ * <pre>
+ * 文件头    [int 魔数 FTTM][int 版本][int 条目数][int 前缀位数]
+ * 前缀表    [int × (2^前缀位数 + 1)]  哈希高位为 p 的条目在索引中的范围为 [前缀表[p], 前缀表[p+1])
+ * 索引      [long 键哈希][int 记录偏移量] × 条目数，按哈希排序
+ * 记录      [int 键长度][键 UTF-8][int 译文长度][译文 UTF-8][long 记录时间]，与索引顺序相同
+ * </pre>
+ * 键为 源语言 \u0001 目标语言 \u0001 规范化后的原文，与翻译缓存的规范化规则相同。
+ * 映射区受 int 寻址限制，单个文件不超过 2GB。
+ * 映射在缓冲区被回收前不会释放，Windows 上映射中的文件不能被替换或删除；
+ * 因此合并和导出时用 {@link #read} 把要替换的文件读入堆，而不是映射。
+ */
+public final class TranslationMemory {
+
+    private static final int MAGIC = 0x4654544D;
+    private static final int VERSION = 1;
+    /** 前缀表最多 2^16 项，条目少时按每个前缀约 8 条缩小，小文件不被前缀表撑大 */
+    private static final int MAX_PREFIX_BITS = 16;
+    private static final int ENTRIES_PER_PREFIX_BITS = 3;
+    private static final int HEADER_BYTES = Integer.BYTES * 4;
+    private static final int INDEX_ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+    private static final char KEY_SEPARATOR = '\u0001';
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int prefixBits;
+    private final int indexStart;
+
+    private TranslationMemory(Path file, ByteBuffer buffer, int size, int prefixBits) {
+        this.file = file;
+        this.buffer = buffer;
+        this.size = size;
+        this.prefixBits = prefixBits;
+        this.indexStart = HEADER_BYTES + Integer.BYTES * ((1 << prefixBits) + 1);
+    }
+
+    /**
+     * 映射翻译记忆文件
+     * @param file 文件
+     * @return 翻译记忆
+     * @throws IOException 文件不存在、无法读取或格式不正确
+     */
+    public static TranslationMemory open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Translation memory is larger than 2GB: " + file);
+            }
+            // 关闭通道后映射仍然有效
+            return wrap(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize));
+        }
+    }
+
+    /**
+     * 把翻译记忆文件整个读入堆，不保留映射，读取后文件可以立即被替换或删除
+     * @param file 文件
+     * @return 翻译记忆
+     * @throws IOException 文件不存在、无法读取或格式不正确
+     */
+    public static TranslationMemory read(Path file) throws IOException {
+        if (Files.size(file) > Integer.MAX_VALUE) {
+            throw new IOException("Translation memory is larger than 2GB: " + file);
+        }
+        return wrap(file, ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    private static TranslationMemory wrap(Path file, ByteBuffer buffer) throws IOException {
+        long fileSize = buffer.capacity();
+        if (fileSize < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a translation memory file: " + file);
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported translation memory version " + buffer.getInt(Integer.BYTES) + ": " + file);
+        }
+        int size = buffer.getInt(Integer.BYTES * 2);
+        int prefixBits = buffer.getInt(Integer.BYTES * 3);
+        if (size < 0 || prefixBits < 0 || prefixBits > MAX_PREFIX_BITS) {
+            throw new IOException("Corrupted translation memory header: " + file);
+        }
+        TranslationMemory memory = new TranslationMemory(file, buffer, size, prefixBits);
+        if ((long) memory.indexStart + (long) size * INDEX_ENTRY_BYTES > fileSize) {
+            throw new IOException("Truncated translation memory: " + file);
+        }
+        return memory;
+    }
+
+    /**
+     * 查询译文
+     * @param source 原文
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @return 译文，没有记录时返回 null
+     */
+    public String get(String source, String sourceLang, String targetLang) {
+        int record = find(key(TranslationCache.normalize(source), sourceLang, targetLang).getBytes(StandardCharsets.UTF_8));
+        if (record < 0) {
+            return null;
+        }
+        int keyLength = buffer.getInt(record);
+        int valueOffset = record + Integer.BYTES + keyLength;
+        return decode(valueOffset + Integer.BYTES, buffer.getInt(valueOffset));
+    }
+
+    /**
+     * @return 条目数
+     */
+    public int size() {
+        return size;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 按文件中的顺序遍历所有条目，用于合并和导出
+     */
+    public void forEach(Consumer<Entry> consumer) {
+        for (int i = 0; i < size; i++) {
+            int record = buffer.getInt(indexStart + i * INDEX_ENTRY_BYTES + Long.BYTES);
+            int keyLength = buffer.getInt(record);
+            String key = decode(record + Integer.BYTES, keyLength);
+            int valueOffset = record + Integer.BYTES + keyLength;
+            int valueLength = buffer.getInt(valueOffset);
+            String value = decode(valueOffset + Integer.BYTES, valueLength);
+            long timestamp = buffer.getLong(valueOffset + Integer.BYTES + valueLength);
+            int first = key.indexOf(KEY_SEPARATOR);
+            int second = key.indexOf(KEY_SEPARATOR, first + 1);
+            consumer.accept(new Entry(key.substring(second + 1), key.substring(0, first),
+                    key.substring(first + 1, second), value, timestamp));
+        }
+    }
+
+    /**
+     * 写入翻译记忆文件。相同的 (原文, 源语言, 目标语言) 只保留记录时间最新的一条；
+     * 先写入临时文件再替换，其他进程不会读到写了一半的文件。
+     * @param file 文件
+     * @param entries 条目
+     * @return 写入的条目数
+     */
+    public static int write(Path file, Collection<Entry> entries) throws IOException {
+        Map<String, Entry> latest = new HashMap<>();
+        for (Entry entry : entries) {
+            String key = key(entry.source, entry.sourceLang, entry.targetLang);
+            Entry previous = latest.get(key);
+            if (previous == null || previous.timestamp <= entry.timestamp) {
+                latest.put(key, entry);
+            }
+        }
+        List<byte[]> keys = new ArrayList<>(latest.size());
+        List<Entry> values = new ArrayList<>(latest.size());
+        latest.forEach((key, entry) -> {
+            keys.add(key.getBytes(StandardCharsets.UTF_8));
+            values.add(entry);
+        });
+        int count = keys.size();
+        long[] hashes = new long[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = hash(keys.get(i));
+            order[i] = i;
+        }
+        // 按哈希(无符号)排序，哈希相同时按键排序，相同内容总是生成相同的文件
+        Arrays.sort(order, (a, b) -> {
+            int c = Long.compareUnsigned(hashes[a], hashes[b]);
+            return c != 0 ? c : Arrays.compare(keys.get(a), keys.get(b));
+        });
+
+        int prefixBits = Math.max(0, Math.min(MAX_PREFIX_BITS,
+                Integer.SIZE - Integer.numberOfLeadingZeros(count) - ENTRIES_PER_PREFIX_BITS));
+        int[] prefixStarts = new int[(1 << prefixBits) + 1];
+        for (int i = 0; i < count; i++) {
+            prefixStarts[prefix(hashes[order[i]], prefixBits) + 1]++;
+        }
+        for (int p = 1; p < prefixStarts.length; p++) {
+            prefixStarts[p] += prefixStarts[p - 1];
+        }
+
+        byte[][] valueBytes = new byte[count][];
+        long recordOffset = HEADER_BYTES + (long) Integer.BYTES * prefixStarts.length + (long) count * INDEX_ENTRY_BYTES;
+        int[] recordOffsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index = order[i];
+            valueBytes[i] = values.get(index).target.getBytes(StandardCharsets.UTF_8);
+            if (recordOffset > Integer.MAX_VALUE) {
+                throw new IOException("Translation memory would be larger than 2GB");
+            }
+            recordOffsets[i] = (int) recordOffset;
+            recordOffset += Integer.BYTES * 2 + keys.get(index).length + valueBytes[i].length + Long.BYTES;
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(count);
+                out.writeInt(prefixBits);
+                for (int start : prefixStarts) {
+                    out.writeInt(start);
+                }
+                for (int i = 0; i < count; i++) {
+                    out.writeLong(hashes[order[i]]);
+                    out.writeInt(recordOffsets[i]);
+                }
+                for (int i = 0; i < count; i++) {
+                    int index = order[i];
+                    out.writeInt(keys.get(index).length);
+                    out.write(keys.get(index));
+                    out.writeInt(valueBytes[i].length);
+                    out.write(valueBytes[i]);
+                    out.writeLong(values.get(index).timestamp);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return count;
+    }
+
+    /**
+     * 合并多个翻译记忆文件，相同条目保留记录时间最新的一条，例如导入其他成员导出的文件。
+     * 所有文件都读入堆而不映射，合并结果可以替换 file，用户选择的文件也不会被占用。
+     * @param file 合并结果写入的文件，已存在时其中的条目也参与合并
+     * @param sources 要合并的文件
+     * @return 合并后的条目数
+     */
+    public static int merge(Path file, Path... sources) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (Files.exists(file)) {
+            read(file).forEach(entries::add);
+        }
+        for (Path source : sources) {
+            read(source).forEach(entries::add);
+        }
+        return write(file, entries);
+    }
+
+    /**
+     * @return 键的记录偏移量，没有时返回 -1
+     */
+    private int find(byte[] key) {
+        long hash = hash(key);
+        int p = prefix(hash, prefixBits);
+        int low = buffer.getInt(HEADER_BYTES + p * Integer.BYTES);
+        int high = buffer.getInt(HEADER_BYTES + (p + 1) * Integer.BYTES) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = Long.compareUnsigned(hashAt(mid), hash);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                // 哈希冲突时相同哈希的条目相邻，向两侧逐个比较完整的键
+                for (int i = mid; i >= 0 && hashAt(i) == hash; i--) {
+                    if (keyEquals(recordAt(i), key)) {
+                        return recordAt(i);
+                    }
+                }
+                for (int i = mid + 1; i < size && hashAt(i) == hash; i++) {
+                    if (keyEquals(recordAt(i), key)) {
+                        return recordAt(i);
+                    }
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private long hashAt(int index) {
+        return buffer.getLong(indexStart + index * INDEX_ENTRY_BYTES);
+    }
+
+    private int recordAt(int index) {
+        return buffer.getInt(indexStart + index * INDEX_ENTRY_BYTES + Long.BYTES);
+    }
+
+    private boolean keyEquals(int record, byte[] key) {
+        if (buffer.getInt(record) != key.length) {
+            return false;
+        }
+        int offset = record + Integer.BYTES;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param source 规范化后的原文
+     */
+    private static String key(String source, String sourceLang, String targetLang) {
+        return sourceLang + KEY_SEPARATOR + targetLang + KEY_SEPARATOR + source;
+    }
+
+    private static int prefix(long hash, int bits) {
+        return bits == 0 ? 0 : (int) (hash >>> (Long.SIZE - bits));
+    }
+
+    /**
+     * FNV-1a 64位哈希
+     */
+    private static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * 一条翻译记忆
+     */
+    public static final class Entry {
+        private final String source;
+        private final String sourceLang;
+        private final String targetLang;
+        private final String target;
+        private final long timestamp;
+
+        /**
+         * @param source 原文，写入时规范化
+         * @param sourceLang 源语言
+         * @param targetLang 目标语言
+         * @param target 译文
+         * @param timestamp 记录时间(毫秒)
+         */
+        public Entry(String source, String sourceLang, String targetLang, String target, long timestamp) {
+            this.source = TranslationCache.normalize(source);
+            this.sourceLang = sourceLang;
+            this.targetLang = targetLang;
+            this.target = target;
+            this.timestamp = timestamp;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getSourceLang() {
+            return sourceLang;
+        }
+
+        public String getTargetLang() {
+            return targetLang;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.plugin.fasttranslation.detect;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 本地离线语种识别：先按字符所属文字体系分类（汉字/假名/谚文/拉丁字母），
+ * 拉丁字母文本再用常用词和字母三元组特征区分英语、法语、德语。
+ * 只在置信度低于 {@link #CONFIDENCE_THRESHOLD} 时才需要调用远程 LanguageDetect。
+ */
+public final class LanguageDetector {
+
+    /** 置信度达到该值时直接采用本地识别结果 */
+    public static final double CONFIDENCE_THRESHOLD = 0.8;
+
+    /** 汉字/假名/谚文单个字符携带的信息量远大于单个拉丁字母，按该权重折算 */
+    private static final int CJK_WEIGHT = 3;
+    /** 拉丁文本至少需要的特征分数，不足时认为证据不够 */
+    private static final int MIN_LATIN_EVIDENCE = 3;
+    /** 没有任何语言特征的拉丁文本给出的置信度，低于阈值，交给远程识别 */
+    private static final double UNKNOWN_LATIN_CONFIDENCE = 0.3;
+
+    private static final Set<String> EN_WORDS = words(
+            "the", "of", "and", "to", "is", "it", "that", "for", "this", "with", "as", "be", "on", "are",
+            "by", "if", "not", "or", "an", "from", "at", "which", "returns", "when", "will", "can", "should",
+            "has", "have", "was", "been", "specified", "given", "otherwise", "whether", "value", "used");
+    private static final Set<String> FR_WORDS = words(
+            "le", "la", "les", "de", "des", "du", "un", "une", "et", "est", "pour", "que", "qui", "dans",
+            "en", "sur", "par", "pas", "ce", "cette", "avec", "au", "aux", "sont", "ne", "il", "elle",
+            "retourne", "valeur", "si", "sinon", "être", "été", "peut");
+    private static final Set<String> DE_WORDS = words(
+            "der", "die", "das", "und", "ist", "den", "dem", "des", "ein", "eine", "einen", "nicht", "mit",
+            "für", "von", "zu", "auf", "im", "wird", "werden", "sich", "auch", "oder", "wenn", "gibt",
+            "zurück", "wert", "kann", "sonst", "ob", "diese", "dieser");
+
+    private static final Set<String> EN_TRIGRAMS = words(
+            "the", "ing", "and", "hat", "tha", "her", "ere", "for", "ith", "wit", "ted", "ore");
+    private static final Set<String> FR_TRIGRAMS = words(
+            "les", "que", "des", "ait", "ous", "eur", "ell", "qui", "lle", "ons", "eme", "ans");
+    private static final Set<String> DE_TRIGRAMS = words(
+            "sch", "ich", "ein", "und", "der", "cht", "ung", "ien", "gen", "ber", "den", "nde");
+
+    private LanguageDetector() {
+    }
+
+    /**
+     * 识别文本语种
+     * @param text 待识别文本
+     * @return 识别结果，语种代码与腾讯翻译保持一致(en/zh/ja/ko/fr/de)
+     */
+    public static Detection detect(String text) {
+        int han = 0;
+        int kana = 0;
+        int hangul = 0;
+        int latin = 0;
+        int frMarks = 0;
+        int deMarks = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (!Character.isLetter(cp)) {
+                continue;
+            }
+            Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+            switch (script) {
+                case HAN:
+                    han++;
+                    break;
+                case HIRAGANA:
+                case KATAKANA:
+                    kana++;
+                    break;
+                case HANGUL:
+                    hangul++;
+                    break;
+                case LATIN:
+                    latin++;
+                    int lower = Character.toLowerCase(cp);
+                    if ("éèêàçùœâî".indexOf(lower) >= 0) {
+                        frMarks++;
+                    } else if ("äöüß".indexOf(lower) >= 0) {
+                        deMarks++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        int cjk = (han + kana + hangul) * CJK_WEIGHT;
+        int total = cjk + latin;
+        if (total == 0) {
+            // 没有任何字母(纯符号/数字)，交给远程识别
+            return new Detection("en", 0);
+        }
+        if (cjk > latin) {
+            double confidence = (double) cjk / total;
+            if (hangul >= kana && hangul >= han) {
+                return new Detection("ko", confidence);
+            }
+            // 出现假名即为日语，纯汉字按中文处理
+            if (kana > 0 && kana * 5 >= han) {
+                return new Detection("ja", confidence);
+            }
+            return new Detection("zh", confidence);
+        }
+
+        double scriptConfidence = (double) latin / total;
+        return detectLatin(text, frMarks, deMarks, scriptConfidence);
+    }
+
+    private static Detection detectLatin(String text, int frMarks, int deMarks, double scriptConfidence) {
+        int en = 0;
+        int fr = frMarks * 3;
+        int de = deMarks * 3;
+
+        int wordStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetter(text.charAt(i));
+            if (letter && wordStart < 0) {
+                wordStart = i;
+            } else if (!letter && wordStart >= 0) {
+                String word = text.substring(wordStart, i).toLowerCase();
+                wordStart = -1;
+                if (EN_WORDS.contains(word)) {
+                    en += 2;
+                }
+                if (FR_WORDS.contains(word)) {
+                    fr += 2;
+                }
+                if (DE_WORDS.contains(word)) {
+                    de += 2;
+                }
+                for (int j = 0; j + 3 <= word.length(); j++) {
+                    String trigram = word.substring(j, j + 3);
+                    if (EN_TRIGRAMS.contains(trigram)) {
+                        en++;
+                    }
+                    if (FR_TRIGRAMS.contains(trigram)) {
+                        fr++;
+                    }
+                    if (DE_TRIGRAMS.contains(trigram)) {
+                        de++;
+                    }
+                }
+            }
+        }
+
+        int evidence = en + fr + de;
+        if (evidence == 0) {
+            // 单个纯 ASCII 的词或标识符(getUserName/user_name)按惯例视为英语；
+            // 其余如 "Liste vide"、"Trả về số phần tử" 可能是任何拉丁语种，交给远程识别
+            if (isAsciiToken(text)) {
+                return new Detection("en", 0.85 * scriptConfidence);
+            }
+            return new Detection("en", UNKNOWN_LATIN_CONFIDENCE * scriptConfidence);
+        }
+        String lang = "en";
+        int best = en;
+        if (fr > best) {
+            lang = "fr";
+            best = fr;
+        }
+        if (de > best) {
+            lang = "de";
+            best = de;
+        }
+        double confidence = (double) best / evidence * scriptConfidence;
+        if (evidence < MIN_LATIN_EVIDENCE) {
+            confidence = Math.min(confidence, 0.6);
+        }
+        return new Detection(lang, confidence);
+    }
+
+    /**
+     * 去掉首尾空白后是否为单个不含空白的纯 ASCII 词，即标识符形状的文本
+     */
+    private static boolean isAsciiToken(String text) {
+        String trimmed = text.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c > 0x7F || Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> words(String... words) {
+        return new HashSet<>(Arrays.asList(words));
+    }
+
+    /**
+     * 识别结果
+     */
+    public static final class Detection {
+        private final String language;
+        private final double confidence;
+
+        public Detection(String language, double confidence) {
+            this.language = language;
+            this.confidence = confidence;
+        }
+
+        public String getLanguage() {
+            return language;
+        }
+
+        public double getConfidence() {
+            return confidence;
+        }
+
+        public boolean isConfident() {
+            return confidence >= CONFIDENCE_THRESHOLD;
+        }
+
+        @Override
+        public String toString() {
+            return language + "(" + confidence + ")";
+        }
+    }
+}
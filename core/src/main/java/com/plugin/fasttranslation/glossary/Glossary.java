@@ -0,0 +1,421 @@
+package com.plugin.fasttranslation.glossary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地术语表：把术语编译为 Aho-Corasick 自动机，翻译前用占位符 {n} 保护术语、标识符和内联代码，
+ * 翻译后再还原。保护和还原都只遍历一次文本，与术语数量无关。
+ * <ul>
+ *     <li>术语：每行一条，格式为 "术语" 或 "术语=固定译文"，匹配不区分大小写，英文术语要求完整单词</li>
+ *     <li>标识符：camelCase、PascalCase、snake_case 以及紧随的 ()</li>
+ *     <li>内联代码：{&#64;code ...}、{&#64;link ...} 等内联标签和 `...`</li>
+ * </ul>
+ * 实例不可变，可在多线程间共享。
+ */
+public final class Glossary {
+
+    /** 不保护任何内容 */
+    public static final Glossary EMPTY = compile("", false);
+
+    private final String definition;
+    private final boolean protectIdentifiers;
+    /** 转移表，键为 (节点 << 16 | 字符) */
+    private final Map<Long, Integer> transitions;
+    private final int[] fail;
+    /** 以该节点结尾的术语编号，-1 表示不是术语结尾 */
+    private final int[] termAt;
+    /** 沿失败链的下一个术语结尾节点，-1 表示没有 */
+    private final int[] nextTermNode;
+    private final String[] termTargets;
+    private final int[] termLengths;
+
+    private Glossary(String definition, boolean protectIdentifiers, Map<Long, Integer> transitions, int[] fail,
+                     int[] termAt, int[] nextTermNode, String[] termTargets, int[] termLengths) {
+        this.definition = definition;
+        this.protectIdentifiers = protectIdentifiers;
+        this.transitions = transitions;
+        this.fail = fail;
+        this.termAt = termAt;
+        this.nextTermNode = nextTermNode;
+        this.termTargets = termTargets;
+        this.termLengths = termLengths;
+    }
+
+    /**
+     * 编译术语表
+     * @param definition 术语定义，每行一条，# 开头的行为注释
+     * @param protectIdentifiers 是否保护代码标识符和内联代码
+     * @return 编译后的术语表
+     */
+    public static Glossary compile(String definition, boolean protectIdentifiers) {
+        List<String> sources = new ArrayList<>();
+        List<String> targets = new ArrayList<>();
+        if (definition != null) {
+            for (String line : definition.split("\n")) {
+                String entry = line.trim();
+                if (entry.isEmpty() || entry.startsWith("#")) {
+                    continue;
+                }
+                int separator = entry.indexOf('=');
+                String source = (separator < 0 ? entry : entry.substring(0, separator)).trim();
+                String target = separator < 0 ? null : entry.substring(separator + 1).trim();
+                if (!source.isEmpty()) {
+                    sources.add(source);
+                    targets.add(target == null || target.isEmpty() ? null : target);
+                }
+            }
+        }
+
+        // 构建字典树
+        Map<Long, Integer> transitions = new HashMap<>();
+        List<Integer> termAtList = new ArrayList<>();
+        termAtList.add(-1);
+        for (int term = 0; term < sources.size(); term++) {
+            String source = sources.get(term);
+            int node = 0;
+            for (int i = 0; i < source.length(); i++) {
+                long key = key(node, Character.toLowerCase(source.charAt(i)));
+                Integer next = transitions.get(key);
+                if (next == null) {
+                    next = termAtList.size();
+                    termAtList.add(-1);
+                    transitions.put(key, next);
+                }
+                node = next;
+            }
+            termAtList.set(node, term);
+        }
+        int nodeCount = termAtList.size();
+        int[] termAt = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            termAt[i] = termAtList.get(i);
+        }
+
+        // 按层次遍历计算失败链，父节点总是先于子节点处理
+        List<List<long[]>> children = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            children.add(new ArrayList<>());
+        }
+        for (Map.Entry<Long, Integer> entry : transitions.entrySet()) {
+            long key = entry.getKey();
+            children.get((int) (key >>> 16)).add(new long[]{key & 0xFFFF, entry.getValue()});
+        }
+        int[] fail = new int[nodeCount];
+        int[] nextTermNode = new int[nodeCount];
+        nextTermNode[0] = -1;
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int node = queue[head++];
+            for (long[] child : children.get(node)) {
+                char c = (char) child[0];
+                int next = (int) child[1];
+                int f = node == 0 ? -1 : fail[node];
+                while (f >= 0 && !transitions.containsKey(key(f, c))) {
+                    f = f == 0 ? -1 : fail[f];
+                }
+                fail[next] = f < 0 ? 0 : transitions.get(key(f, c));
+                int failNode = fail[next];
+                nextTermNode[next] = termAt[failNode] >= 0 ? failNode : nextTermNode[failNode];
+                queue[tail++] = next;
+            }
+        }
+
+        int[] termLengths = new int[sources.size()];
+        for (int i = 0; i < termLengths.length; i++) {
+            termLengths[i] = sources.get(i).length();
+        }
+        return new Glossary(definition == null ? "" : definition, protectIdentifiers, transitions, fail, termAt,
+                nextTermNode, targets.toArray(new String[0]), termLengths);
+    }
+
+    public String getDefinition() {
+        return definition;
+    }
+
+    public boolean isProtectIdentifiers() {
+        return protectIdentifiers;
+    }
+
+    /**
+     * @return 是否没有需要保护的内容
+     */
+    public boolean isEmpty() {
+        return termLengths.length == 0 && !protectIdentifiers;
+    }
+
+    /**
+     * @return 术语表的指纹，术语或选项变化时改变，用于区分缓存
+     */
+    public String getFingerprint() {
+        if (isEmpty()) {
+            return "";
+        }
+        return Integer.toHexString(definition.hashCode()) + (protectIdentifiers ? "i" : "");
+    }
+
+    /**
+     * 用占位符替换需要保护的片段，原文中已有的 {n} 也会被保护
+     * @param text 原文
+     * @return 替换后的文本及每个占位符对应的还原内容
+     */
+    public Protected protect(String text) {
+        int length = text.length();
+        // spanEnd[i] > i 表示从 i 开始有一个需要保护的片段
+        int[] spanEnd = new int[length];
+        String[] spanTarget = new String[length];
+        boolean found = false;
+        if (protectIdentifiers) {
+            found = markIdentifiers(text, spanEnd);
+        }
+        found |= markTerms(text, spanEnd, spanTarget);
+        found |= markInlineCode(text, spanEnd, spanTarget);
+        if (!found) {
+            return new Protected(text, new String[0]);
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+        List<String> replacements = new ArrayList<>();
+        int i = 0;
+        while (i < length) {
+            if (spanEnd[i] > i) {
+                sb.append('{').append(replacements.size()).append('}');
+                replacements.add(spanTarget[i] != null ? spanTarget[i] : text.substring(i, spanEnd[i]));
+                i = spanEnd[i];
+            } else {
+                sb.append(text.charAt(i));
+                i++;
+            }
+        }
+        return new Protected(sb.toString(), replacements.toArray(new String[0]));
+    }
+
+    /**
+     * 标记 camelCase、PascalCase、snake_case 标识符
+     */
+    private static boolean markIdentifiers(String text, int[] spanEnd) {
+        boolean found = false;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!isWordChar(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            boolean lower = false;
+            boolean camel = false;
+            boolean underscore = false;
+            boolean letter = false;
+            while (i < length && isWordChar(text.charAt(i))) {
+                char c = text.charAt(i);
+                if (c >= 'A' && c <= 'Z') {
+                    camel |= lower;
+                    letter = true;
+                } else if (c >= 'a' && c <= 'z') {
+                    lower = true;
+                    letter = true;
+                } else if (c == '_') {
+                    underscore |= i > start;
+                }
+                i++;
+            }
+            if (letter && (camel || (underscore && text.charAt(i - 1) != '_'))) {
+                int end = i;
+                if (text.startsWith("()", end)) {
+                    end += 2;
+                }
+                spanEnd[start] = end;
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 用自动机一次遍历找出所有术语，同一位置取最长的完整单词匹配
+     */
+    private boolean markTerms(String text, int[] spanEnd, String[] spanTarget) {
+        if (termLengths.length == 0) {
+            return false;
+        }
+        boolean found = false;
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            Integer next = transitions.get(key(node, c));
+            while (next == null && node != 0) {
+                node = fail[node];
+                next = transitions.get(key(node, c));
+            }
+            node = next == null ? 0 : next;
+            // 沿术语链找第一个满足单词边界的匹配，即以 i 结尾的最长术语
+            int candidate = termAt[node] >= 0 ? node : nextTermNode[node];
+            while (candidate > 0) {
+                int term = termAt[candidate];
+                int start = i + 1 - termLengths[term];
+                if (isBoundary(text, start, i + 1)) {
+                    // 与标识符等其它片段起点相同时保留较长的
+                    if (spanEnd[start] < i + 1) {
+                        spanEnd[start] = i + 1;
+                        spanTarget[start] = termTargets[term];
+                    }
+                    found = true;
+                    break;
+                }
+                candidate = nextTermNode[candidate];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 标记内联标签、反引号代码和原文中已有的占位符，优先级最高
+     */
+    private static boolean markInlineCode(String text, int[] spanEnd, String[] spanTarget) {
+        boolean found = false;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int end = -1;
+            if (c == '{' && i + 1 < length && text.charAt(i + 1) == '@') {
+                int depth = 0;
+                for (int j = i; j < length; j++) {
+                    if (text.charAt(j) == '{') {
+                        depth++;
+                    } else if (text.charAt(j) == '}' && --depth == 0) {
+                        end = j + 1;
+                        break;
+                    }
+                }
+            } else if (c == '{') {
+                int j = i + 1;
+                while (j < length && text.charAt(j) >= '0' && text.charAt(j) <= '9') {
+                    j++;
+                }
+                if (j > i + 1 && j < length && text.charAt(j) == '}') {
+                    end = j + 1;
+                }
+            } else if (c == '`') {
+                int close = text.indexOf('`', i + 1);
+                if (close > i + 1) {
+                    end = close + 1;
+                }
+            }
+            if (end > i) {
+                spanEnd[i] = end;
+                spanTarget[i] = null;
+                // 片段内部的标记失效
+                for (int j = i + 1; j < end; j++) {
+                    spanEnd[j] = 0;
+                }
+                found = true;
+                i = end - 1;
+            }
+        }
+        return found;
+    }
+
+    private static boolean isBoundary(String text, int start, int end) {
+        if (start > 0 && isWordChar(text.charAt(start)) && isWordChar(text.charAt(start - 1))) {
+            return false;
+        }
+        return end >= text.length() || !isWordChar(text.charAt(end - 1)) || !isWordChar(text.charAt(end));
+    }
+
+    /**
+     * 英文单词字符；中日韩等文字没有空格分词，不做边界限制
+     */
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '$';
+    }
+
+    private static long key(int node, char c) {
+        return ((long) node << 16) | c;
+    }
+
+    /**
+     * 保护后的文本
+     */
+    public static final class Protected {
+        private final String text;
+        private final String[] replacements;
+
+        Protected(String text, String[] replacements) {
+            this.text = text;
+            this.replacements = replacements;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String[] getReplacements() {
+            return replacements;
+        }
+
+        /**
+         * 还原译文中的占位符，兼容翻译引擎在占位符内插入空格或转为全角字符
+         * @param translated 译文
+         * @return 还原后的译文，有占位符丢失时返回 null
+         */
+        public String restore(String translated) {
+            if (replacements.length == 0) {
+                return translated;
+            }
+            boolean[] restored = new boolean[replacements.length];
+            int restoredCount = 0;
+            int length = translated.length();
+            StringBuilder sb = new StringBuilder(length + 16);
+            int i = 0;
+            while (i < length) {
+                char c = translated.charAt(i);
+                if (c == '{' || c == '｛') {
+                    int j = skipSpaces(translated, i + 1);
+                    int index = 0;
+                    int digitsStart = j;
+                    while (j < length && digit(translated.charAt(j)) >= 0 && index < replacements.length) {
+                        index = index * 10 + digit(translated.charAt(j));
+                        j++;
+                    }
+                    int close = skipSpaces(translated, j);
+                    if (j > digitsStart && index < replacements.length && close < length
+                            && (translated.charAt(close) == '}' || translated.charAt(close) == '｝')) {
+                        sb.append(replacements[index]);
+                        if (!restored[index]) {
+                            restored[index] = true;
+                            restoredCount++;
+                        }
+                        i = close + 1;
+                        continue;
+                    }
+                }
+                sb.append(c);
+                i++;
+            }
+            return restoredCount == replacements.length ? sb.toString() : null;
+        }
+
+        private static int skipSpaces(String text, int offset) {
+            while (offset < text.length() && text.charAt(offset) == ' ') {
+                offset++;
+            }
+            return offset;
+        }
+
+        private static int digit(char c) {
+            if (c >= '0' && c <= '9') {
+                return c - '0';
+            }
+            if (c >= '０' && c <= '９') {
+                return c - '０';
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.plugin.fasttranslation.limit;
+
+/**
+ * AIMD 自适应并发控制：每次成功把并发上限加 1/limit(约每轮加 1)，被限流时乘性减半。
+ * 在途请求达到上限时调用方排队等待。
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private int inFlight;
+
+    /**
+     * @param initialLimit 初始并发上限
+     * @param minLimit 最小并发上限
+     * @param maxLimit 最大并发上限
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * 获取一个并发许可，必要时阻塞等待
+     * @throws InterruptedException 等待期间被中断
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * 归还许可并根据结果调整并发上限
+     * @param throttled 请求是否被服务端限流
+     */
+    public synchronized void release(boolean throttled) {
+        inFlight--;
+        if (throttled) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,109 @@
+package com.plugin.fasttranslation.limit;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 每日字符预算：按本地日期累计发送给翻译服务的字符数，超过预算后拒绝请求，翻译降级为只用缓存(和离线兜底)。
+ * 非交互请求只能用到预算的 90%，剩余部分留给用户主动触发的翻译。
+ * 已用字符数通过 {@link Store} 保存，插件中保存在设置里，重启 IDE 后继续累计。
+ */
+public class CharacterBudget {
+
+    /** 非交互请求可以使用的预算比例 */
+    private static final double NON_INTERACTIVE_RATIO = 0.9;
+
+    private final Store store;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public CharacterBudget(Store store) {
+        this.store = store;
+    }
+
+    /**
+     * @param dailyLimit 每日字符预算，0 表示不限
+     * @return 只保存在内存中的预算，例如命令行单次运行
+     */
+    public static CharacterBudget inMemory(long dailyLimit) {
+        return new CharacterBudget(new Store() {
+            private String day = "";
+            private long usedChars;
+
+            @Override
+            public long getDailyLimit() {
+                return dailyLimit;
+            }
+
+            @Override
+            public String getDay() {
+                return day;
+            }
+
+            @Override
+            public long getUsedChars() {
+                return usedChars;
+            }
+
+            @Override
+            public void setUsage(String day, long usedChars) {
+                this.day = day;
+                this.usedChars = usedChars;
+            }
+        });
+    }
+
+    /**
+     * 发送请求前扣除字符数，请求失败不退还
+     * @param chars 请求的字符数
+     * @param priority 请求的优先级
+     * @return 预算不足时返回 false，不扣除
+     */
+    public synchronized boolean tryConsume(long chars, TranslationPriority priority) {
+        String today = LocalDate.now().toString();
+        long used = today.equals(store.getDay()) ? store.getUsedChars() : 0;
+        long limit = store.getDailyLimit();
+        if (limit > 0) {
+            long allowed = priority == TranslationPriority.INTERACTIVE ? limit : (long) (limit * NON_INTERACTIVE_RATIO);
+            if (used + chars > allowed) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+        }
+        store.setUsage(today, used + chars);
+        return true;
+    }
+
+    /**
+     * @return 今天已使用的字符数
+     */
+    public synchronized long getUsedToday() {
+        return LocalDate.now().toString().equals(store.getDay()) ? store.getUsedChars() : 0;
+    }
+
+    /**
+     * @return 因预算不足被拒绝的请求数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 预算和已用字符数的存取，调用时已持有预算的锁
+     */
+    public interface Store {
+
+        /**
+         * @return 每日字符预算，0 表示不限
+         */
+        long getDailyLimit();
+
+        /**
+         * @return 已用字符数对应的日期(yyyy-MM-dd)
+         */
+        String getDay();
+
+        long getUsedChars();
+
+        void setUsage(String day, long usedChars);
+    }
+}
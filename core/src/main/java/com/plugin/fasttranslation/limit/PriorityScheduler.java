@@ -0,0 +1,153 @@
+package com.plugin.fasttranslation.limit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按优先级放行请求：同一时刻只有一个请求进入限流器(令牌桶和并发控制)等待，其余请求按优先级在这里排队。
+ * 令牌桶按预占的先后放行，如果所有请求都直接进入令牌桶，先到的大量后台请求会把交互请求排到几秒之后；
+ * 在这里排队后，新到的交互请求最多等待当前正在进入限流器的一个请求。
+ * <ul>
+ *     <li>交互请求总是最先放行</li>
+ *     <li>视口和后台请求同时等待时按权重平滑轮转，持续滚动时后台请求也不会被饿死</li>
+ *     <li>同一优先级内先到先放行</li>
+ * </ul>
+ */
+public class PriorityScheduler {
+
+    private static final TranslationPriority[] PRIORITIES = TranslationPriority.values();
+
+    /** 非交互优先级的轮转权重，下标为 ordinal */
+    private final int[] weights;
+    /** 平滑加权轮转的当前值 */
+    private final int[] current = new int[PRIORITIES.length];
+    /** 各优先级的等待队列，下标为 ordinal */
+    private final List<ArrayDeque<Waiter>> queues = new ArrayList<>(PRIORITIES.length);
+    /** 是否有请求正在进入限流器 */
+    private boolean busy;
+
+    private final AtomicLong preemptedCount = new AtomicLong();
+
+    /**
+     * @param viewportWeight 视口请求的轮转权重
+     * @param backgroundWeight 后台请求的轮转权重
+     */
+    public PriorityScheduler(int viewportWeight, int backgroundWeight) {
+        weights = new int[PRIORITIES.length];
+        weights[TranslationPriority.VIEWPORT.ordinal()] = viewportWeight;
+        weights[TranslationPriority.BACKGROUND.ordinal()] = backgroundWeight;
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * 等待轮到该请求，之后必须调用 {@link #release()}
+     * @param priority 请求的优先级
+     * @throws InterruptedException 等待期间被中断
+     */
+    public synchronized void acquire(TranslationPriority priority) throws InterruptedException {
+        if (!busy) {
+            busy = true;
+            return;
+        }
+        if (priority == TranslationPriority.INTERACTIVE && hasLowerWaiting()) {
+            preemptedCount.incrementAndGet();
+        }
+        Waiter waiter = new Waiter();
+        queues.get(priority.ordinal()).addLast(waiter);
+        try {
+            while (!waiter.granted) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            if (waiter.granted) {
+                // 中断的同时被放行，交给下一个请求
+                release();
+            } else {
+                queues.get(priority.ordinal()).remove(waiter);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 当前请求已进入限流器，放行下一个请求
+     */
+    public synchronized void release() {
+        Waiter next = pollNext();
+        if (next == null) {
+            busy = false;
+            return;
+        }
+        next.granted = true;
+        notifyAll();
+    }
+
+    /**
+     * @return 没有请求在等待或进入限流器
+     */
+    public synchronized boolean isIdle() {
+        return !busy;
+    }
+
+    /**
+     * @return 排队中的请求数
+     */
+    public synchronized int getWaiting() {
+        int waiting = 0;
+        for (ArrayDeque<Waiter> queue : queues) {
+            waiting += queue.size();
+        }
+        return waiting;
+    }
+
+    /**
+     * @return 交互请求插队到视口或后台请求之前的次数
+     */
+    public long getPreemptedCount() {
+        return preemptedCount.get();
+    }
+
+    private boolean hasLowerWaiting() {
+        for (int i = TranslationPriority.INTERACTIVE.ordinal() + 1; i < queues.size(); i++) {
+            if (!queues.get(i).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Waiter pollNext() {
+        ArrayDeque<Waiter> interactive = queues.get(TranslationPriority.INTERACTIVE.ordinal());
+        if (!interactive.isEmpty()) {
+            return interactive.pollFirst();
+        }
+        // 平滑加权轮转(与 nginx upstream 相同)：每轮各队列加上权重，取最大者并减去总权重
+        int total = 0;
+        int best = -1;
+        for (int i = TranslationPriority.INTERACTIVE.ordinal() + 1; i < queues.size(); i++) {
+            if (queues.get(i).isEmpty()) {
+                // 空闲的队列不积累额度，之后不会连续放行一串
+                current[i] = 0;
+                continue;
+            }
+            current[i] += weights[i];
+            total += weights[i];
+            if (best < 0 || current[i] > current[best]) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        current[best] -= total;
+        return queues.get(best).pollFirst();
+    }
+
+    private static final class Waiter {
+        private boolean granted;
+    }
+}
@@ -0,0 +1,37 @@
+package com.plugin.fasttranslation.limit;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 指数退避重试策略，退避时间使用 full jitter 打散，避免多个客户端同时重试
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * @param maxAttempts 最大尝试次数(含第一次)
+     * @param baseDelayMillis 第一次重试的退避上限
+     * @param maxDelayMillis 单次退避的最大值
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param attempt 已失败的次数，从 0 开始
+     * @return 下一次重试前需要等待的时间，在 [0, min(max, base * 2^attempt)] 内随机
+     */
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
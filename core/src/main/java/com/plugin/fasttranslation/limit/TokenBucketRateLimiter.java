@@ -0,0 +1,80 @@
+package com.plugin.fasttranslation.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流：以固定速率补充令牌，桶满时最多允许 burst 个请求同时放行。
+ * 令牌不足时调用方排队等待，而不是直接失败。
+ */
+public class TokenBucketRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param burst 桶容量
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取一个令牌，必要时阻塞等待
+     * @throws InterruptedException 等待期间被中断
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * 尝试立即获取一个令牌
+     * @return 是否获取成功
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 当前可立即使用的令牌数，有请求排队透支时为负数
+     */
+    public synchronized double getAvailablePermits() {
+        refill();
+        return tokens;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * 预占一个令牌(允许透支)，返回需要等待的时间。透支保证了排队的先后顺序。
+     */
+    private synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) (-tokens / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,14 @@
+package com.plugin.fasttranslation.limit;
+
+/**
+ * 请求的优先级，按声明顺序从高到低。
+ * 同一个配额(限流、并发和每日字符预算)由不同来源的请求共享，优先级决定排队时谁先发送。
+ */
+public enum TranslationPriority {
+    /** 用户主动触发并等待结果的翻译，例如快捷键翻译选中的文本 */
+    INTERACTIVE,
+    /** 当前视口内自动显示的译文，例如注释下方的内联译文 */
+    VIEWPORT,
+    /** 批量翻译和预取，可以等待 */
+    BACKGROUND
+}
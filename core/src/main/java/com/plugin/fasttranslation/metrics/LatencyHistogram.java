@@ -0,0 +1,176 @@
+package com.plugin.fasttranslation.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 滚动窗口的延迟直方图：按 2 的幂分组、每组 8 个子桶记录微秒数，相对误差不超过 12.5%。
+ * 窗口由若干时间片组成，过期的时间片在下次写入时清零，百分位只统计窗口内的数据。
+ * 记录只有一次数组下标计算和一次原子自增，可以放在热路径上。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long sliceNanos;
+    private final Slice[] slices;
+    /** 从创建或重置开始的累计值 */
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+
+    /**
+     * @param window 窗口长度
+     * @param sliceCount 窗口划分的时间片数，越多窗口滚动越平滑
+     * @param unit 窗口长度的单位
+     */
+    public LatencyHistogram(long window, int sliceCount, TimeUnit unit) {
+        this.sliceNanos = Math.max(1, unit.toNanos(window) / sliceCount);
+        this.slices = new Slice[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new Slice();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     * @param nanos 纳秒
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        long epoch = System.nanoTime() / sliceNanos;
+        Slice slice = slices[(int) (epoch % slices.length)];
+        if (slice.epoch != epoch) {
+            rotate(slice, epoch);
+        }
+        slice.counts.incrementAndGet(index(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+    }
+
+    /**
+     * @return 窗口内数据的快照
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        long oldestEpoch = System.nanoTime() / sliceNanos - slices.length + 1;
+        for (Slice slice : slices) {
+            if (slice.epoch < oldestEpoch) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long c = slice.counts.get(i);
+                counts[i] += c;
+                count += c;
+            }
+        }
+        return new Snapshot(counts, count, totalCount.sum(), totalMicros.sum());
+    }
+
+    public synchronized void reset() {
+        for (Slice slice : slices) {
+            slice.epoch = -1;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                slice.counts.set(i, 0);
+            }
+        }
+        totalCount.reset();
+        totalMicros.reset();
+    }
+
+    private synchronized void rotate(Slice slice, long epoch) {
+        if (slice.epoch == epoch) {
+            return;
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            slice.counts.set(i, 0);
+        }
+        slice.epoch = epoch;
+    }
+
+    static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return 桶的代表值(区间中点)，单位微秒
+     */
+    static double value(int index) {
+        int group = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (group == 0) {
+            return sub;
+        }
+        long lower = (long) (SUB_BUCKETS + sub) << (group - 1);
+        return lower + ((1L << (group - 1)) - 1) / 2.0;
+    }
+
+    private static final class Slice {
+        private volatile long epoch = -1;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    }
+
+    /**
+     * 直方图快照
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalCount;
+        private final long totalMicros;
+
+        Snapshot(long[] counts, long count, long totalCount, long totalMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.totalCount = totalCount;
+            this.totalMicros = totalMicros;
+        }
+
+        /**
+         * @return 窗口内的记录数
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return 累计记录数
+         */
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @return 累计平均耗时(毫秒)
+         */
+        public double getMeanMillis() {
+            return totalCount == 0 ? 0 : totalMicros / 1000.0 / totalCount;
+        }
+
+        /**
+         * @param quantile 分位，例如 0.95
+         * @return 窗口内该分位的耗时(毫秒)，没有数据时为 0
+         */
+        public double getPercentileMillis(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return value(i) / 1000.0;
+                }
+            }
+            return value(counts.length - 1) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.plugin.fasttranslation.metrics;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 翻译链路的指标：每个阶段一个最近 60 秒的延迟直方图，以及请求数、载荷字符数等计数器。
+ * 缓存命中、重试、限流等已有计数通过 {@link #registerCounter(String, LongSupplier)} 接入，不重复计数。
+ */
+public final class TranslationMetrics {
+
+    /**
+     * 翻译链路的阶段
+     */
+    public enum Stage {
+        SELECTION("selection"),
+        FORMAT("format"),
+        DETECT("detect"),
+        NETWORK("network"),
+        REASSEMBLY("reassembly"),
+        DOCUMENT_WRITE("document write"),
+        TOTAL("total");
+
+        private final String displayName;
+
+        Stage(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private static final Map<Stage, LatencyHistogram> HISTOGRAMS = new EnumMap<>(Stage.class);
+    /** 按注册顺序输出 */
+    private static final Map<String, LongSupplier> COUNTERS = new LinkedHashMap<>();
+    private static final LongAdder REQUESTS = new LongAdder();
+    private static final LongAdder PAYLOAD_CHARS = new LongAdder();
+    private static final LongAdder FAILURES = new LongAdder();
+
+    static {
+        for (Stage stage : Stage.values()) {
+            HISTOGRAMS.put(stage, new LatencyHistogram(60, 6, TimeUnit.SECONDS));
+        }
+        registerCounter("requests", REQUESTS::sum);
+        registerCounter("payload chars", PAYLOAD_CHARS::sum);
+        registerCounter("failures", FAILURES::sum);
+    }
+
+    private TranslationMetrics() {
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     * @param stage 阶段
+     * @param startNanos 阶段开始时的 System.nanoTime()
+     */
+    public static void record(Stage stage, long startNanos) {
+        HISTOGRAMS.get(stage).recordNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 记录一次远程请求
+     * @param chars 请求的字符数
+     */
+    public static void recordRequest(long chars) {
+        REQUESTS.increment();
+        PAYLOAD_CHARS.add(chars);
+    }
+
+    public static void recordFailure() {
+        FAILURES.increment();
+    }
+
+    /**
+     * 接入外部已有的计数器，同名时覆盖
+     * @param name 名称
+     * @param counter 读取当前值
+     */
+    public static synchronized void registerCounter(String name, LongSupplier counter) {
+        COUNTERS.put(name, counter);
+    }
+
+    public static LatencyHistogram.Snapshot snapshot(Stage stage) {
+        return HISTOGRAMS.get(stage).snapshot();
+    }
+
+    /**
+     * @return 所有计数器的当前值
+     */
+    public static synchronized Map<String, Long> getCounters() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.getAsLong()));
+        return values;
+    }
+
+    /**
+     * 清空直方图和本类持有的计数器，外部计数器不受影响
+     */
+    public static void reset() {
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+        REQUESTS.reset();
+        PAYLOAD_CHARS.reset();
+        FAILURES.reset();
+    }
+
+    /**
+     * @return 文本格式的报告，百分位为最近 60 秒，次数和平均值为累计值
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-16s%10s%10s%10s%10s%10s%n", "stage", "count", "mean ms", "p50 ms", "p95 ms", "p99 ms"));
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram.Snapshot snapshot = snapshot(stage);
+            sb.append(String.format("%-16s%10d%10.1f%10.1f%10.1f%10.1f%n", stage.getDisplayName(),
+                    snapshot.getTotalCount(), snapshot.getMeanMillis(), snapshot.getPercentileMillis(0.5),
+                    snapshot.getPercentileMillis(0.95), snapshot.getPercentileMillis(0.99)));
+        }
+        sb.append(System.lineSeparator());
+        getCounters().forEach((name, value) -> sb.append(String.format("%-16s%10d%n", name, value)));
+        return sb.toString();
+    }
+}
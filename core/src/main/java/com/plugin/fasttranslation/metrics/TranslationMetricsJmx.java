@@ -0,0 +1,89 @@
+package com.plugin.fasttranslation.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 把 {@link TranslationMetrics} 注册为平台 MBean，可以用 JConsole/VisualVM 查看
+ */
+public class TranslationMetricsJmx implements TranslationMetricsMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TranslationMetricsJmx.class);
+    private static final String OBJECT_NAME = "com.plugin.fasttranslation:type=TranslationMetrics";
+
+    /**
+     * 注册 MBean，已注册时不做任何事
+     */
+    public static synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new TranslationMetricsJmx(), name);
+            }
+        } catch (JMException e) {
+            LOGGER.warn("注册翻译指标 MBean 失败, msg:{}", e.toString());
+        }
+    }
+
+    public static synchronized void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOGGER.warn("注销翻译指标 MBean 失败, msg:{}", e.toString());
+        }
+    }
+
+    @Override
+    public Map<String, Long> getStageCounts() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (TranslationMetrics.Stage stage : TranslationMetrics.Stage.values()) {
+            values.put(stage.getDisplayName(), TranslationMetrics.snapshot(stage).getTotalCount());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Double> getP50Millis() {
+        return percentiles(snapshot -> snapshot.getPercentileMillis(0.5));
+    }
+
+    @Override
+    public Map<String, Double> getP95Millis() {
+        return percentiles(snapshot -> snapshot.getPercentileMillis(0.95));
+    }
+
+    @Override
+    public Map<String, Double> getP99Millis() {
+        return percentiles(snapshot -> snapshot.getPercentileMillis(0.99));
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return TranslationMetrics.getCounters();
+    }
+
+    @Override
+    public void reset() {
+        TranslationMetrics.reset();
+    }
+
+    private static Map<String, Double> percentiles(ToDoubleFunction<LatencyHistogram.Snapshot> percentile) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (TranslationMetrics.Stage stage : TranslationMetrics.Stage.values()) {
+            values.put(stage.getDisplayName(), percentile.applyAsDouble(TranslationMetrics.snapshot(stage)));
+        }
+        return values;
+    }
+}
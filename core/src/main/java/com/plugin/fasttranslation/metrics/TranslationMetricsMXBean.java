@@ -0,0 +1,21 @@
+package com.plugin.fasttranslation.metrics;
+
+import java.util.Map;
+
+/**
+ * 通过 JMX 暴露的翻译指标，键为阶段或计数器名称
+ */
+public interface TranslationMetricsMXBean {
+
+    Map<String, Long> getStageCounts();
+
+    Map<String, Double> getP50Millis();
+
+    Map<String, Double> getP95Millis();
+
+    Map<String, Double> getP99Millis();
+
+    Map<String, Long> getCounters();
+
+    void reset();
+}
@@ -0,0 +1,438 @@
+package com.plugin.fasttranslation.offline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 离线短语表：覆盖代码注释常用词汇的多语言对照表，按最长匹配切分原文后逐段替换，不访问网络。
+ * <ul>
+ *     <li>每个源语言一份索引，键按字典序排成数组后二分查找，不为每个词条创建节点对象</li>
+ *     <li>拉丁文字按整词匹配(不区分大小写)，汉字、假名、谚文按字符匹配</li>
+ *     <li>源语言为 auto 时在所有非英语列的合并索引中查找</li>
+ * </ul>
+ * 只做词汇替换，不调整语序，译文质量低于在线翻译，用于无网络环境和在线服务不可用时的兜底。
+ * 实例不可变，可在多线程间共享。
+ */
+public final class PhraseTable {
+
+    /** 随插件打包的短语表 */
+    public static final String DEFAULT_RESOURCE = "/offline/phrase-table.tsv";
+    /** 单元格为该值时表示该语言中省略此词(例如中文没有冠词) */
+    private static final String OMIT = "~";
+    private static final String AUTO = "auto";
+    private static final String ENGLISH = "en";
+
+    private final String[] languages;
+    /** [行][列]，null 表示没有对应译文，"" 表示省略 */
+    private final String[][] cells;
+    /** 源语言到索引，另有 auto 对应所有非英语列 */
+    private final Map<String, Index> indexes;
+
+    private PhraseTable(String[] languages, String[][] cells, Map<String, Index> indexes) {
+        this.languages = languages;
+        this.cells = cells;
+        this.indexes = indexes;
+    }
+
+    /**
+     * @return 随插件打包的短语表，首次调用时加载
+     */
+    public static PhraseTable getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * 从 UTF-8 编码的 TSV 加载短语表：# 开头的行为注释，第一个非注释行为语言代码，其余每行一条词条
+     * @param in 输入流，由调用方关闭
+     * @return 短语表
+     */
+    public static PhraseTable load(InputStream in) throws IOException {
+        return load(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public static PhraseTable load(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String[] languages = null;
+        List<String[]> rows = new ArrayList<>();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split("\t", -1);
+            if (languages == null) {
+                languages = columns;
+                continue;
+            }
+            String[] row = new String[languages.length];
+            for (int i = 0; i < row.length && i < columns.length; i++) {
+                String cell = columns[i].trim();
+                row[i] = cell.isEmpty() ? null : OMIT.equals(cell) ? "" : cell;
+            }
+            rows.add(row);
+        }
+        if (languages == null) {
+            throw new IOException("phrase table has no header");
+        }
+        String[][] cells = rows.toArray(new String[0][]);
+        Map<String, Index> indexes = new HashMap<>();
+        List<Integer> foreignColumns = new ArrayList<>();
+        for (int column = 0; column < languages.length; column++) {
+            indexes.put(languages[column], Index.build(cells, Arrays.asList(column)));
+            if (!ENGLISH.equals(languages[column])) {
+                foreignColumns.add(column);
+            }
+        }
+        indexes.put(AUTO, Index.build(cells, foreignColumns));
+        return new PhraseTable(languages, cells, indexes);
+    }
+
+    /**
+     * @return 是否支持该翻译方向
+     */
+    public boolean supports(String sourceLang, String targetLang) {
+        return indexes.containsKey(sourceLang) && columnOf(targetLang) >= 0 && !targetLang.equals(sourceLang);
+    }
+
+    /**
+     * @return 词条数
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * 按最长匹配切分原文并逐段替换，没有对应词条的部分原样保留
+     * @param text 原文
+     * @param sourceLang 源语言，auto 表示任意非英语
+     * @param targetLang 目标语言
+     * @return 译文，不支持该翻译方向时返回原文
+     */
+    public String translate(String text, String sourceLang, String targetLang) {
+        Index index = indexes.get(sourceLang);
+        int target = columnOf(targetLang);
+        if (index == null || target < 0 || text.isEmpty()) {
+            return text;
+        }
+        Output out = new Output(isSpacelessScript(targetLang));
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                out.appendRaw(c);
+                i++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                int end = i + 1;
+                while (end < text.length() && Character.isWhitespace(text.charAt(end))
+                        && text.charAt(end) != '\n' && text.charAt(end) != '\r') {
+                    end++;
+                }
+                out.appendSpace(text.substring(i, end));
+                i = end;
+                continue;
+            }
+            if (!Character.isLetter(c)) {
+                out.appendRaw(out.spacelessTarget ? String.valueOf(c) : toAsciiPunctuation(c));
+                i++;
+                continue;
+            }
+            boolean latin = isLatin(c);
+            int[] ends = latin ? wordEnds(text, i, index.maxWords) : charEnds(text, i, index.maxChars);
+            boolean matched = false;
+            // 从最长的候选开始查找
+            for (int k = ends.length - 1; k >= 0 && !matched; k--) {
+                int row = index.find(normalize(text, i, ends[k]));
+                if (row >= 0 && cells[row][target] != null) {
+                    String translated = cells[row][target];
+                    if (latin && Character.isUpperCase(c) && !translated.isEmpty() && isLatin(translated.charAt(0))) {
+                        translated = Character.toUpperCase(translated.charAt(0)) + translated.substring(1);
+                    }
+                    out.appendSegment(translated);
+                    i = ends[k];
+                    matched = true;
+                }
+            }
+            if (!matched) {
+                // 没有对应词条：拉丁文字保留整个单词，其他文字保留单个字符
+                int end = latin ? ends[0] : i + 1;
+                out.appendSegment(text.substring(i, end));
+                i = end;
+            }
+        }
+        return out.toString();
+    }
+
+    private int columnOf(String language) {
+        for (int i = 0; i < languages.length; i++) {
+            if (languages[i].equals(language)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 从 start 开始的 1..maxWords 个单词的结束位置，单词之间只允许同一行内的空白
+     */
+    private static int[] wordEnds(String text, int start, int maxWords) {
+        int[] ends = new int[Math.max(1, maxWords)];
+        int count = 0;
+        int i = start;
+        while (count < ends.length) {
+            int end = i;
+            while (end < text.length() && isWordChar(text, end)) {
+                end++;
+            }
+            if (end == i) {
+                break;
+            }
+            ends[count++] = end;
+            int next = end;
+            while (next < text.length() && (text.charAt(next) == ' ' || text.charAt(next) == '\t')) {
+                next++;
+            }
+            if (next == end || next >= text.length() || !Character.isLetter(text.charAt(next))) {
+                break;
+            }
+            i = next;
+        }
+        return Arrays.copyOf(ends, count);
+    }
+
+    /**
+     * @return 从 start 开始长度 1..maxChars 且以字母结尾的结束位置，可以包含同一行内的空格(谚文词组)
+     */
+    private static int[] charEnds(String text, int start, int maxChars) {
+        int[] ends = new int[Math.max(1, maxChars)];
+        int count = 0;
+        for (int end = start + 1; end <= text.length() && end - start <= maxChars; end++) {
+            char c = text.charAt(end - 1);
+            if (c == '\n' || c == '\r' || (!Character.isLetter(c) && c != ' ')) {
+                break;
+            }
+            if (Character.isLetter(c)) {
+                ends[count++] = end;
+            }
+        }
+        return count == 0 ? new int[]{start + 1} : Arrays.copyOf(ends, count);
+    }
+
+    private static boolean isWordChar(String text, int i) {
+        char c = text.charAt(i);
+        if (Character.isLetterOrDigit(c)) {
+            return isLatin(c) || Character.isDigit(c);
+        }
+        // 单词中间的连字符和撇号，例如 thread-safe、jusqu'à
+        return (c == '-' || c == '\'') && i > 0 && i + 1 < text.length()
+                && Character.isLetter(text.charAt(i - 1)) && Character.isLetter(text.charAt(i + 1));
+    }
+
+    /**
+     * 统一为小写，连续空白折叠为一个空格
+     */
+    private static String normalize(String text, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        boolean space = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space && sb.length() > 0) {
+                sb.append(' ');
+            }
+            space = false;
+            sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    static boolean isLatin(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.LATIN;
+    }
+
+    static boolean isSpaceless(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    /**
+     * 中文和日文词之间不加空格，韩文和拉丁文字以空格分词
+     */
+    private static boolean isSpacelessScript(String language) {
+        return language.startsWith("zh") || "ja".equals(language);
+    }
+
+    /**
+     * 译为以空格分词的语言时把全角标点换成半角
+     */
+    private static String toAsciiPunctuation(char c) {
+        switch (c) {
+            case '，':
+            case '、':
+                return ",";
+            case '。':
+                return ".";
+            case '：':
+                return ":";
+            case '；':
+                return ";";
+            case '（':
+                return "(";
+            case '）':
+                return ")";
+            case '？':
+                return "?";
+            case '！':
+                return "!";
+            default:
+                return String.valueOf(c);
+        }
+    }
+
+    /**
+     * 单个源语言的索引
+     */
+    private static final class Index {
+        private final String[] keys;
+        private final int[] rows;
+        /** 最长键包含的单词数，限制拉丁文字的候选数 */
+        private final int maxWords;
+        /** 最长键的字符数，限制其他文字的候选数 */
+        private final int maxChars;
+
+        private Index(String[] keys, int[] rows, int maxWords, int maxChars) {
+            this.keys = keys;
+            this.rows = rows;
+            this.maxWords = maxWords;
+            this.maxChars = maxChars;
+        }
+
+        /**
+         * @param columns 参与索引的列，同一个键以先出现的行为准
+         */
+        static Index build(String[][] cells, List<Integer> columns) {
+            Map<String, Integer> keyToRow = new HashMap<>();
+            int maxWords = 1;
+            int maxChars = 1;
+            for (int row = 0; row < cells.length; row++) {
+                for (int column : columns) {
+                    String cell = cells[row][column];
+                    if (cell == null || cell.isEmpty()) {
+                        continue;
+                    }
+                    String key = normalize(cell, 0, cell.length());
+                    if (keyToRow.putIfAbsent(key, row) == null) {
+                        maxWords = Math.max(maxWords, key.split(" ").length);
+                        maxChars = Math.max(maxChars, key.length());
+                    }
+                }
+            }
+            String[] keys = keyToRow.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            int[] rows = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                rows[i] = keyToRow.get(keys[i]);
+            }
+            return new Index(keys, rows, maxWords, maxChars);
+        }
+
+        /**
+         * @return 键所在的行，不存在时返回 -1
+         */
+        int find(String key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i >= 0 ? rows[i] : -1;
+        }
+    }
+
+    /**
+     * 拼接译文片段，处理片段之间的空白：
+     * 中文、日文相邻的两个片段之间不保留空白，省略的词连同其后的空白一起去掉，
+     * 从不以空格分词的文字译为拉丁文字时在相邻单词之间补空格
+     */
+    private static final class Output {
+        private final boolean spacelessTarget;
+        private final StringBuilder sb = new StringBuilder();
+        private String pendingSpace = "";
+        /** 上一个片段被省略，其后的空白一并去掉 */
+        private boolean skipSpace;
+
+        Output(boolean spacelessTarget) {
+            this.spacelessTarget = spacelessTarget;
+        }
+
+        void appendSpace(String space) {
+            if (skipSpace) {
+                skipSpace = false;
+                return;
+            }
+            pendingSpace += space;
+        }
+
+        void appendRaw(char c) {
+            appendRaw(String.valueOf(c));
+        }
+
+        void appendRaw(String s) {
+            sb.append(pendingSpace).append(s);
+            pendingSpace = "";
+            skipSpace = false;
+        }
+
+        void appendSegment(String segment) {
+            if (segment.isEmpty()) {
+                skipSpace = true;
+                return;
+            }
+            skipSpace = false;
+            char last = sb.length() == 0 ? '\n' : sb.charAt(sb.length() - 1);
+            char first = segment.charAt(0);
+            if (!pendingSpace.isEmpty()) {
+                if (spacelessTarget && isSpaceless(last) && isSpaceless(first)) {
+                    pendingSpace = "";
+                }
+            } else if (!spacelessTarget && Character.isLetterOrDigit(first)
+                    && (Character.isLetterOrDigit(last) && !(isSpaceless(last) && isSpaceless(first))
+                    || ",.:;)?!".indexOf(last) >= 0)) {
+                pendingSpace = " ";
+            }
+            sb.append(pendingSpace).append(segment);
+            pendingSpace = "";
+        }
+
+        @Override
+        public String toString() {
+            return sb.append(pendingSpace).toString();
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final PhraseTable INSTANCE = loadDefault();
+
+        private static PhraseTable loadDefault() {
+            try (InputStream in = PhraseTable.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("missing " + DEFAULT_RESOURCE);
+                }
+                return load(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.plugin.fasttranslation.pipeline;
+
+import com.plugin.fasttranslation.metrics.TranslationMetrics;
+import com.plugin.fasttranslation.text.TextChunker;
+import com.plugin.fasttranslation.text.TranslationTemplate;
+import com.plugin.fasttranslation.thirdparty.TranslationException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 把大段文本切分为多个请求块并发翻译，按原顺序流式回调已完成的部分，全部完成后拼装结果。
+ * 并发度由传入的线程池决定，限流和重试由下层的提供方负责。
+ */
+public class ChunkedTranslator {
+
+    private final Executor executor;
+    private final int maxChunkChars;
+
+    /**
+     * @param executor 有界线程池，决定同时在途的请求块数
+     * @param maxChunkChars 单个请求块的最大字符数
+     */
+    public ChunkedTranslator(Executor executor, int maxChunkChars) {
+        this.executor = executor;
+        this.maxChunkChars = maxChunkChars;
+    }
+
+    public int getMaxChunkChars() {
+        return maxChunkChars;
+    }
+
+    /**
+     * 并发翻译模板中的所有槽位
+     * @param template 由 {@link TranslationTemplate#parse(String, int)} 解析得到，单槽位不超过 maxChunkChars
+     * @param translator 单个请求块的翻译实现，源语言和目标语言由调用方绑定
+     * @param listener 按原顺序接收已完成的文本片段，可为 null
+     * @return 拼装后的完整译文；取消该 future 会同时取消尚未完成的请求块
+     */
+    public CompletableFuture<String> translate(TranslationTemplate template, BatchTranslator translator, Listener listener) {
+        String[] sources = template.getSources();
+        String[] translated = new String[sources.length];
+        List<TextChunker.Chunk> chunks = TextChunker.chunk(template, maxChunkChars);
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[chunks.size()];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        StreamState stream = new StreamState(chunks);
+        CompletableFuture<String> result = new CompletableFuture<>();
+
+        for (int i = 0; i < chunks.size(); i++) {
+            TextChunker.Chunk chunk = chunks.get(i);
+            int index = i;
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                // 调用方已取消或其他块已失败时，排队中的块不再发送请求(不占用限流令牌和字符预算)
+                if (result.isDone()) {
+                    throw new CancellationException();
+                }
+                try {
+                    String[] slice = Arrays.copyOfRange(sources, chunk.getFromSlot(), chunk.getToSlot());
+                    String[] translatedSlice = translator.translate(slice);
+                    System.arraycopy(translatedSlice, 0, translated, chunk.getFromSlot(), translatedSlice.length);
+                } catch (TranslationException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+            futures[i] = tasks[i].thenRun(() -> stream.complete(index, template, translated, listener));
+        }
+
+        CompletableFuture.allOf(futures).thenApply(ignored -> {
+            long startNanos = System.nanoTime();
+            String rendered = template.render(translated);
+            TranslationMetrics.record(TranslationMetrics.Stage.REASSEMBLY, startNanos);
+            return rendered;
+        }).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        // 调用方取消或任一块失败时，取消其余尚未开始的请求块；
+        // 取消的是 runAsync 本身的 future，线程池中排队的任务取出后发现已完成就不再执行
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                for (CompletableFuture<?> task : tasks) {
+                    task.cancel(false);
+                }
+            }
+        });
+        for (CompletableFuture<?> future : futures) {
+            future.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 记录已完成的块，按原顺序把连续完成的部分输出给监听器
+     */
+    private static final class StreamState {
+        private final List<TextChunker.Chunk> chunks;
+        private final boolean[] done;
+        private int nextChunk;
+        private int nextLine;
+
+        StreamState(List<TextChunker.Chunk> chunks) {
+            this.chunks = chunks;
+            this.done = new boolean[chunks.size()];
+        }
+
+        synchronized void complete(int index, TranslationTemplate template, String[] translated, Listener listener) {
+            done[index] = true;
+            int before = nextChunk;
+            while (nextChunk < done.length && done[nextChunk]) {
+                nextChunk++;
+            }
+            if (listener == null || nextChunk == before) {
+                return;
+            }
+            int availableSlots = nextChunk == done.length
+                    ? Integer.MAX_VALUE : chunks.get(nextChunk).getFromSlot();
+            StringBuilder sb = new StringBuilder();
+            nextLine = template.appendLines(sb, nextLine, availableSlots, translated);
+            if (sb.length() > 0) {
+                listener.onPartial(sb.toString(), nextChunk, done.length);
+            }
+        }
+    }
+
+    /**
+     * 单个请求块的翻译实现
+     */
+    @FunctionalInterface
+    public interface BatchTranslator {
+        String[] translate(String[] textArr) throws TranslationException;
+    }
+
+    /**
+     * 流式结果监听
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param text 新完成的文本片段(整行，含换行)
+         * @param completedChunks 已按顺序完成的块数
+         * @param totalChunks 总块数
+         */
+        void onPartial(String text, int completedChunks, int totalChunks);
+    }
+}
@@ -0,0 +1,302 @@
+package com.plugin.fasttranslation.pipeline;
+
+import com.plugin.fasttranslation.limit.TranslationPriority;
+import com.plugin.fasttranslation.thirdparty.TranslationException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求合并：
+ * <ul>
+ *     <li>single-flight：相同 (原文, 源语言, 目标语言) 的并发请求共享同一个在途结果</li>
+ *     <li>微批：短时间窗口内到达的不同小请求合并为一个批量请求，直到达到字符数或条数上限</li>
+ * </ul>
+ * 不同优先级的请求分别合并，交互请求不会等待与后台请求凑成的大批次；
+ * 在途结果只共享给优先级相同或更低的请求，交互请求不会等待排队中的后台请求。
+ */
+public class CoalescingTranslator {
+
+    private final BatchSender sender;
+    private final long windowMillis;
+    private final int maxBatchChars;
+    private final int maxBatchSize;
+
+    private final ConcurrentHashMap<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+    /** 按优先级和语言对收集的待发送批次，受 this 锁保护 */
+    private final Map<TranslationPriority, Map<LangPair, PendingBatch>> pending = new EnumMap<>(TranslationPriority.class);
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatcher;
+
+    private final AtomicLong requestedCount = new AtomicLong();
+    private final AtomicLong sharedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * @param sender 实际发送批量请求的实现
+     * @param windowMillis 合并窗口，第一条请求到达后最多等待的时间
+     * @param maxBatchChars 单个批量请求的最大字符数
+     * @param maxBatchSize 单个批量请求的最大条数
+     */
+    public CoalescingTranslator(BatchSender sender, long windowMillis, int maxBatchChars, int maxBatchSize) {
+        this.sender = sender;
+        this.windowMillis = windowMillis;
+        this.maxBatchChars = maxBatchChars;
+        this.maxBatchSize = maxBatchSize;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "FastTranslation-coalesce-timer"));
+        this.dispatcher = Executors.newCachedThreadPool(
+                r -> daemon(r, "FastTranslation-coalesce-" + threadIndex.incrementAndGet()));
+        for (TranslationPriority priority : TranslationPriority.values()) {
+            pending.put(priority, new HashMap<>());
+        }
+    }
+
+    /**
+     * 翻译多行文本，阻塞直到全部完成
+     * @param textArr 原文
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @return 与 textArr 一一对应的译文
+     * @throws TranslationException 所在批次请求失败
+     */
+    public String[] translate(String[] textArr, String sourceLang, String targetLang) throws TranslationException {
+        return translate(textArr, sourceLang, targetLang, TranslationPriority.INTERACTIVE);
+    }
+
+    /**
+     * 按优先级翻译多行文本，阻塞直到全部完成
+     * @param priority 请求的优先级
+     */
+    public String[] translate(String[] textArr, String sourceLang, String targetLang,
+                              TranslationPriority priority) throws TranslationException {
+        try {
+            return translateAsync(textArr, sourceLang, targetLang, priority).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslationException("coalescer", "Interrupted", "translation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TranslationException) {
+                throw (TranslationException) e.getCause();
+            }
+            throw new TranslationException("coalescer", null, String.valueOf(e.getCause()), e.getCause());
+        }
+    }
+
+    /**
+     * 异步翻译多行文本
+     */
+    public CompletableFuture<String[]> translateAsync(String[] textArr, String sourceLang, String targetLang) {
+        return translateAsync(textArr, sourceLang, targetLang, TranslationPriority.INTERACTIVE);
+    }
+
+    /**
+     * 按优先级异步翻译多行文本
+     */
+    public CompletableFuture<String[]> translateAsync(String[] textArr, String sourceLang, String targetLang,
+                                                      TranslationPriority priority) {
+        LangPair langPair = new LangPair(sourceLang, targetLang);
+        List<CompletableFuture<String>> parts = new ArrayList<>(textArr.length);
+        for (int i = 0; i < textArr.length; i++) {
+            requestedCount.incrementAndGet();
+            Key key = new Key(langPair, textArr[i]);
+            InFlight created = new InFlight(new CompletableFuture<>(), priority);
+            InFlight existing = inFlight.putIfAbsent(key, created);
+            if (existing != null && existing.priority.compareTo(priority) > 0) {
+                // 在途的是更低优先级的请求，可能还在排队，单独发送并让之后的请求共享这一份
+                inFlight.put(key, created);
+                existing = null;
+            }
+            if (existing != null) {
+                sharedCount.incrementAndGet();
+                parts.add(existing.future);
+            } else {
+                parts.add(created.future);
+                enqueue(key, created);
+            }
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            String[] result = new String[parts.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = parts.get(i).join();
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return 收到的请求行数
+     */
+    public long getRequestedCount() {
+        return requestedCount.get();
+    }
+
+    /**
+     * @return 直接复用在途请求的行数
+     */
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+
+    /**
+     * @return 实际发出的批量请求数
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    private synchronized void enqueue(Key key, InFlight flight) {
+        Map<LangPair, PendingBatch> batches = pending.get(flight.priority);
+        PendingBatch batch = batches.get(key.langPair);
+        int length = key.text.length();
+        if (batch != null && batch.chars + length > maxBatchChars) {
+            flush(batches, key.langPair, flight.priority);
+            batch = null;
+        }
+        if (batch == null) {
+            batch = new PendingBatch();
+            batches.put(key.langPair, batch);
+            PendingBatch scheduled = batch;
+            scheduler.schedule(() -> flushIfPending(flight.priority, key.langPair, scheduled),
+                    windowMillis, TimeUnit.MILLISECONDS);
+        }
+        batch.keys.add(key);
+        batch.flights.add(flight);
+        batch.chars += length;
+        if (batch.keys.size() >= maxBatchSize || batch.chars >= maxBatchChars) {
+            flush(batches, key.langPair, flight.priority);
+        }
+    }
+
+    private synchronized void flushIfPending(TranslationPriority priority, LangPair langPair, PendingBatch batch) {
+        Map<LangPair, PendingBatch> batches = pending.get(priority);
+        if (batches.get(langPair) == batch) {
+            flush(batches, langPair, priority);
+        }
+    }
+
+    private void flush(Map<LangPair, PendingBatch> batches, LangPair langPair, TranslationPriority priority) {
+        PendingBatch batch = batches.remove(langPair);
+        if (batch == null || batch.keys.isEmpty()) {
+            return;
+        }
+        batchCount.incrementAndGet();
+        dispatcher.execute(() -> send(langPair, priority, batch));
+    }
+
+    private void send(LangPair langPair, TranslationPriority priority, PendingBatch batch) {
+        String[] textArr = new String[batch.keys.size()];
+        for (int i = 0; i < textArr.length; i++) {
+            textArr[i] = batch.keys.get(i).text;
+        }
+        try {
+            String[] result = sender.send(textArr, langPair.sourceLang, langPair.targetLang, priority);
+            for (int i = 0; i < textArr.length; i++) {
+                inFlight.remove(batch.keys.get(i), batch.flights.get(i));
+                batch.flights.get(i).future.complete(result[i]);
+            }
+        } catch (TranslationException | RuntimeException e) {
+            for (int i = 0; i < textArr.length; i++) {
+                inFlight.remove(batch.keys.get(i), batch.flights.get(i));
+                batch.flights.get(i).future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 实际发送批量请求
+     */
+    @FunctionalInterface
+    public interface BatchSender {
+        String[] send(String[] textArr, String sourceLang, String targetLang, TranslationPriority priority)
+                throws TranslationException;
+    }
+
+    private static final class PendingBatch {
+        private final List<Key> keys = new ArrayList<>();
+        private final List<InFlight> flights = new ArrayList<>();
+        private int chars;
+    }
+
+    private static final class InFlight {
+        private final CompletableFuture<String> future;
+        private final TranslationPriority priority;
+
+        InFlight(CompletableFuture<String> future, TranslationPriority priority) {
+            this.future = future;
+            this.priority = priority;
+        }
+    }
+
+    private static final class LangPair {
+        private final String sourceLang;
+        private final String targetLang;
+
+        LangPair(String sourceLang, String targetLang) {
+            this.sourceLang = sourceLang;
+            this.targetLang = targetLang;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LangPair)) {
+                return false;
+            }
+            LangPair that = (LangPair) o;
+            return sourceLang.equals(that.sourceLang) && targetLang.equals(that.targetLang);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourceLang, targetLang);
+        }
+    }
+
+    private static final class Key {
+        private final LangPair langPair;
+        private final String text;
+
+        Key(LangPair langPair, String text) {
+            this.langPair = langPair;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return langPair.equals(that.langPair) && text.equals(that.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * langPair.hashCode() + text.hashCode();
+        }
+    }
+}
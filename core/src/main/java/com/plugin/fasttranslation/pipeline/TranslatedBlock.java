@@ -0,0 +1,116 @@
+package com.plugin.fasttranslation.pipeline;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次翻译的结果，以及每行原文的哈希到译文的映射。
+ * 再次翻译同一段(例如修改过的注释)时传入上次的结果，未变化的行直接拼接上次的译文，只有新增或修改的行发送请求；
+ * 大部分行未变化时还沿用上次识别出的语种，不再请求远程语种识别。
+ * 离线兜底的译文不会记录，服务恢复后这些行重新请求。
+ */
+public final class TranslatedBlock {
+
+    private final String translation;
+    private final String detectedLang;
+    private final String sourceLang;
+    private final String targetLang;
+    /** 术语库和术语表指纹，变化时上次的译文不能沿用 */
+    private final String namespace;
+    private final Map<Long, String> lines;
+
+    private TranslatedBlock(String translation, String detectedLang, String sourceLang, String targetLang,
+                            String namespace, Map<Long, String> lines) {
+        this.translation = translation;
+        this.detectedLang = detectedLang;
+        this.sourceLang = sourceLang;
+        this.targetLang = targetLang;
+        this.namespace = namespace;
+        this.lines = lines;
+    }
+
+    /**
+     * @return 拼装后的完整译文
+     */
+    public String getTranslation() {
+        return translation;
+    }
+
+    /**
+     * @return 识别出的源语言
+     */
+    public String getDetectedLang() {
+        return detectedLang;
+    }
+
+    /**
+     * @param sources 本次的原文行
+     * @return 其中与上次相同的行数
+     */
+    int countUnchanged(String[] sources) {
+        int count = 0;
+        for (String source : sources) {
+            if (lines.containsKey(hash(source))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 64 位 FNV-1a 哈希，只在同一段的几十到几百行之间比较，冲突可以忽略
+     */
+    static long hash(String line) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : line.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 翻译过程中收集各行译文，请求块在不同线程中完成
+     */
+    static final class Builder {
+
+        private final TranslatedBlock previous;
+        private final String detectedLang;
+        private final String sourceLang;
+        private final String targetLang;
+        private final Map<Long, String> lines = new ConcurrentHashMap<>();
+        private volatile String namespace;
+
+        /**
+         * @param previous 上次的结果，可为 null
+         */
+        Builder(TranslatedBlock previous, String detectedLang, String sourceLang, String targetLang) {
+            this.previous = previous;
+            this.detectedLang = detectedLang;
+            this.sourceLang = sourceLang;
+            this.targetLang = targetLang;
+        }
+
+        /**
+         * @return 上次该行的译文，翻译方向或术语表变化、该行是新增或修改的行时返回 null
+         */
+        String reuse(String namespace, String source) {
+            if (previous == null || !previous.namespace.equals(namespace)
+                    || !previous.sourceLang.equals(sourceLang) || !previous.targetLang.equals(targetLang)) {
+                return null;
+            }
+            return previous.lines.get(hash(source));
+        }
+
+        void record(String namespace, String source, String translation) {
+            this.namespace = namespace;
+            lines.put(hash(source), translation);
+        }
+
+        TranslatedBlock build(String translation) {
+            return new TranslatedBlock(translation, detectedLang, sourceLang, targetLang,
+                    namespace == null ? "" : namespace, lines);
+        }
+    }
+}
@@ -0,0 +1,618 @@
+package com.plugin.fasttranslation.pipeline;
+
+import com.plugin.fasttranslation.cache.TranslationCache;
+import com.plugin.fasttranslation.cache.TranslationMemory;
+import com.plugin.fasttranslation.detect.LanguageDetector;
+import com.plugin.fasttranslation.glossary.Glossary;
+import com.plugin.fasttranslation.limit.CharacterBudget;
+import com.plugin.fasttranslation.limit.TranslationPriority;
+import com.plugin.fasttranslation.metrics.TranslationMetrics;
+import com.plugin.fasttranslation.offline.PhraseTable;
+import com.plugin.fasttranslation.text.IdentifierText;
+import com.plugin.fasttranslation.text.TextChunker;
+import com.plugin.fasttranslation.text.TranslationTemplate;
+import com.plugin.fasttranslation.thirdparty.OfflineTranslationProvider;
+import com.plugin.fasttranslation.thirdparty.ThrottledTranslationProvider;
+import com.plugin.fasttranslation.thirdparty.TranslationException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 翻译核心：语种识别、切分、缓存、术语保护、请求合并、离线兜底和拼装译文，不依赖 IntelliJ 平台，
+ * 插件(RequestTencent)和命令行共用。
+ * 请求按 {@link TranslationPriority} 排队，超过每日字符预算后不再发送请求，只返回缓存和离线兜底的译文。
+ * 失败时返回的 future 以 {@link TranslationException} 异常结束，由调用方决定如何提示。
+ */
+public class TranslationEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TranslationEngine.class);
+    /** 单个请求块的最大字符数，TMT 批量翻译单次请求总长度需低于 6000 字符 */
+    public static final int MAX_CHUNK_CHARS = 2000;
+    /** 合并后单个批量请求的最大条数 */
+    private static final int MAX_BATCH_SIZE = 128;
+    /** 远程语种识别只取文本开头部分 */
+    private static final int MAX_DETECT_CHARS = 2000;
+    /** 令牌桶中至少剩余这么多令牌时才发送预取请求，给交互请求留出余量 */
+    private static final double PREFETCH_MIN_PERMITS = 3;
+    /** 执行视口和后台请求块的线程数 */
+    private static final int BACKGROUND_THREADS = 4;
+
+    private final ThrottledTranslationProvider provider;
+    private final TranslationCache cache;
+    private final String cacheNamespace;
+    private final ExecutorService executor;
+    /** 视口和后台请求块在单独的线程池中等待，不占用交互请求的线程 */
+    private final ExecutorService backgroundExecutor;
+    private final Settings settings;
+    private final ChunkedTranslator chunkedTranslator;
+    /** 合并相同的在途请求，以及 5ms 内到达的小请求 */
+    private final CoalescingTranslator coalescer;
+    private final AtomicLong prefetchCount = new AtomicLong();
+    private final AtomicLong offlineFallbackCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+    private final AtomicLong memoryHitCount = new AtomicLong();
+
+    /**
+     * @param provider 经过限流包装的提供方
+     * @param cache 翻译缓存
+     * @param cacheNamespace 缓存键中的术语库字段，不同提供方的译文应使用不同的值
+     * @param executor 执行语种识别和请求块的线程池
+     * @param settings 每次翻译时读取的设置
+     */
+    public TranslationEngine(ThrottledTranslationProvider provider, TranslationCache cache, String cacheNamespace,
+                             ExecutorService executor, Settings settings) {
+        this.provider = provider;
+        this.cache = cache;
+        this.cacheNamespace = cacheNamespace;
+        this.executor = executor;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.backgroundExecutor = Executors.newFixedThreadPool(BACKGROUND_THREADS, r -> {
+            Thread thread = new Thread(r, "FastTranslation-background-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.settings = settings;
+        this.chunkedTranslator = new ChunkedTranslator(executor, MAX_CHUNK_CHARS);
+        this.coalescer = new CoalescingTranslator(this::requestTranslateBatch, 5, MAX_CHUNK_CHARS, MAX_BATCH_SIZE);
+        TranslationMetrics.registerCounter("cache hits", cache::getHitCount);
+        TranslationMetrics.registerCounter("cache disk hits", cache::getDiskHitCount);
+        TranslationMetrics.registerCounter("cache misses", cache::getMissCount);
+        TranslationMetrics.registerCounter("retries", provider::getRetryCount);
+        TranslationMetrics.registerCounter("throttles", provider::getThrottleCount);
+        TranslationMetrics.registerCounter("coalesced lines", coalescer::getSharedCount);
+        TranslationMetrics.registerCounter("batches", coalescer::getBatchCount);
+        TranslationMetrics.registerCounter("prefetched lines", prefetchCount::get);
+        TranslationMetrics.registerCounter("offline fallbacks", offlineFallbackCount::get);
+        TranslationMetrics.registerCounter("reused lines", reusedCount::get);
+        TranslationMetrics.registerCounter("memory hits", memoryHitCount::get);
+        TranslationMetrics.registerCounter("preempted requests", provider.getScheduler()::getPreemptedCount);
+        TranslationMetrics.registerCounter("budget chars today", () -> settings.getCharacterBudget().getUsedToday());
+        TranslationMetrics.registerCounter("budget rejections", () -> settings.getCharacterBudget().getRejectedCount());
+    }
+
+    /**
+     * 异步翻译任意长度的文本：按段落/行切分为多个请求块并发翻译，按原顺序流式回调已完成的部分
+     * @param text 原文
+     * @param listener 流式结果监听，可为 null
+     * @return 翻译结果，取消该 future 会同时取消尚未完成的请求
+     */
+    public CompletableFuture<String> translateAsync(String text, ChunkedTranslator.Listener listener) {
+        return map(translateBlockAsync(text, listener, null), TranslatedBlock::getTranslation);
+    }
+
+    /**
+     * 增量翻译：与 {@link #translateAsync} 相同，但与上次的结果逐行比较哈希，未变化的行直接沿用上次的译文，
+     * 只有新增或修改的行才查缓存和发送请求
+     * @param text 原文
+     * @param listener 流式结果监听，可为 null
+     * @param previous 同一段上次的翻译结果，可为 null
+     * @return 翻译结果，作为下次翻译的 previous；取消该 future 会同时取消尚未完成的请求
+     */
+    public CompletableFuture<TranslatedBlock> translateBlockAsync(String text, ChunkedTranslator.Listener listener,
+                                                                  TranslatedBlock previous) {
+        long startNanos = System.nanoTime();
+        TranslationTemplate template = TranslationTemplate.parse(text, MAX_CHUNK_CHARS);
+        CompletableFuture<TranslatedBlock> result = new CompletableFuture<>();
+        result.whenComplete((value, error) -> TranslationMetrics.record(TranslationMetrics.Stage.TOTAL, startNanos));
+        CompletableFuture.supplyAsync(() -> {
+            // 至少一半的行未变化时语种不会变，沿用上次的识别结果
+            String[] sources = template.getSources();
+            if (previous != null && sources.length > 0 && previous.countUnchanged(sources) * 2 >= sources.length) {
+                return previous.getDetectedLang();
+            }
+            try {
+                return detectSourceLang(text);
+            } catch (TranslationException e) {
+                throw new CompletionException(e);
+            }
+        }, executor).whenComplete((detected, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            String[] direction = direction(detected);
+            TranslatedBlock.Builder block = new TranslatedBlock.Builder(previous, detected, direction[0], direction[1]);
+            CompletableFuture<String> translation = chunkedTranslator.translate(template,
+                    textArr -> translateLines(textArr, direction[0], direction[1], TranslationPriority.INTERACTIVE,
+                            block), listener);
+            translation.whenComplete((translated, translateError) -> {
+                if (translateError != null) {
+                    // 调用方主动取消(例如关闭弹窗)不是失败，不记录警告
+                    if (!result.isCancelled()) {
+                        LOGGER.warn("请求翻译失败,TextTranslateBatch,sourceLang:{},targetLang:{}, msg:{}",
+                                direction[0], direction[1], translateError.toString());
+                    }
+                    result.completeExceptionally(translateError);
+                } else {
+                    result.complete(block.build(translated));
+                }
+            });
+            result.whenComplete((value, resultError) -> {
+                if (result.isCancelled()) {
+                    translation.cancel(true);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * 翻译代码片段中的标识符(英文 -> 母语)：整个片段的单词去重后作为一个批量请求翻译，再用单词的译文重建每个标识符
+     * @param identifiers 解析后的代码片段
+     * @return 重建后的文本，取消该 future 会同时取消尚未完成的请求
+     */
+    public CompletableFuture<String> translateIdentifiersAsync(IdentifierText identifiers) {
+        String[] vocabulary = identifiers.getVocabulary();
+        return map(translateLinesAsync(vocabulary, "en", settings.getNativeLanguage()), translated -> {
+            Map<String, String> translations = new HashMap<>(vocabulary.length * 2);
+            for (int i = 0; i < vocabulary.length; i++) {
+                translations.put(vocabulary[i], translated[i]);
+            }
+            return identifiers.render(translations);
+        });
+    }
+
+    /**
+     * 把非英文的短语翻译为英文 camelCase 名称，例如 "获取用户余额" -> getUserBalance
+     * @param text 短语
+     * @return 名称，译文中没有可用的单词时返回英文译文；取消该 future 会同时取消尚未完成的请求
+     */
+    public CompletableFuture<String> translateToNameAsync(String text) {
+        return map(translateLinesAsync(new String[]{text.trim()}, "auto", "en"), translated -> {
+            String name = IdentifierText.toCamelCase(translated[0]);
+            return name != null ? name : translated[0];
+        });
+    }
+
+    /**
+     * 异步翻译多条互不相关的文本(例如批量翻译注释)，按字符数切分为多个请求并发发送，命中缓存的不发请求
+     * @param textArr 原文，调用方负责去重
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @return 与 textArr 一一对应的译文，取消该 future 会同时取消尚未完成的请求
+     */
+    public CompletableFuture<String[]> translateLinesAsync(String[] textArr, String sourceLang, String targetLang) {
+        return translateLinesAsync(textArr, sourceLang, targetLang, TranslationPriority.INTERACTIVE);
+    }
+
+    /**
+     * 与 {@link #translateLinesAsync(String[], String, String)} 相同，按指定优先级排队
+     * @param priority 请求的优先级，视口和后台请求在单独的线程池中执行
+     */
+    public CompletableFuture<String[]> translateLinesAsync(String[] textArr, String sourceLang, String targetLang,
+                                                           TranslationPriority priority) {
+        ExecutorService chunkExecutor = priority == TranslationPriority.INTERACTIVE ? executor : backgroundExecutor;
+        String[] translated = new String[textArr.length];
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        int from = 0;
+        while (from < textArr.length) {
+            int to = from;
+            int chars = 0;
+            while (to < textArr.length && to - from < MAX_BATCH_SIZE
+                    && (to == from || chars + textArr[to].length() <= MAX_CHUNK_CHARS)) {
+                chars += textArr[to].length();
+                to++;
+            }
+            int start = from;
+            int end = to;
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    String[] result = translateLines(Arrays.copyOfRange(textArr, start, end), sourceLang, targetLang,
+                            priority, null);
+                    System.arraycopy(result, 0, translated, start, result.length);
+                } catch (TranslationException e) {
+                    throw new CompletionException(e);
+                }
+            }, chunkExecutor));
+            from = to;
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+        CompletableFuture<String[]> result = all.handle((ignored, error) -> {
+            if (error != null) {
+                LOGGER.warn("请求翻译失败,TextTranslateBatch,sourceLang:{},targetLang:{}, msg:{}",
+                        sourceLang, targetLang, error.toString());
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
+            return translated;
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 预先翻译文本并写入缓存，之后对同一文本调用 {@link #translateAsync} 时直接命中缓存。
+     * 与 translateAsync 使用相同的语种识别和切分规则，缓存键完全一致。
+     * 只在没有在途请求且限流余量充足时发送请求，否则放弃本次预取；线程被中断时尽快返回。
+     * @param text 原文，应与之后实际翻译的文本相同
+     */
+    public void prefetch(String text) {
+        // 远程语种识别的结果不缓存，预取后按键仍需一次远程请求，只预取本地可以确定语种的文本
+        LanguageDetector.Detection detection = LanguageDetector.detect(text);
+        if (!detection.isConfident()) {
+            return;
+        }
+        String[] direction = direction(detection.getLanguage());
+        TranslationTemplate template = TranslationTemplate.parse(text, MAX_CHUNK_CHARS);
+        String[] sources = template.getSources();
+        for (TextChunker.Chunk chunk : TextChunker.chunk(template, MAX_CHUNK_CHARS)) {
+            if (Thread.currentThread().isInterrupted() || !provider.hasSpareCapacity(PREFETCH_MIN_PERMITS)) {
+                return;
+            }
+            try {
+                translateLines(Arrays.copyOfRange(sources, chunk.getFromSlot(), chunk.getToSlot()),
+                        direction[0], direction[1], TranslationPriority.BACKGROUND, null);
+                prefetchCount.addAndGet(chunk.getToSlot() - chunk.getFromSlot());
+            } catch (TranslationException e) {
+                LOGGER.debug("预取翻译失败,sourceLang:{},targetLang:{}, msg:{}", direction[0], direction[1], e.toString());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 连接预热：与真实请求一样经过限流、优先级排队(后台)和每日字符预算，发送一次轻量的语种识别请求
+     * @param text 预热请求的文本
+     * @throws TranslationException 预算不足或请求失败
+     */
+    public void warmUp(String text) throws TranslationException {
+        consumeBudget(text.length(), TranslationPriority.BACKGROUND);
+        provider.languageDetect(text, TranslationPriority.BACKGROUND);
+    }
+
+    /**
+     * 对冲请求的准入：对冲向上游多发送一次同样的请求，同样占用一个限流令牌并扣除字符预算。
+     * 对冲只用于降低尾延迟，令牌不足时不等待，预算只使用非交互请求可用的部分
+     * @param chars 请求的字符数
+     * @return 是否允许发送对冲请求
+     */
+    public boolean tryAcquireHedge(long chars) {
+        return provider.tryAcquirePermit()
+                && settings.getCharacterBudget().tryConsume(chars, TranslationPriority.BACKGROUND);
+    }
+
+    /**
+     * 文本批量翻译，只有未命中缓存的行才会发送请求；请求前用本地术语表保护术语和标识符，返回后还原
+     * @param textArr 原文
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @return 与 textArr 一一对应的译文
+     */
+    public String[] translateLines(String[] textArr, String sourceLang, String targetLang) throws TranslationException {
+        return translateLines(textArr, sourceLang, targetLang, TranslationPriority.INTERACTIVE, null);
+    }
+
+    /**
+     * @param priority 请求的优先级
+     * @param block 增量翻译时沿用上次的译文并记录本次的译文，可为 null
+     */
+    private String[] translateLines(String[] textArr, String sourceLang, String targetLang,
+                                    TranslationPriority priority, TranslatedBlock.Builder block)
+            throws TranslationException {
+        Glossary glossary = settings.getGlossary();
+        // 术语表不同时译文可能不同，缓存按术语表指纹区分
+        String namespace = glossary.isEmpty() ? cacheNamespace : cacheNamespace + "#" + glossary.getFingerprint();
+        List<TranslationMemory> memories = settings.getTranslationMemories();
+        String[] result = new String[textArr.length];
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < textArr.length; i++) {
+            if (block != null) {
+                result[i] = block.reuse(namespace, textArr[i]);
+                if (result[i] != null) {
+                    reusedCount.incrementAndGet();
+                    block.record(namespace, textArr[i], result[i]);
+                    continue;
+                }
+            }
+            // 团队共享的翻译记忆优先于本机缓存，不写入缓存
+            for (int m = 0; m < memories.size() && result[i] == null; m++) {
+                result[i] = memories.get(m).get(textArr[i], sourceLang, targetLang);
+            }
+            if (result[i] != null) {
+                memoryHitCount.incrementAndGet();
+                if (block != null) {
+                    block.record(namespace, textArr[i], result[i]);
+                }
+                continue;
+            }
+            result[i] = cache.get(textArr[i], sourceLang, targetLang, namespace);
+            if (result[i] == null) {
+                missIndexes.add(i);
+            } else if (block != null) {
+                block.record(namespace, textArr[i], result[i]);
+            }
+        }
+        if (missIndexes.isEmpty()) {
+            return result;
+        }
+        Glossary.Protected[] protectedArr = new Glossary.Protected[missIndexes.size()];
+        String[] requestArr = new String[protectedArr.length];
+        for (int i = 0; i < protectedArr.length; i++) {
+            protectedArr[i] = glossary.protect(textArr[missIndexes.get(i)]);
+            requestArr[i] = protectedArr[i].getText();
+        }
+        boolean offline = false;
+        String[] translatedArr;
+        try {
+            translatedArr = coalescer.translate(requestArr, sourceLang, targetLang, priority);
+        } catch (TranslationException e) {
+            translatedArr = translateOffline(requestArr, sourceLang, targetLang, e);
+            offline = true;
+        }
+        List<Integer> lostIndexes = new ArrayList<>();
+        for (int i = 0; i < protectedArr.length; i++) {
+            String restored = protectedArr[i].restore(translatedArr[i]);
+            if (restored == null) {
+                lostIndexes.add(i);
+            } else {
+                translatedArr[i] = restored;
+            }
+        }
+        if (!lostIndexes.isEmpty()) {
+            // 占位符被翻译引擎改写时，这些行不做保护重新翻译
+            String[] retryArr = new String[lostIndexes.size()];
+            for (int i = 0; i < retryArr.length; i++) {
+                retryArr[i] = textArr[missIndexes.get(lostIndexes.get(i))];
+            }
+            String[] retriedArr = offline ? translateOffline(retryArr, sourceLang, targetLang, null)
+                    : coalescer.translate(retryArr, sourceLang, targetLang, priority);
+            for (int i = 0; i < retryArr.length; i++) {
+                translatedArr[lostIndexes.get(i)] = retriedArr[i];
+            }
+        }
+        for (int i = 0; i < translatedArr.length; i++) {
+            String source = textArr[missIndexes.get(i)];
+            result[missIndexes.get(i)] = translatedArr[i];
+            if (!offline) {
+                // 离线兜底的译文不缓存，服务恢复后重新请求
+                cache.put(source, sourceLang, targetLang, namespace, translatedArr[i]);
+                if (block != null) {
+                    block.record(namespace, source, translatedArr[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 把磁盘缓存中当前提供方的译文导出为翻译记忆，与文件中已有的条目合并：
+     * 已有条目的译文不变时保留原来的记录时间，新增或译文变化的条目记为当前时间
+     * @param file 翻译记忆文件
+     * @return 文件中的条目数
+     */
+    public int exportMemory(Path file) throws IOException {
+        Map<String, TranslationMemory.Entry> entries = new LinkedHashMap<>();
+        if (Files.exists(file)) {
+            // 读入堆而不映射，否则 Windows 上写入时无法替换该文件
+            TranslationMemory.read(file).forEach(entry -> entries.put(memoryKey(entry.getSource(),
+                    entry.getSourceLang(), entry.getTargetLang()), entry));
+        }
+        long now = System.currentTimeMillis();
+        cache.forEachDiskEntry((source, sourceLang, targetLang, termRepoId, target) -> {
+            // 只导出当前提供方的译文(包括各版本术语表下的译文)，本地替身和离线短语表的译文不混入
+            if (!termRepoId.equals(cacheNamespace) && !termRepoId.startsWith(cacheNamespace + "#")) {
+                return;
+            }
+            String key = memoryKey(source, sourceLang, targetLang);
+            TranslationMemory.Entry previous = entries.get(key);
+            if (previous == null || !previous.getTarget().equals(target)) {
+                entries.put(key, new TranslationMemory.Entry(source, sourceLang, targetLang, target, now));
+            }
+        });
+        return TranslationMemory.write(file, entries.values());
+    }
+
+    public TranslationCache getCache() {
+        return cache;
+    }
+
+    public ThrottledTranslationProvider getProvider() {
+        return provider;
+    }
+
+    public CoalescingTranslator getCoalescer() {
+        return coalescer;
+    }
+
+    /**
+     * 转换结果，取消返回的 future 时同时取消原 future
+     */
+    private static <T, R> CompletableFuture<R> map(CompletableFuture<T> future, Function<T, R> mapper) {
+        CompletableFuture<R> result = future.thenApply(mapper);
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 导出时合并条目用的键，同一 (原文, 源语言, 目标语言) 只保留一条
+     */
+    private static String memoryKey(String source, String sourceLang, String targetLang) {
+        return sourceLang + '\u0001' + targetLang + '\u0001' + source;
+    }
+
+    /**
+     * 英文翻译为母语，其他语言翻译为英文
+     * @param detectedLang 识别出的源语言
+     * @return {源语言, 目标语言}
+     */
+    private String[] direction(String detectedLang) {
+        if ("en".equalsIgnoreCase(detectedLang)) {
+            return new String[]{"en", settings.getNativeLanguage()};
+        }
+        return new String[]{"auto", "en"};
+    }
+
+    /**
+     * 识别源语言：优先使用本地识别，置信度不足时才请求远程 LanguageDetect
+     */
+    private String detectSourceLang(String text) throws TranslationException {
+        long startNanos = System.nanoTime();
+        try {
+            LanguageDetector.Detection detection = LanguageDetector.detect(text);
+            if (detection.isConfident()) {
+                return detection.getLanguage();
+            }
+            try {
+                return languageDetect(text.length() > MAX_DETECT_CHARS ? text.substring(0, MAX_DETECT_CHARS) : text);
+            } catch (TranslationException e) {
+                if (settings.isOfflineFallbackEnabled()) {
+                    // 远程识别不可用时退回本地识别的结果
+                    return detection.getLanguage();
+                }
+                throw e;
+            }
+        } finally {
+            TranslationMetrics.record(TranslationMetrics.Stage.DETECT, startNanos);
+        }
+    }
+
+    /**
+     * 在线服务重试后仍失败时，用离线短语表兜底
+     * @param error 在线请求的异常，不能兜底时重新抛出；为 null 表示已经处于兜底状态
+     */
+    private String[] translateOffline(String[] textArr, String sourceLang, String targetLang,
+                                      TranslationException error) throws TranslationException {
+        PhraseTable phraseTable = PhraseTable.getDefault();
+        if (error != null && (Thread.currentThread().isInterrupted() || !settings.isOfflineFallbackEnabled()
+                || provider.getDelegate() instanceof OfflineTranslationProvider
+                || !phraseTable.supports(sourceLang, targetLang))) {
+            throw error;
+        }
+        if (error != null && offlineFallbackCount.getAndIncrement() == 0) {
+            LOGGER.warn("翻译服务不可用，使用离线短语表,sourceLang:{},targetLang:{}, msg:{}",
+                    sourceLang, targetLang, error.toString());
+        }
+        String[] result = new String[textArr.length];
+        for (int i = 0; i < textArr.length; i++) {
+            result[i] = phraseTable.translate(textArr[i], sourceLang, targetLang);
+        }
+        return result;
+    }
+
+    private String[] requestTranslateBatch(String[] textArr, String sourceLang, String targetLang,
+                                           TranslationPriority priority) throws TranslationException {
+        long chars = 0;
+        for (String text : textArr) {
+            chars += text.length();
+        }
+        consumeBudget(chars, priority);
+        TranslationMetrics.recordRequest(chars);
+        long startNanos = System.nanoTime();
+        try {
+            String[] result = provider.translateBatch(textArr, sourceLang, targetLang, priority);
+            TranslationMetrics.record(TranslationMetrics.Stage.NETWORK, startNanos);
+            return result;
+        } catch (TranslationException e) {
+            TranslationMetrics.recordFailure();
+            LOGGER.warn("请求翻译失败,TextTranslateBatch,textArr:{},sourceLang:{},targetLang:{}, msg:{}",
+                    Arrays.toString(textArr), sourceLang, targetLang, e.toString());
+            LOGGER.error("translateBatch", e);
+            throw e;
+        }
+    }
+
+    private String languageDetect(String text) throws TranslationException {
+        consumeBudget(text.length(), TranslationPriority.INTERACTIVE);
+        TranslationMetrics.recordRequest(text.length());
+        long startNanos = System.nanoTime();
+        try {
+            String lang = provider.languageDetect(text);
+            TranslationMetrics.record(TranslationMetrics.Stage.NETWORK, startNanos);
+            return lang;
+        } catch (TranslationException e) {
+            TranslationMetrics.recordFailure();
+            LOGGER.warn("请求翻译失败,LanguageDetect,text:{}, msg:{}", text, e.toString());
+            throw e;
+        }
+    }
+
+    /**
+     * 发送请求前扣除每日字符预算，离线提供方不计入
+     * @throws TranslationException 预算不足，由调用方按离线兜底处理
+     */
+    private void consumeBudget(long chars, TranslationPriority priority) throws TranslationException {
+        if (provider.getDelegate() instanceof OfflineTranslationProvider
+                || settings.getCharacterBudget().tryConsume(chars, priority)) {
+            return;
+        }
+        LOGGER.debug("超过每日字符预算,chars:{},priority:{}", chars, priority);
+        throw new TranslationException(provider.getName(), "BudgetExhausted", "daily character budget exhausted");
+    }
+
+    /**
+     * 翻译时读取的设置，插件中来自 IDE 设置，命令行中来自参数
+     */
+    public interface Settings {
+
+        /**
+         * @return 英文翻译的目标语言
+         */
+        String getNativeLanguage();
+
+        /**
+         * @return 当前生效的术语表，不能为 null
+         */
+        Glossary getGlossary();
+
+        /**
+         * @return 在线服务不可用时是否使用离线短语表兜底
+         */
+        boolean isOfflineFallbackEnabled();
+
+        /**
+         * @return 查询缓存前依次查询的翻译记忆，没有时返回空列表
+         */
+        List<TranslationMemory> getTranslationMemories();
+
+        /**
+         * @return 每日字符预算，不能为 null
+         */
+        CharacterBudget getCharacterBudget();
+    }
+}
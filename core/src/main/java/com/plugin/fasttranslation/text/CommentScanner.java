@@ -0,0 +1,237 @@
+package com.plugin.fasttranslation.text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 不依赖语法树，直接在源码文本中查找注释，用于 IDE 之外的批量翻译。
+ * <ul>
+ *     <li>跳过字符串、字符和文本块字面量，其中的注释符号不算注释</li>
+ *     <li>独占一行的连续 // 或 # 注释合并为一条，作为一个整体翻译；行尾注释各自独立</li>
+ * </ul>
+ */
+public final class CommentScanner {
+
+    /**
+     * 注释语法
+     */
+    public enum Syntax {
+        /** // 和 /* *&#47;，例如 Java、Kotlin、C、Go、JavaScript */
+        C_STYLE("//"),
+        /** #，例如 Python、Shell、YAML */
+        HASH("#");
+
+        private final String lineMarker;
+
+        Syntax(String lineMarker) {
+            this.lineMarker = lineMarker;
+        }
+    }
+
+    private CommentScanner() {
+    }
+
+    /**
+     * 按扩展名选择注释语法
+     * @param fileName 文件名
+     * @return 不支持的文件类型返回 null
+     */
+    public static Syntax syntaxOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase();
+        switch (extension) {
+            case "java":
+            case "kt":
+            case "kts":
+            case "groovy":
+            case "scala":
+            case "c":
+            case "h":
+            case "cc":
+            case "cpp":
+            case "hpp":
+            case "cs":
+            case "go":
+            case "rs":
+            case "swift":
+            case "js":
+            case "jsx":
+            case "ts":
+            case "tsx":
+            case "dart":
+            case "proto":
+                return Syntax.C_STYLE;
+            case "py":
+            case "sh":
+            case "rb":
+            case "yml":
+            case "yaml":
+            case "toml":
+                return Syntax.HASH;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 查找源码中的所有注释
+     * @param source 源码
+     * @param syntax 注释语法
+     * @return 按出现顺序排列的注释
+     */
+    public static List<Comment> scan(String source, Syntax syntax) {
+        List<Comment> comments = new ArrayList<>();
+        int length = source.length();
+        // 行号按需从上一条注释处继续计数
+        int line = 1;
+        int lineCountedTo = 0;
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            int end;
+            if (syntax == Syntax.C_STYLE && source.startsWith("/*", i)) {
+                end = source.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+            } else if (isLineComment(source, i, syntax)) {
+                end = lineEnd(source, i);
+                if (isLineStart(source, i)) {
+                    int next = nextLineComment(source, end, syntax);
+                    while (next >= 0) {
+                        end = lineEnd(source, next);
+                        next = nextLineComment(source, end, syntax);
+                    }
+                }
+            } else {
+                i = c == '"' || c == '\'' || c == '`' && syntax == Syntax.C_STYLE ? skipLiteral(source, i, syntax) : i + 1;
+                continue;
+            }
+            line += countLines(source, lineCountedTo, i);
+            lineCountedTo = i;
+            comments.add(new Comment(i, end, line, source.substring(i, end)));
+            i = end;
+        }
+        return comments;
+    }
+
+    private static boolean isLineComment(String source, int offset, Syntax syntax) {
+        if (!source.startsWith(syntax.lineMarker, offset)) {
+            return false;
+        }
+        // YAML、Shell 中 # 前面必须是空白，例如 URL 中的 # 不是注释
+        return syntax != Syntax.HASH || offset == 0 || Character.isWhitespace(source.charAt(offset - 1));
+    }
+
+    /**
+     * @return 紧接着的下一行只有注释时返回注释符号的位置，否则返回 -1
+     */
+    private static int nextLineComment(String source, int lineEnd, Syntax syntax) {
+        int next = source.indexOf('\n', lineEnd) + 1;
+        if (next == 0) {
+            return -1;
+        }
+        while (next < source.length() && (source.charAt(next) == ' ' || source.charAt(next) == '\t')) {
+            next++;
+        }
+        return isLineComment(source, next, syntax) ? next : -1;
+    }
+
+    /**
+     * @return 注释前面只有缩进
+     */
+    private static boolean isLineStart(String source, int offset) {
+        for (int i = offset - 1; i >= 0 && source.charAt(i) != '\n'; i--) {
+            if (source.charAt(i) != ' ' && source.charAt(i) != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 行尾的位置，不含换行符和 \r
+     */
+    private static int lineEnd(String source, int offset) {
+        int end = source.indexOf('\n', offset);
+        if (end < 0) {
+            return source.length();
+        }
+        return end > offset && source.charAt(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    /**
+     * 跳过字面量：三引号文本块可以跨行，其他字面量在行尾结束，避免未闭合的引号(例如 Rust 生命周期)吞掉后面的代码
+     * @return 字面量之后的位置
+     */
+    private static int skipLiteral(String source, int offset, Syntax syntax) {
+        char quote = source.charAt(offset);
+        String triple = new String(new char[]{quote, quote, quote});
+        boolean multiLine = quote == '`' || quote == '"' && source.startsWith(triple, offset)
+                || quote == '\'' && syntax == Syntax.HASH && source.startsWith(triple, offset);
+        int i = offset + (multiLine && quote != '`' ? 3 : 1);
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '\n' && !multiLine) {
+                return i;
+            } else if (c == quote && (quote == '`' || !multiLine)) {
+                return i + 1;
+            } else if (c == quote && source.startsWith(triple, i)) {
+                return i + 3;
+            } else {
+                i++;
+            }
+        }
+        return source.length();
+    }
+
+    private static int countLines(String source, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (source.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 源码中的一条注释
+     */
+    public static final class Comment {
+
+        private final int startOffset;
+        private final int endOffset;
+        private final int line;
+        private final String text;
+
+        Comment(int startOffset, int endOffset, int line, String text) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.line = line;
+            this.text = text;
+        }
+
+        public int getStartOffset() {
+            return startOffset;
+        }
+
+        public int getEndOffset() {
+            return endOffset;
+        }
+
+        /**
+         * @return 注释开始的行号，从 1 开始
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * @return 注释原文，合并的多行注释包含中间行的缩进
+         */
+        public String getText() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.plugin.fasttranslation.text;
+
+/**
+ * 注释文本：把每一行拆为 前缀(缩进、注释符号、Javadoc 标签) + 正文 + 后缀(块注释结束符)，
+ * 只翻译正文，再按原有的前后缀拼回，保证翻译后注释结构不变。
+ */
+public final class CommentText {
+
+    private final String[] prefixes;
+    /** 每行的正文，不需要翻译的行为 null */
+    private final String[] bodies;
+    private final String[] suffixes;
+    private final int translatableCount;
+
+    private CommentText(String[] prefixes, String[] bodies, String[] suffixes, int translatableCount) {
+        this.prefixes = prefixes;
+        this.bodies = bodies;
+        this.suffixes = suffixes;
+        this.translatableCount = translatableCount;
+    }
+
+    /**
+     * 解析一段注释，支持 //、/* *&#47;、/** *&#47;、# 和 -- 风格
+     * @param comment 注释原文
+     * @return 解析结果
+     */
+    public static CommentText parse(String comment) {
+        String[] lines = comment.split("\n", -1);
+        String[] prefixes = new String[lines.length];
+        String[] bodies = new String[lines.length];
+        String[] suffixes = new String[lines.length];
+        int translatableCount = 0;
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int length = line.length();
+            int start = skipWhitespace(line, 0);
+            start = skipMarker(line, start);
+            start = skipWhitespace(line, start);
+            start = skipTag(line, start);
+
+            int end = length;
+            while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+                end--;
+            }
+            if (end - start >= 2 && line.startsWith("*/", end - 2)) {
+                end -= 2;
+                while (end > start && line.charAt(end - 1) == '*') {
+                    end--;
+                }
+                while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+                    end--;
+                }
+            }
+
+            prefixes[i] = line.substring(0, start);
+            suffixes[i] = line.substring(end);
+            String body = line.substring(start, end);
+            if (hasLetter(body)) {
+                bodies[i] = body;
+                translatableCount++;
+            } else {
+                // 空行、分隔线等原样保留
+                prefixes[i] = line;
+                suffixes[i] = "";
+            }
+        }
+        return new CommentText(prefixes, bodies, suffixes, translatableCount);
+    }
+
+    /**
+     * @return 每行的正文，不需要翻译的行为 null
+     */
+    public String[] getBodies() {
+        return bodies;
+    }
+
+    public int getTranslatableCount() {
+        return translatableCount;
+    }
+
+    /**
+     * @return 所有正文以空格连接，用于识别注释的语种
+     */
+    public String getPlainText() {
+        StringBuilder sb = new StringBuilder();
+        for (String body : bodies) {
+            if (body != null) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(body);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 用译文替换正文，重新拼装注释
+     * @param translated 与 {@link #getBodies()} 一一对应的译文，为 null 的行保留原文
+     * @return 翻译后的注释
+     */
+    public String render(String[] translated) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < prefixes.length; i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            sb.append(prefixes[i]);
+            if (bodies[i] != null) {
+                String text = translated[i] != null ? translated[i] : bodies[i];
+                // 译文中的换行会破坏行首的注释符号，合并为一行
+                sb.append(text.indexOf('\n') < 0 ? text : text.replace('\n', ' '));
+            }
+            sb.append(suffixes[i]);
+        }
+        return sb.toString();
+    }
+
+    private static int skipMarker(String line, int offset) {
+        if (line.startsWith("/**", offset)) {
+            return offset + 3;
+        }
+        if (line.startsWith("/*", offset)) {
+            return offset + 2;
+        }
+        if (line.startsWith("//", offset)) {
+            // 兼容 ///、//! 这类文档注释
+            int end = offset + 2;
+            while (end < line.length() && (line.charAt(end) == '/' || line.charAt(end) == '!')) {
+                end++;
+            }
+            return end;
+        }
+        if (line.startsWith("#", offset) || line.startsWith("--", offset)) {
+            int end = offset + 1;
+            char marker = line.charAt(offset);
+            while (end < line.length() && line.charAt(end) == marker) {
+                end++;
+            }
+            return end;
+        }
+        if (line.startsWith("*", offset) && !line.startsWith("*/", offset)) {
+            return offset + 1;
+        }
+        return offset;
+    }
+
+    /**
+     * Javadoc 标签及 @param/@throws 的名称不翻译，归入前缀
+     */
+    private static int skipTag(String line, int offset) {
+        if (offset + 1 >= line.length() || line.charAt(offset) != '@' || !Character.isLetter(line.charAt(offset + 1))) {
+            return offset;
+        }
+        int nameEnd = skipWord(line, offset);
+        String tag = line.substring(offset + 1, nameEnd);
+        int end = skipWhitespace(line, nameEnd);
+        if ("param".equals(tag) || "throws".equals(tag) || "exception".equals(tag)) {
+            end = skipWhitespace(line, skipWord(line, end));
+        }
+        return end;
+    }
+
+    private static int skipWord(String line, int offset) {
+        while (offset < line.length() && !Character.isWhitespace(line.charAt(offset))) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static int skipWhitespace(String line, int offset) {
+        while (offset < line.length() && Character.isWhitespace(line.charAt(offset))) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static boolean hasLetter(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLetter(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,346 @@
+package com.plugin.fasttranslation.text;
+
+import com.plugin.fasttranslation.detect.LanguageDetector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 选中的代码片段：识别其中的 Java 标识符，按 camelCase/snake_case 拆分为单词。
+ * 整个片段的单词去重后作为词表一次翻译，再用词表的译文逐个重建标识符，
+ * 请求量与词表大小成正比，而不是与标识符出现的次数成正比。
+ * 关键字、字面量、全大写缩写和数字保持原样，不翻译。
+ * 只有确实像代码时才按标识符处理：含有 ; = {} -> 等语句符号，或者不以句首大写的普通单词开头且含有调用或成员访问，
+ * 或者全部由标识符组成；注释中提到标识符的短句(例如 "See HashMap for details")仍按整句翻译。
+ */
+public final class IdentifierText {
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+            "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "goto", "if",
+            "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "package", "private",
+            "protected", "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+            "throw", "throws", "transient", "try", "void", "volatile", "while", "var", "record", "yield",
+            "true", "false", "null"));
+    /** 生成名称时省略的冠词 */
+    private static final Set<String> ARTICLES = new HashSet<>(Arrays.asList("a", "an", "the"));
+    /** 连续出现这么多个以空格分隔的普通单词时视为自然语言，而不是代码 */
+    private static final int PROSE_WORDS = 3;
+    /** 只在代码中出现的语句符号 */
+    private static final String[] STATEMENT_MARKS = {";", "=", "{", "}", "->"};
+    /** 翻译为名称的文本最大长度 */
+    private static final int MAX_NAME_CHARS = 64;
+
+    /** 原文按标识符切开的片段，偶数下标为非标识符(可为空串)，奇数下标为标识符 */
+    private final List<String> segments;
+    /** segments 中每个标识符拆分出的单词，关键字不拆分 */
+    private final List<String[]> identifierWords;
+    private final String[] vocabulary;
+
+    private IdentifierText(List<String> segments, List<String[]> identifierWords, String[] vocabulary) {
+        this.segments = segments;
+        this.identifierWords = identifierWords;
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * 解析选中的文本，只有看起来是代码(而不是注释或自然语言)时才返回结果
+     * @param text 选中的文本
+     * @return 不是代码片段时返回 null
+     */
+    public static IdentifierText parse(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("//") || trimmed.startsWith("/*") || trimmed.startsWith("*")
+                || trimmed.startsWith("#")) {
+            return null;
+        }
+        List<String> segments = new ArrayList<>();
+        List<String[]> identifierWords = new ArrayList<>();
+        Set<String> vocabulary = new LinkedHashSet<>();
+        boolean compound = false;
+        boolean sentenceStart = false;
+        int proseRun = 0;
+        int ordinaryWords = 0;
+        int i = 0;
+        int segmentStart = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c) && c >= 0x80) {
+                // 非 ASCII 文字属于自然语言，交给普通翻译
+                return null;
+            }
+            if (!Character.isJavaIdentifierStart(c) || c >= 0x80) {
+                if (c != ' ' && c != '\t') {
+                    proseRun = 0;
+                }
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < text.length() && Character.isJavaIdentifierPart(text.charAt(i)) && text.charAt(i) < 0x80) {
+                i++;
+            }
+            String identifier = text.substring(start, i);
+            String[] words = split(identifier);
+            boolean keyword = KEYWORDS.contains(identifier);
+            if (identifier.indexOf('_') >= 0 && identifier.equals(identifier.toUpperCase())) {
+                // 常量名(MAX_BUFFER_SIZE)中的全大写单词不是缩写，按普通单词翻译
+                for (int w = 0; w < words.length; w++) {
+                    words[w] = words[w].toLowerCase();
+                }
+            }
+            if (segments.isEmpty()) {
+                sentenceStart = isSentenceStart(text, start, identifier);
+            }
+            if (!keyword && words.length == 1 && isLowerWord(identifier)) {
+                // 普通小写单词可能是标识符，也可能是自然语言，连续多个以空格分隔时视为自然语言
+                ordinaryWords++;
+                if (++proseRun >= PROSE_WORDS) {
+                    return null;
+                }
+            } else {
+                proseRun = 0;
+            }
+            compound |= words.length > 1;
+            segments.add(text.substring(segmentStart, start));
+            segments.add(identifier);
+            identifierWords.add(keyword ? new String[]{identifier} : words);
+            segmentStart = i;
+            if (!keyword) {
+                for (String word : words) {
+                    if (isTranslatable(word)) {
+                        vocabulary.add(word.toLowerCase());
+                    }
+                }
+            }
+        }
+        segments.add(text.substring(segmentStart));
+        if (!looksLikeCode(text, sentenceStart, ordinaryWords)) {
+            return null;
+        }
+        // 没有复合标识符时(例如单个单词 value)交给普通翻译，可以得到更完整的释义
+        if (vocabulary.isEmpty() || !compound) {
+            return null;
+        }
+        return new IdentifierText(segments, identifierWords, vocabulary.toArray(new String[0]));
+    }
+
+    /**
+     * @return 去重后需要翻译的单词(小写)，按首次出现的顺序
+     */
+    public String[] getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * 用词表的译文重建每个标识符，其余字符保持原样
+     * @param translations 小写单词 -> 译文
+     * @return 重建后的文本
+     */
+    public String render(Map<String, String> translations) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < segments.size(); i++) {
+            if (i % 2 == 0) {
+                sb.append(segments.get(i));
+                continue;
+            }
+            String[] words = identifierWords.get(i / 2);
+            StringBuilder identifier = new StringBuilder();
+            for (String word : words) {
+                String translated = isTranslatable(word) ? translations.get(word.toLowerCase()) : null;
+                appendWord(identifier, translated != null ? translated.trim() : word);
+            }
+            sb.append(identifier);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 选中的文本是否适合翻译为英文标识符：单行、较短、不是英文、没有句末标点
+     * @param text 选中的文本
+     */
+    public static boolean isNameCandidate(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || trimmed.length() > MAX_NAME_CHARS || trimmed.indexOf('\n') >= 0) {
+            return false;
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            if ("。.!?！？;；".indexOf(trimmed.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        LanguageDetector.Detection detection = LanguageDetector.detect(trimmed);
+        return detection.isConfident() && !"en".equals(detection.getLanguage());
+    }
+
+    /**
+     * 把英文译文转换为合法的 camelCase 名称，例如 "Get the user balance" -> getUserBalance
+     * @param english 英文
+     * @return 名称，译文中没有可用的单词时返回 null
+     */
+    public static String toCamelCase(String english) {
+        StringBuilder sb = new StringBuilder();
+        // 所有格不作为单独的单词，例如 user's balance -> userBalance
+        for (String word : english.replaceAll("['’]s\\b", "").split("[^A-Za-z0-9]+")) {
+            if (word.isEmpty() || ARTICLES.contains(word.toLowerCase())) {
+                continue;
+            }
+            // 全大写的缩写保持原样，其他单词统一大小写
+            boolean acronym = word.length() > 1 && word.equals(word.toUpperCase()) && !isDigits(word);
+            if (sb.length() == 0) {
+                sb.append(acronym ? word.toLowerCase() : Character.toLowerCase(word.charAt(0)) + word.substring(1).toLowerCase());
+            } else {
+                sb.append(acronym ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1).toLowerCase());
+            }
+        }
+        if (sb.length() == 0) {
+            return null;
+        }
+        return Character.isJavaIdentifierStart(sb.charAt(0)) ? sb.toString() : "_" + sb;
+    }
+
+    /**
+     * 按 camelCase、PascalCase、snake_case 和数字拆分标识符，例如 getHTTPResponse2 -> get, HTTP, Response, 2
+     */
+    static String[] split(String identifier) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < identifier.length(); i++) {
+            char c = identifier.charAt(i);
+            if (c == '_' || c == '$') {
+                if (start >= 0) {
+                    words.add(identifier.substring(start, i));
+                    start = -1;
+                }
+                continue;
+            }
+            if (start >= 0 && isBoundary(identifier, i)) {
+                words.add(identifier.substring(start, i));
+                start = i;
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            words.add(identifier.substring(start));
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static boolean isBoundary(String identifier, int i) {
+        char previous = identifier.charAt(i - 1);
+        char c = identifier.charAt(i);
+        if (Character.isDigit(c) != Character.isDigit(previous)) {
+            return true;
+        }
+        if (Character.isUpperCase(c) && Character.isLowerCase(previous)) {
+            return true;
+        }
+        // 缩写后接单词：HTTPResponse 在 P 和 R 之间拆开
+        return Character.isUpperCase(c) && Character.isUpperCase(previous)
+                && i + 1 < identifier.length() && Character.isLowerCase(identifier.charAt(i + 1));
+    }
+
+    /**
+     * 数字、单个字母和全大写缩写(例如 HTTP、ID)不翻译
+     */
+    private static boolean isTranslatable(String word) {
+        if (word.length() < 2 || isDigits(word)) {
+            return false;
+        }
+        return !word.equals(word.toUpperCase());
+    }
+
+    /**
+     * @param sentenceStart 是否以句首大写的普通单词开头，例如 "See HashMap"
+     * @param ordinaryWords 普通小写单词(非关键字)的个数
+     */
+    private static boolean looksLikeCode(String text, boolean sentenceStart, int ordinaryWords) {
+        for (String mark : STATEMENT_MARKS) {
+            if (text.contains(mark)) {
+                return true;
+            }
+        }
+        if (sentenceStart) {
+            // "Use toString() instead"、"See Map.get for details" 中的调用和成员访问只是被提到
+            return false;
+        }
+        return text.indexOf('(') >= 0 || hasMemberAccess(text) || ordinaryWords == 0;
+    }
+
+    /**
+     * 第一个单词首字母大写、其余小写，且后面以空格接着另一个单词，例如 "See HashMap"、"If userId"
+     */
+    private static boolean isSentenceStart(String text, int start, String identifier) {
+        if (identifier.length() < 2 || !Character.isUpperCase(identifier.charAt(0))
+                || !isLowerWord(identifier.substring(1))) {
+            return false;
+        }
+        int next = start + identifier.length();
+        if (next >= text.length() || text.charAt(next) != ' ') {
+            return false;
+        }
+        while (next < text.length() && text.charAt(next) == ' ') {
+            next++;
+        }
+        return next < text.length() && Character.isLetter(text.charAt(next));
+    }
+
+    /**
+     * 标识符或右括号后紧跟 . 和标识符，例如 user.getName、list.size()
+     */
+    private static boolean hasMemberAccess(String text) {
+        for (int i = 1; i + 1 < text.length(); i++) {
+            if (text.charAt(i) != '.') {
+                continue;
+            }
+            char previous = text.charAt(i - 1);
+            if ((Character.isJavaIdentifierPart(previous) || previous == ')')
+                    && Character.isJavaIdentifierStart(text.charAt(i + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLowerWord(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isLowerCase(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigits(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 中文、日文之间不加空格，其他情况以空格分隔
+     */
+    private static void appendWord(StringBuilder sb, String word) {
+        if (word.isEmpty()) {
+            return;
+        }
+        if (sb.length() > 0 && !(isSpaceless(sb.charAt(sb.length() - 1)) && isSpaceless(word.charAt(0)))) {
+            sb.append(' ');
+        }
+        sb.append(word);
+    }
+
+    private static boolean isSpaceless(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+}
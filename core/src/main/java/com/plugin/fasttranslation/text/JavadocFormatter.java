@@ -0,0 +1,319 @@
+package com.plugin.fasttranslation.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 轻量的 Javadoc 解析与格式化：单次遍历拆出描述和 @param/@return/@throws/@since 标签，
+ * 输出格式与 IDE 快速文档一致(Params:/Returns:/Throws:/Since:)。
+ * 不再构造模拟类交给 QDox 解析，也不再为每个替换规则重新编译正则。
+ */
+public final class JavadocFormatter {
+
+    private static final String INDENT = "     ";
+    private static final String DASH = " – ";
+    private static final Pattern ANCHOR = Pattern.compile("<a\\s+href=\"[^\"]*\">([^<]*)</a>");
+
+    private JavadocFormatter() {
+    }
+
+    /**
+     * 解析并格式化 Javadoc 注释
+     * @param rawComment 原始注释，可以带或不带 /** 和 *&#47;
+     * @return 格式化后的文本
+     */
+    public static String format(String rawComment) {
+        if (rawComment == null || rawComment.trim().isEmpty()) {
+            return "";
+        }
+        String comment = stripDelimiters(rawComment.trim());
+
+        StringBuilder description = new StringBuilder(comment.length());
+        List<Tag> tags = new ArrayList<>();
+        Tag currentTag = null;
+        int lineStart = 0;
+        int length = comment.length();
+        while (lineStart <= length) {
+            int lineEnd = comment.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            // 去掉行首的空白和 *
+            int start = lineStart;
+            while (start < lineEnd && Character.isWhitespace(comment.charAt(start))) {
+                start++;
+            }
+            while (start < lineEnd && comment.charAt(start) == '*') {
+                start++;
+            }
+            while (start < lineEnd && Character.isWhitespace(comment.charAt(start))) {
+                start++;
+            }
+            if (start + 1 < lineEnd && comment.charAt(start) == '@' && Character.isLetter(comment.charAt(start + 1))) {
+                int nameEnd = start + 1;
+                while (nameEnd < lineEnd && !Character.isWhitespace(comment.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                currentTag = new Tag(comment.substring(start + 1, nameEnd));
+                currentTag.value.append(comment, nameEnd, lineEnd);
+                tags.add(currentTag);
+            } else if (currentTag != null) {
+                currentTag.value.append('\n').append(comment, start, lineEnd);
+            } else {
+                description.append(comment, start, lineEnd).append('\n');
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        StringBuilder formatted = new StringBuilder(comment.length() + 64);
+        String mainDescription = formatDescription(description);
+        if (!mainDescription.isEmpty()) {
+            formatted.append(mainDescription).append('\n');
+        }
+        appendNamedTags(formatted, tags, "param", "Params:", false);
+        appendSingleTag(formatted, tags, "return", "Returns:");
+        appendNamedTags(formatted, tags, "throws", "Throws:", true);
+        appendSingleTag(formatted, tags, "since", "Since:");
+        return formatted.toString().trim();
+    }
+
+    /**
+     * 格式化描述：处理常见 HTML 标签，把所有非空行合并为一行
+     */
+    public static String formatDescription(CharSequence text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        StringBuilder segment = new StringBuilder();
+        Matcher anchor = null;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                appendSegment(result, segment);
+            } else if (c == '<') {
+                if (startsWith(text, i, "<tt>") || startsWith(text, i, "<cite>")) {
+                    i += text.charAt(i + 1) == 't' ? 3 : 5;
+                } else if (startsWith(text, i, "</tt>") || startsWith(text, i, "</pre>")
+                        || startsWith(text, i, "</cite>")) {
+                    i = indexOf(text, '>', i);
+                } else if (startsWith(text, i, "<p>") || startsWith(text, i, "</p>")) {
+                    appendSegment(result, segment);
+                    i = indexOf(text, '>', i);
+                } else if (startsWith(text, i, "<pre>")) {
+                    appendSegment(result, segment);
+                    i += 4;
+                    while (i + 1 < length && Character.isWhitespace(text.charAt(i + 1))) {
+                        i++;
+                    }
+                } else if (startsWith(text, i, "<a")) {
+                    if (anchor == null) {
+                        anchor = ANCHOR.matcher(text);
+                    }
+                    anchor.region(i, length);
+                    if (anchor.lookingAt()) {
+                        appendLinkText(segment, text, anchor.start(1), anchor.end(1));
+                        i = anchor.end() - 1;
+                    } else {
+                        segment.append(c);
+                    }
+                } else {
+                    segment.append(c);
+                }
+            } else if (c == '&' && startsWith(text, i, "&trade;")) {
+                segment.append('™');
+                i += 6;
+            } else {
+                segment.append(c);
+            }
+        }
+        appendSegment(result, segment);
+        return result.toString();
+    }
+
+    /**
+     * 格式化标签内容：去掉 HTML 标签，连续空白合并为一个空格
+     */
+    public static String formatTagContent(CharSequence text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                int close = indexOf(text, '>', i + 1);
+                if (close > i + 1 && close < length) {
+                    i = close;
+                    continue;
+                }
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = result.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                result.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '&' && startsWith(text, i, "&trade;")) {
+                result.append('™');
+                i += 6;
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static String stripDelimiters(String comment) {
+        int start = 0;
+        int end = comment.length();
+        if (comment.startsWith("/**")) {
+            start = 3;
+            while (start < end && Character.isWhitespace(comment.charAt(start))) {
+                start++;
+            }
+        }
+        if (end - start >= 2 && comment.startsWith("*/", end - 2)) {
+            end -= 2;
+            while (end > start && Character.isWhitespace(comment.charAt(end - 1))) {
+                end--;
+            }
+        }
+        return comment.substring(start, end);
+    }
+
+    /**
+     * 输出 @param/@throws 这类带名称的标签，名称为值的第一个单词
+     */
+    private static void appendNamedTags(StringBuilder formatted, List<Tag> tags, String tagName, String title,
+                                        boolean simpleClassName) {
+        boolean first = true;
+        for (Tag tag : tags) {
+            if (!tag.name.equals(tagName)) {
+                continue;
+            }
+            if (first) {
+                formatted.append(title).append('\n');
+                first = false;
+            }
+            String value = tag.value.toString().trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            int nameEnd = 0;
+            while (nameEnd < value.length() && !Character.isWhitespace(value.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            String name = value.substring(0, nameEnd);
+            // 名称后必须跟空白才会从内容中去掉
+            int contentStart = 0;
+            if (nameEnd < value.length()) {
+                contentStart = nameEnd;
+                while (contentStart < value.length() && Character.isWhitespace(value.charAt(contentStart))) {
+                    contentStart++;
+                }
+            }
+            if (simpleClassName) {
+                name = name.substring(name.lastIndexOf('.') + 1);
+            }
+            formatted.append(INDENT).append(name).append(DASH)
+                    .append(formatTagContent(value.substring(contentStart))).append('\n');
+        }
+    }
+
+    /**
+     * 输出 @return/@since 这类只取第一个的标签
+     */
+    private static void appendSingleTag(StringBuilder formatted, List<Tag> tags, String tagName, String title) {
+        for (Tag tag : tags) {
+            if (tag.name.equals(tagName)) {
+                formatted.append(title).append('\n').append(INDENT)
+                        .append(formatTagContent(tag.value)).append('\n');
+                return;
+            }
+        }
+    }
+
+    /**
+     * 追加链接文字：链接文字可能跨行，换行和连续空白合并为一个空格，实体与正文一样解码，
+     * 否则一句话会被拆成两行分别翻译
+     */
+    private static void appendLinkText(StringBuilder segment, CharSequence text, int start, int end) {
+        boolean pendingSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace) {
+                segment.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '&' && i + 7 <= end && startsWith(text, i, "&trade;")) {
+                segment.append('™');
+                i += 6;
+            } else {
+                segment.append(c);
+            }
+        }
+        if (pendingSpace) {
+            segment.append(' ');
+        }
+    }
+
+    private static void appendSegment(StringBuilder result, StringBuilder segment) {
+        int start = 0;
+        int end = segment.length();
+        while (start < end && Character.isWhitespace(segment.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(segment.charAt(end - 1))) {
+            end--;
+        }
+        if (start < end) {
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append(segment, start, end);
+        }
+        segment.setLength(0);
+    }
+
+    private static boolean startsWith(CharSequence text, int offset, String prefix) {
+        if (offset + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    private static final class Tag {
+        private final String name;
+        private final StringBuilder value = new StringBuilder();
+
+        Tag(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.plugin.fasttranslation.text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把模板中的槽位切分为多个请求块，每块字符数不超过上限。
+ * 块已经过半时优先在段落开头切分，避免把一个段落拆到两个请求里。
+ */
+public final class TextChunker {
+
+    private TextChunker() {
+    }
+
+    /**
+     * @param template 模板
+     * @param maxChunkChars 单个请求块的最大字符数，需不小于模板的单槽位上限
+     * @return 依次相连的块
+     */
+    public static List<Chunk> chunk(TranslationTemplate template, int maxChunkChars) {
+        String[] sources = template.getSources();
+        List<Chunk> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        int chunkChars = 0;
+        // 当前块内最后一个可作为切分点的段落开头
+        int lastParagraph = -1;
+        int charsBeforeParagraph = 0;
+        for (int slot = 0; slot < sources.length; slot++) {
+            int length = sources[slot].length();
+            if (slot > chunkStart && chunkChars + length > maxChunkChars) {
+                if (lastParagraph > chunkStart && charsBeforeParagraph * 2 >= maxChunkChars) {
+                    chunks.add(new Chunk(chunkStart, lastParagraph));
+                    chunkChars -= charsBeforeParagraph;
+                    chunkStart = lastParagraph;
+                }
+                if (chunkChars + length > maxChunkChars) {
+                    chunks.add(new Chunk(chunkStart, slot));
+                    chunkChars = 0;
+                    chunkStart = slot;
+                }
+                lastParagraph = -1;
+            }
+            if (slot > chunkStart && template.isParagraphStart(slot)) {
+                lastParagraph = slot;
+                charsBeforeParagraph = chunkChars;
+            }
+            chunkChars += length;
+        }
+        if (chunkStart < sources.length) {
+            chunks.add(new Chunk(chunkStart, sources.length));
+        }
+        return chunks;
+    }
+
+    /**
+     * 槽位区间 [fromSlot, toSlot)
+     */
+    public static final class Chunk {
+        private final int fromSlot;
+        private final int toSlot;
+
+        public Chunk(int fromSlot, int toSlot) {
+            this.fromSlot = fromSlot;
+            this.toSlot = toSlot;
+        }
+
+        public int getFromSlot() {
+            return fromSlot;
+        }
+
+        public int getToSlot() {
+            return toSlot;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + fromSlot + ", " + toSlot + ")";
+        }
+    }
+}
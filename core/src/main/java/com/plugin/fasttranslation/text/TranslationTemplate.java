@@ -0,0 +1,230 @@
+package com.plugin.fasttranslation.text;
+
+import java.util.Arrays;
+
+/**
+ * 按行拆分待翻译文本并记录每行的缩进和译文槽位，译文返回后一次遍历拼回原有排版。
+ * 空白行不占槽位，不会发送给翻译服务；超长的行会被拆成多个槽位，拼装时再合并。
+ */
+public final class TranslationTemplate {
+
+    private final String text;
+    /** 每行在原文中的起始位置 */
+    private final int[] lineStarts;
+    /** 每行缩进结束(即正文开始)的位置 */
+    private final int[] indentEnds;
+    /** 每行第一个译文槽位 */
+    private final int[] slotStarts;
+    /** 每行占用的槽位数，空白行为 0 */
+    private final int[] slotCounts;
+    private final String[] sources;
+    /** 槽位是否由超长行拆分而来且拆分点是空白，拼装时需要补回一个空格 */
+    private final boolean[] spaceBefore;
+    /** 槽位是否是段落的第一行(前面是空白行) */
+    private final boolean[] paragraphStarts;
+    private final int indentChars;
+
+    private TranslationTemplate(String text, int[] lineStarts, int[] indentEnds, int[] slotStarts, int[] slotCounts,
+                                String[] sources, boolean[] spaceBefore, boolean[] paragraphStarts, int indentChars) {
+        this.text = text;
+        this.lineStarts = lineStarts;
+        this.indentEnds = indentEnds;
+        this.slotStarts = slotStarts;
+        this.slotCounts = slotCounts;
+        this.sources = sources;
+        this.spaceBefore = spaceBefore;
+        this.paragraphStarts = paragraphStarts;
+        this.indentChars = indentChars;
+    }
+
+    /**
+     * 解析文本，行为与 String.split("\n") 一致：末尾的空行会被丢弃
+     * @param text 原文
+     * @return 模板
+     */
+    public static TranslationTemplate parse(String text) {
+        return parse(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 解析文本，超过 maxSlotChars 的行会在句末标点或空白处拆分为多个槽位
+     * @param text 原文
+     * @param maxSlotChars 单个槽位的最大字符数
+     * @return 模板
+     */
+    public static TranslationTemplate parse(String text, int maxSlotChars) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\n') {
+            end--;
+        }
+        int lineCount = 1;
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                lineCount++;
+            }
+        }
+        int[] lineStarts = new int[lineCount];
+        int[] indentEnds = new int[lineCount];
+        int[] slotStarts = new int[lineCount];
+        int[] slotCounts = new int[lineCount];
+        String[] sources = new String[lineCount];
+        boolean[] spaceBefore = new boolean[lineCount];
+        boolean[] paragraphStarts = new boolean[lineCount];
+        int slotCount = 0;
+        int indentChars = 0;
+        boolean afterBlank = true;
+        int lineStart = 0;
+        for (int line = 0; line < lineCount; line++) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0 || lineEnd > end) {
+                lineEnd = end;
+            }
+            int contentStart = lineStart;
+            while (contentStart < lineEnd && isIndent(text.charAt(contentStart))) {
+                contentStart++;
+            }
+            int contentEnd = lineEnd;
+            while (contentEnd > contentStart && Character.isWhitespace(text.charAt(contentEnd - 1))) {
+                contentEnd--;
+            }
+            lineStarts[line] = lineStart;
+            indentEnds[line] = contentStart;
+            slotStarts[line] = slotCount;
+            if (contentStart < contentEnd) {
+                indentChars += contentStart - lineStart;
+                int pieceStart = contentStart;
+                boolean space = false;
+                while (pieceStart < contentEnd) {
+                    int pieceEnd = contentEnd - pieceStart > maxSlotChars
+                            ? findSplit(text, pieceStart, pieceStart + maxSlotChars) : contentEnd;
+                    if (slotCount == sources.length) {
+                        int newLength = sources.length * 2;
+                        sources = Arrays.copyOf(sources, newLength);
+                        spaceBefore = Arrays.copyOf(spaceBefore, newLength);
+                        paragraphStarts = Arrays.copyOf(paragraphStarts, newLength);
+                    }
+                    int trimmedEnd = pieceEnd;
+                    while (trimmedEnd > pieceStart && Character.isWhitespace(text.charAt(trimmedEnd - 1))) {
+                        trimmedEnd--;
+                    }
+                    sources[slotCount] = text.substring(pieceStart, trimmedEnd);
+                    spaceBefore[slotCount] = space;
+                    paragraphStarts[slotCount] = afterBlank && pieceStart == contentStart;
+                    slotCount++;
+                    space = trimmedEnd < pieceEnd;
+                    pieceStart = pieceEnd;
+                    while (pieceStart < contentEnd && Character.isWhitespace(text.charAt(pieceStart))) {
+                        pieceStart++;
+                        space = true;
+                    }
+                }
+                afterBlank = false;
+            } else {
+                afterBlank = true;
+            }
+            slotCounts[line] = slotCount - slotStarts[line];
+            lineStart = lineEnd + 1;
+        }
+        return new TranslationTemplate(text, lineStarts, indentEnds, slotStarts, slotCounts,
+                Arrays.copyOf(sources, slotCount), Arrays.copyOf(spaceBefore, slotCount),
+                Arrays.copyOf(paragraphStarts, slotCount), indentChars);
+    }
+
+    /**
+     * @return 需要翻译的文本(已去掉首尾空白)，与 {@link #render(String[])} 的入参一一对应
+     */
+    public String[] getSources() {
+        return sources;
+    }
+
+    /**
+     * @return 原文行数
+     */
+    public int getLineCount() {
+        return lineStarts.length;
+    }
+
+    /**
+     * @param slot 槽位
+     * @return 该槽位是否是一个段落的开头，分块时优先在这里切分
+     */
+    public boolean isParagraphStart(int slot) {
+        return paragraphStarts[slot];
+    }
+
+    /**
+     * 把译文填回模板，每行保留原缩进并以换行结尾
+     * @param translated 与 {@link #getSources()} 一一对应的译文
+     * @return 拼装后的文本
+     */
+    public String render(String[] translated) {
+        if (translated.length != sources.length) {
+            throw new IllegalArgumentException("Expected " + sources.length + " translations but got " + translated.length);
+        }
+        int capacity = indentChars + lineStarts.length + sources.length;
+        for (String s : translated) {
+            capacity += s == null ? 0 : s.length();
+        }
+        StringBuilder sb = new StringBuilder(capacity);
+        appendLines(sb, 0, sources.length, translated);
+        return sb.toString();
+    }
+
+    /**
+     * 从 fromLine 开始，把所有槽位都小于 availableSlots 的行依次追加到 sb，供分段流式输出使用
+     * @param sb 输出
+     * @param fromLine 起始行
+     * @param availableSlots 已翻译完成的槽位上界(不含)
+     * @param translated 译文，只会读取小于 availableSlots 的槽位
+     * @return 下一个尚未输出的行
+     */
+    public int appendLines(StringBuilder sb, int fromLine, int availableSlots, String[] translated) {
+        int line = fromLine;
+        for (; line < lineStarts.length; line++) {
+            int slotStart = slotStarts[line];
+            int slotEnd = slotStart + slotCounts[line];
+            if (slotEnd > availableSlots) {
+                break;
+            }
+            if (slotEnd > slotStart) {
+                sb.append(text, lineStarts[line], indentEnds[line]);
+                for (int slot = slotStart; slot < slotEnd; slot++) {
+                    if (spaceBefore[slot]) {
+                        sb.append(' ');
+                    }
+                    String value = translated[slot];
+                    if (value != null) {
+                        sb.append(value);
+                    }
+                }
+            }
+            sb.append('\n');
+        }
+        return line;
+    }
+
+    /**
+     * 在 (from, limit] 范围内寻找拆分点：优先句末标点，其次空白，找不到时直接在 limit 处截断
+     */
+    private static int findSplit(String text, int from, int limit) {
+        int min = from + (limit - from) / 2;
+        int whitespace = -1;
+        for (int i = limit; i > min; i--) {
+            char c = text.charAt(i - 1);
+            if (c == '.' || c == '。' || c == '!' || c == '！' || c == '?' || c == '？' || c == ';' || c == '；') {
+                return i;
+            }
+            if (whitespace < 0 && Character.isWhitespace(c)) {
+                whitespace = i;
+            }
+        }
+        if (whitespace > 0) {
+            return whitespace;
+        }
+        return Character.isLowSurrogate(text.charAt(limit)) ? limit - 1 : limit;
+    }
+
+    private static boolean isIndent(char c) {
+        return c == ' ' || c == '\t';
+    }
+}
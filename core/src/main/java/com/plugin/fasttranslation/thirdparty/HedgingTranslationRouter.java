@@ -0,0 +1,231 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import com.plugin.fasttranslation.metrics.LatencyHistogram;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求路由：先请求主提供方，超过对冲预算仍未返回时，把同一请求再发给备用提供方，取最先成功的结果。
+ * 主提供方直接失败时立即切换到备用提供方。
+ * 对冲预算取最近几分钟主提供方成功请求的 p95 延迟，样本不足时使用构造时给定的初始值。
+ * 对冲和切换都会向上游多发送一次请求，发送前需经过 {@link HedgeGate} 准入(占用限流令牌和字符预算)，
+ * 不允许时只等待主提供方的结果。
+ */
+public class HedgingTranslationRouter implements TranslationProvider {
+
+    /** 窗口内主提供方的样本数达到该值后才按 p95 计算对冲预算 */
+    private static final int MIN_SAMPLES = 20;
+    private static final double HEDGE_QUANTILE = 0.95;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 50;
+    private static final long MAX_HEDGE_DELAY_MILLIS = 5000;
+    /** 对冲预算的重新计算间隔，避免每个请求都汇总一次直方图 */
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TranslationProvider primary;
+    private final TranslationProvider secondary;
+    private final long initialHedgeDelayMillis;
+    private final ExecutorService executor;
+    private final LatencyHistogram primaryLatency = new LatencyHistogram(5, 10, TimeUnit.MINUTES);
+    private volatile HedgeGate hedgeGate = chars -> true;
+    private volatile long hedgeDelayMillis;
+    private volatile long delayRefreshedNanos = System.nanoTime();
+
+    private final AtomicLong hedgedCount = new AtomicLong();
+    private final AtomicLong secondaryWinCount = new AtomicLong();
+    private final AtomicLong hedgeDeniedCount = new AtomicLong();
+
+    /**
+     * @param primary 主提供方
+     * @param secondary 备用提供方，为 null 时不对冲
+     * @param initialHedgeDelayMillis 主提供方延迟样本不足时的对冲预算
+     */
+    public HedgingTranslationRouter(TranslationProvider primary, TranslationProvider secondary,
+                                    long initialHedgeDelayMillis) {
+        this.primary = primary;
+        this.secondary = secondary;
+        this.initialHedgeDelayMillis = initialHedgeDelayMillis;
+        this.hedgeDelayMillis = initialHedgeDelayMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "FastTranslation-hedge-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String getName() {
+        return secondary == null ? primary.getName() : primary.getName() + "|" + secondary.getName();
+    }
+
+    @Override
+    public String[] translateBatch(String[] textArr, String sourceLang, String targetLang) throws TranslationException {
+        long chars = 0;
+        for (String text : textArr) {
+            chars += text.length();
+        }
+        return hedge(chars, provider -> provider.translateBatch(textArr, sourceLang, targetLang));
+    }
+
+    @Override
+    public String languageDetect(String text) throws TranslationException {
+        return hedge(text.length(), provider -> provider.languageDetect(text));
+    }
+
+    /**
+     * 设置对冲/切换请求的准入，默认总是允许
+     */
+    public void setHedgeGate(HedgeGate hedgeGate) {
+        this.hedgeGate = hedgeGate;
+    }
+
+    /**
+     * @return 当前的对冲预算(毫秒)
+     */
+    public long getHedgeDelayMillis() {
+        long now = System.nanoTime();
+        if (now - delayRefreshedNanos >= DELAY_REFRESH_NANOS) {
+            delayRefreshedNanos = now;
+            LatencyHistogram.Snapshot snapshot = primaryLatency.snapshot();
+            long delay = initialHedgeDelayMillis;
+            if (snapshot.getCount() >= MIN_SAMPLES) {
+                delay = (long) Math.ceil(snapshot.getPercentileMillis(HEDGE_QUANTILE));
+            }
+            hedgeDelayMillis = Math.max(MIN_HEDGE_DELAY_MILLIS, Math.min(MAX_HEDGE_DELAY_MILLIS, delay));
+        }
+        return hedgeDelayMillis;
+    }
+
+    /**
+     * @return 触发对冲的次数
+     */
+    public long getHedgedCount() {
+        return hedgedCount.get();
+    }
+
+    /**
+     * @return 备用提供方先返回的次数
+     */
+    public long getSecondaryWinCount() {
+        return secondaryWinCount.get();
+    }
+
+    /**
+     * @return 因限流令牌或字符预算不足而没有发送对冲/切换请求的次数
+     */
+    public long getHedgeDeniedCount() {
+        return hedgeDeniedCount.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T hedge(long chars, ProviderCall<T> call) throws TranslationException {
+        if (secondary == null) {
+            return call.apply(primary);
+        }
+        CompletableFuture<T> primaryFuture = submit(primary, call);
+        try {
+            return primaryFuture.get(getHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 主提供方超出预算，发起对冲请求
+        } catch (ExecutionException e) {
+            // 主提供方已失败，直接切换到备用提供方；不允许时交给上层按主提供方的错误重试
+            if (!hedgeGate.tryAcquire(chars)) {
+                hedgeDeniedCount.incrementAndGet();
+                throw unwrap(e);
+            }
+            return call.apply(secondary);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslationException(primary.getName(), "Interrupted", "translation interrupted", e);
+        }
+        if (!hedgeGate.tryAcquire(chars)) {
+            hedgeDeniedCount.incrementAndGet();
+            return await(primaryFuture);
+        }
+        hedgedCount.incrementAndGet();
+        CompletableFuture<T> secondaryFuture = submit(secondary, call);
+        return firstSuccess(primaryFuture, secondaryFuture);
+    }
+
+    private <T> CompletableFuture<T> submit(TranslationProvider provider, ProviderCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                T value = call.apply(provider);
+                if (provider == primary) {
+                    // 被对冲的请求也记录，否则慢请求不进入统计，p95 会被低估
+                    primaryLatency.recordNanos(System.nanoTime() - startNanos);
+                }
+                future.complete(value);
+            } catch (TranslationException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private <T> T firstSuccess(CompletableFuture<T> primaryFuture, CompletableFuture<T> secondaryFuture)
+            throws TranslationException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primaryFuture.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(error);
+            }
+        });
+        secondaryFuture.whenComplete((value, error) -> {
+            if (error == null) {
+                if (result.complete(value)) {
+                    secondaryWinCount.incrementAndGet();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(error);
+            }
+        });
+        return await(result);
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws TranslationException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslationException(getName(), "Interrupted", "translation interrupted", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private TranslationException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof TranslationException) {
+            return (TranslationException) e.getCause();
+        }
+        return new TranslationException(getName(), null, String.valueOf(e.getCause()), e.getCause());
+    }
+
+    /**
+     * 对冲/切换请求的准入
+     */
+    @FunctionalInterface
+    public interface HedgeGate {
+
+        /**
+         * 不阻塞地尝试为一次额外的上游请求占用配额
+         * @param chars 请求的字符数
+         * @return 是否允许发送
+         */
+        boolean tryAcquire(long chars);
+    }
+}
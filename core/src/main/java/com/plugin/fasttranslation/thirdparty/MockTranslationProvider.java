@@ -0,0 +1,69 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import com.plugin.fasttranslation.detect.LanguageDetector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地替身，不访问网络。译文为 "[目标语言] 原文"，可模拟延迟，用于离线调试和基准测试。
+ */
+public class MockTranslationProvider implements TranslationProvider {
+
+    private final String name;
+    private final long latencyMillis;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public MockTranslationProvider() {
+        this("mock", 0);
+    }
+
+    /**
+     * @param name 提供方名称
+     * @param latencyMillis 每次请求模拟的延迟
+     */
+    public MockTranslationProvider(String name, long latencyMillis) {
+        this.name = name;
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String[] translateBatch(String[] textArr, String sourceLang, String targetLang) throws TranslationException {
+        simulateLatency();
+        String[] result = new String[textArr.length];
+        for (int i = 0; i < textArr.length; i++) {
+            result[i] = textArr[i].isEmpty() ? "" : "[" + targetLang + "] " + textArr[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String languageDetect(String text) throws TranslationException {
+        simulateLatency();
+        return LanguageDetector.detect(text).getLanguage();
+    }
+
+    /**
+     * @return 已收到的请求次数
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    private void simulateLatency() throws TranslationException {
+        requestCount.incrementAndGet();
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslationException(name, "Interrupted", "mock request interrupted", e);
+        }
+    }
+}
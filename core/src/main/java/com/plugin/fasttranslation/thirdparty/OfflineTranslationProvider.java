@@ -0,0 +1,48 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import com.plugin.fasttranslation.detect.LanguageDetector;
+import com.plugin.fasttranslation.offline.PhraseTable;
+
+/**
+ * 离线翻译提供方：使用随插件打包的短语表，不访问网络，用于无法连接翻译服务的环境
+ */
+public class OfflineTranslationProvider implements TranslationProvider {
+
+    public static final String NAME = "offline";
+
+    private final PhraseTable phraseTable;
+
+    public OfflineTranslationProvider(PhraseTable phraseTable) {
+        this.phraseTable = phraseTable;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @return 是否支持该翻译方向
+     */
+    public boolean supports(String sourceLang, String targetLang) {
+        return phraseTable.supports(sourceLang, targetLang);
+    }
+
+    @Override
+    public String[] translateBatch(String[] textArr, String sourceLang, String targetLang) throws TranslationException {
+        if (!supports(sourceLang, targetLang)) {
+            throw new TranslationException(NAME, "UnsupportedLanguagePair",
+                    "offline phrase table does not support " + sourceLang + " -> " + targetLang);
+        }
+        String[] result = new String[textArr.length];
+        for (int i = 0; i < textArr.length; i++) {
+            result[i] = phraseTable.translate(textArr[i], sourceLang, targetLang);
+        }
+        return result;
+    }
+
+    @Override
+    public String languageDetect(String text) {
+        return LanguageDetector.detect(text).getLanguage();
+    }
+}
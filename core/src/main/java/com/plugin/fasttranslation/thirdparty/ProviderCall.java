@@ -0,0 +1,9 @@
+package com.plugin.fasttranslation.thirdparty;
+
+/**
+ * 对某个提供方发起的一次调用
+ */
+@FunctionalInterface
+interface ProviderCall<T> {
+    T apply(TranslationProvider provider) throws TranslationException;
+}
@@ -0,0 +1,112 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import com.tencentcloudapi.common.Credential;
+import com.tencentcloudapi.common.exception.TencentCloudSDKException;
+import com.tencentcloudapi.common.profile.ClientProfile;
+import com.tencentcloudapi.common.profile.HttpProfile;
+import com.tencentcloudapi.tmt.v20180321.TmtClient;
+import com.tencentcloudapi.tmt.v20180321.models.LanguageDetectRequest;
+import com.tencentcloudapi.tmt.v20180321.models.LanguageDetectResponse;
+import com.tencentcloudapi.tmt.v20180321.models.TextTranslateBatchRequest;
+import com.tencentcloudapi.tmt.v20180321.models.TextTranslateBatchResponse;
+
+/**
+ * 腾讯机器翻译(TMT)，每个实例固定一个地域
+ */
+public class TencentTranslationProvider implements TranslationProvider {
+
+    /** 就近接入域名，由腾讯云按客户端位置选择地域 */
+    public static final String DEFAULT_ENDPOINT = "tmt.tencentcloudapi.com";
+
+    private final String region;
+    private final String termRepoId;
+    private final TmtClient client;
+
+    /**
+     * @param secretId 腾讯云 SecretId
+     * @param secretKey 腾讯云 SecretKey
+     * @param region 地域，例如 ap-beijing
+     * @param endpoint 接入域名，为 null 时使用该地域的域名
+     * @param termRepoId 术语库ID，为 null 时不使用术语库
+     * @param transport 传输层配置
+     */
+    public TencentTranslationProvider(String secretId, String secretKey, String region, String endpoint,
+                                      String termRepoId, TransportConfig transport) {
+        this.region = region;
+        this.termRepoId = termRepoId;
+        // 实例化一个认证对象，入参需要传入腾讯云账户 SecretId 和 SecretKey，此处还需注意密钥对的保密
+        // 代码泄露可能会导致 SecretId 和 SecretKey 泄露，并威胁账号下所有资源的安全性。以下代码示例仅供参考，建议采用更安全的方式来使用密钥，请参见：https://cloud.tencent.com/document/product/1278/85305
+        // 密钥可前往官网控制台 https://console.cloud.tencent.com/cam/capi 进行获取
+        Credential cred = new Credential(secretId, secretKey);
+        // 实例化一个http选项，可选的，没有特殊需求可以跳过
+        HttpProfile httpProfile = new HttpProfile();
+        httpProfile.setEndpoint(endpoint != null ? endpoint : "tmt." + region + ".tencentcloudapi.com");
+        httpProfile.setProtocol(transport.getProtocol());
+        httpProfile.setConnTimeout(transport.getConnectTimeoutSeconds());
+        httpProfile.setReadTimeout(transport.getReadTimeoutSeconds());
+        httpProfile.setWriteTimeout(transport.getReadTimeoutSeconds());
+        // 实例化一个client选项，可选的，没有特殊需求可以跳过
+        ClientProfile clientProfile = new ClientProfile();
+        clientProfile.setHttpProfile(httpProfile);
+        // 实例化要请求产品的client对象,clientProfile是可选的
+        client = new TmtClient(cred, region, clientProfile);
+    }
+
+    /**
+     * 使用指定的 client，用于基准测试中替换为本地替身
+     */
+    TencentTranslationProvider(String region, String termRepoId, TmtClient client) {
+        this.region = region;
+        this.termRepoId = termRepoId;
+        this.client = client;
+    }
+
+    @Override
+    public String getName() {
+        return "tencent-" + region;
+    }
+
+    @Override
+    public String[] translateBatch(String[] textArr, String sourceLang, String targetLang) throws TranslationException {
+        try {
+            // 实例化一个请求对象,每个接口都会对应一个request对象
+            TextTranslateBatchRequest req = new TextTranslateBatchRequest();
+            req.setSource(sourceLang);
+            req.setTarget(targetLang);
+            req.setProjectId(0L);
+            req.setSourceTextList(textArr);
+            if (termRepoId != null) {
+                req.setTermRepoIDList(new String[]{termRepoId});
+            }
+            // 返回的resp是一个TextTranslateBatchResponse的实例，与请求对象对应
+            TextTranslateBatchResponse resp = client.TextTranslateBatch(req);
+            return resp.getTargetTextList();
+        } catch (TencentCloudSDKException e) {
+            throw toTranslationException(e);
+        }
+    }
+
+    /**
+     * 把 SDK 异常转换为统一的异常，区分限流和可重试的错误。
+     * 网络异常在 SDK 中没有错误码，同样视为可重试。
+     */
+    private TranslationException toTranslationException(TencentCloudSDKException e) {
+        String code = e.getErrorCode();
+        boolean throttled = code != null && (code.startsWith("RequestLimitExceeded") || code.startsWith("LimitExceeded"));
+        boolean retryable = throttled || code == null || code.isEmpty() || code.startsWith("InternalError");
+        return new TranslationException(getName(), code, e.getMessage(), e, throttled, retryable);
+    }
+
+    @Override
+    public String languageDetect(String text) throws TranslationException {
+        try {
+            LanguageDetectRequest req = new LanguageDetectRequest();
+            req.setText(text);
+            req.setProjectId(0L);
+            LanguageDetectResponse resp = client.LanguageDetect(req);
+            return resp.getLang();
+        } catch (TencentCloudSDKException e) {
+            throw toTranslationException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import com.plugin.fasttranslation.limit.AdaptiveConcurrencyLimiter;
+import com.plugin.fasttranslation.limit.PriorityScheduler;
+import com.plugin.fasttranslation.limit.RetryPolicy;
+import com.plugin.fasttranslation.limit.TokenBucketRateLimiter;
+import com.plugin.fasttranslation.limit.TranslationPriority;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端限流包装：每次实际请求先按优先级排队，再经过令牌桶和自适应并发控制，
+ * 被限流或遇到临时错误时按指数退避重试，请求排队等待而不是直接失败。
+ * 未指定优先级的请求按交互请求处理。
+ */
+public class ThrottledTranslationProvider implements TranslationProvider {
+
+    /** 视口和后台请求同时排队时按 3:1 放行 */
+    private static final int VIEWPORT_WEIGHT = 3;
+    private static final int BACKGROUND_WEIGHT = 1;
+
+    private final TranslationProvider delegate;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RetryPolicy retryPolicy;
+    private final PriorityScheduler scheduler = new PriorityScheduler(VIEWPORT_WEIGHT, BACKGROUND_WEIGHT);
+
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong throttleCount = new AtomicLong();
+
+    public ThrottledTranslationProvider(TranslationProvider delegate, TokenBucketRateLimiter rateLimiter,
+                                        AdaptiveConcurrencyLimiter concurrencyLimiter, RetryPolicy retryPolicy) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public String[] translateBatch(String[] textArr, String sourceLang, String targetLang) throws TranslationException {
+        return translateBatch(textArr, sourceLang, targetLang, TranslationPriority.INTERACTIVE);
+    }
+
+    /**
+     * 按优先级排队的批量翻译
+     */
+    public String[] translateBatch(String[] textArr, String sourceLang, String targetLang,
+                                   TranslationPriority priority) throws TranslationException {
+        return call(priority, provider -> provider.translateBatch(textArr, sourceLang, targetLang));
+    }
+
+    @Override
+    public String languageDetect(String text) throws TranslationException {
+        return languageDetect(text, TranslationPriority.INTERACTIVE);
+    }
+
+    /**
+     * 按优先级排队的语种识别
+     */
+    public String languageDetect(String text, TranslationPriority priority) throws TranslationException {
+        return call(priority, provider -> provider.languageDetect(text));
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getThrottleCount() {
+        return throttleCount.get();
+    }
+
+    /**
+     * 低优先级的请求(例如预取)据此判断是否发送，避免占用交互请求的配额
+     * @param minPermits 令牌桶中至少剩余的令牌数
+     * @return 没有在途请求且剩余令牌足够时返回 true
+     */
+    public boolean hasSpareCapacity(double minPermits) {
+        return scheduler.isIdle() && concurrencyLimiter.getInFlight() == 0
+                && rateLimiter.getAvailablePermits() >= minPermits;
+    }
+
+    /**
+     * 为对冲等额外的上游请求立即获取一个令牌，不排队等待
+     * @return 令牌不足时返回 false
+     */
+    public boolean tryAcquirePermit() {
+        return rateLimiter.tryAcquire();
+    }
+
+    /**
+     * @return 被包装的提供方
+     */
+    public TranslationProvider getDelegate() {
+        return delegate;
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public PriorityScheduler getScheduler() {
+        return scheduler;
+    }
+
+    private <T> T call(TranslationPriority priority, ProviderCall<T> call) throws TranslationException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                // 只有轮到的请求进入令牌桶和并发控制等待，后到的高优先级请求不会排在已预占令牌的低优先级请求之后
+                scheduler.acquire(priority);
+                try {
+                    rateLimiter.acquire();
+                    concurrencyLimiter.acquire();
+                } finally {
+                    scheduler.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TranslationException(getName(), "Interrupted", "translation interrupted", e);
+            }
+            boolean throttled = false;
+            try {
+                return call.apply(delegate);
+            } catch (TranslationException e) {
+                throttled = e.isThrottled();
+                if (throttled) {
+                    throttleCount.incrementAndGet();
+                }
+                if (!e.isRetryable() || attempt + 1 >= retryPolicy.getMaxAttempts()) {
+                    throw e;
+                }
+                retryCount.incrementAndGet();
+            } finally {
+                concurrencyLimiter.release(throttled);
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(retryPolicy.backoffMillis(attempt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TranslationException(getName(), "Interrupted", "translation interrupted", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.plugin.fasttranslation.thirdparty;
+
+/**
+ * 翻译请求失败
+ */
+public class TranslationException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String provider;
+    private final String errorCode;
+    private final boolean throttled;
+    private final boolean retryable;
+
+    /**
+     * @param provider 提供方名称
+     * @param errorCode 错误码
+     * @param message 错误信息
+     * @param cause 原始异常
+     * @param throttled 是否被服务端限流
+     * @param retryable 是否可以重试(限流、网络抖动、服务端内部错误)
+     */
+    public TranslationException(String provider, String errorCode, String message, Throwable cause,
+                                boolean throttled, boolean retryable) {
+        super(message, cause);
+        this.provider = provider;
+        this.errorCode = errorCode;
+        this.throttled = throttled;
+        this.retryable = retryable;
+    }
+
+    public TranslationException(String provider, String errorCode, String message, Throwable cause) {
+        this(provider, errorCode, message, cause, false, false);
+    }
+
+    public TranslationException(String provider, String errorCode, String message) {
+        this(provider, errorCode, message, null);
+    }
+
+    /**
+     * @return 失败的提供方名称
+     */
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * @return 提供方返回的错误码，可能为 null
+     */
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + provider + "] " + errorCode + ": " + getMessage();
+    }
+}
@@ -0,0 +1,30 @@
+package com.plugin.fasttranslation.thirdparty;
+
+/**
+ * 翻译服务提供方。实现类需要是线程安全的，路由器会并发调用同一个实例。
+ */
+public interface TranslationProvider {
+
+    /**
+     * @return 提供方名称，用于日志和统计
+     */
+    String getName();
+
+    /**
+     * 文本批量翻译
+     * @param textArr 待翻译的文本，每个元素单独翻译
+     * @param sourceLang 源语言，auto 表示自动识别
+     * @param targetLang 目标语言
+     * @return 与 textArr 一一对应的译文
+     * @throws TranslationException 请求失败
+     */
+    String[] translateBatch(String[] textArr, String sourceLang, String targetLang) throws TranslationException;
+
+    /**
+     * 语种识别
+     * @param text 待识别文本
+     * @return 语种代码
+     * @throws TranslationException 请求失败
+     */
+    String languageDetect(String text) throws TranslationException;
+}
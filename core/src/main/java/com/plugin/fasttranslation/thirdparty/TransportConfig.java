@@ -0,0 +1,37 @@
+package com.plugin.fasttranslation.thirdparty;
+
+/**
+ * 传输层配置。SDK 内部的 OkHttp 客户端在进程内共享连接池，长连接会被复用，
+ * 这里只需要配置协议和超时，并保证同一地域始终复用同一个客户端实例。
+ */
+public class TransportConfig {
+
+    public static final TransportConfig DEFAULT = new TransportConfig("https://", 5, 10);
+
+    private final String protocol;
+    private final int connectTimeoutSeconds;
+    private final int readTimeoutSeconds;
+
+    /**
+     * @param protocol 协议，https:// 或本地替身使用的 http://
+     * @param connectTimeoutSeconds 建连超时(秒)
+     * @param readTimeoutSeconds 读超时(秒)，同时用作写超时
+     */
+    public TransportConfig(String protocol, int connectTimeoutSeconds, int readTimeoutSeconds) {
+        this.protocol = protocol;
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+        this.readTimeoutSeconds = readTimeoutSeconds;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public int getConnectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    public int getReadTimeoutSeconds() {
+        return readTimeoutSeconds;
+    }
+}
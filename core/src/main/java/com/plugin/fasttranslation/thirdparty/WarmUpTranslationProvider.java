@@ -0,0 +1,133 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 连接预热：插件加载时发一次轻量请求完成 DNS/TCP/TLS 握手；
+ * 最近有真实翻译时，空闲超过阈值就再发一次，避免连接池中的长连接被回收。
+ * 超过保温窗口没有真实翻译后停止预热，不会在 IDE 闲置时持续消耗配额。
+ * 预热请求默认直接发给被预热的提供方；插件中通过 {@link #setPinger} 改为经过限流、优先级排队和每日字符预算发送，
+ * 经过本实例回到被预热的提供方时不计为真实翻译。
+ */
+public class WarmUpTranslationProvider implements TranslationProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUpTranslationProvider.class);
+    private static final String PING_TEXT = "ping";
+
+    private final TranslationProvider delegate;
+    private final long idleMillis;
+    private final long keepWarmMillis;
+    private final ScheduledExecutorService scheduler;
+    /** 发送预热请求的线程，它发出的请求不计为真实翻译 */
+    private volatile Thread pingThread;
+    private volatile Pinger pinger;
+
+    /** 最近一次真实翻译请求的时间 */
+    private final AtomicLong lastUseMillis = new AtomicLong();
+    /** 最近一次任意请求(含预热)的时间 */
+    private final AtomicLong lastTrafficMillis = new AtomicLong();
+    private final AtomicLong pingCount = new AtomicLong();
+
+    /**
+     * @param delegate 被预热的提供方
+     * @param idleMillis 连接空闲超过该时间后预热，应小于连接池的空闲回收时间(OkHttp 默认 5 分钟)
+     * @param keepWarmMillis 最后一次真实翻译后保持预热的时长
+     */
+    public WarmUpTranslationProvider(TranslationProvider delegate, long idleMillis, long keepWarmMillis) {
+        this.delegate = delegate;
+        this.idleMillis = idleMillis;
+        this.keepWarmMillis = keepWarmMillis;
+        this.pinger = delegate::languageDetect;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "FastTranslation-warm-up");
+            thread.setDaemon(true);
+            pingThread = thread;
+            return thread;
+        });
+        long checkMillis = Math.max(1000, idleMillis / 4);
+        scheduler.scheduleWithFixedDelay(this::keepWarm, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public String[] translateBatch(String[] textArr, String sourceLang, String targetLang) throws TranslationException {
+        markUsed();
+        return delegate.translateBatch(textArr, sourceLang, targetLang);
+    }
+
+    @Override
+    public String languageDetect(String text) throws TranslationException {
+        markUsed();
+        return delegate.languageDetect(text);
+    }
+
+    /**
+     * 在后台线程发起一次预热请求，插件加载时调用
+     */
+    public void warmUpAsync() {
+        // 插件加载也视为一次使用，开启保温窗口
+        lastUseMillis.compareAndSet(0, System.currentTimeMillis());
+        scheduler.execute(this::ping);
+    }
+
+    /**
+     * 替换发送预热请求的方式，例如经过限流和字符预算
+     * @param pinger 预热请求，最终应调用本实例的 languageDetect
+     */
+    public void setPinger(Pinger pinger) {
+        this.pinger = pinger;
+    }
+
+    /**
+     * @return 被包装的提供方
+     */
+    public TranslationProvider getDelegate() {
+        return delegate;
+    }
+
+    public long getPingCount() {
+        return pingCount.get();
+    }
+
+    private void markUsed() {
+        long now = System.currentTimeMillis();
+        if (Thread.currentThread() != pingThread) {
+            lastUseMillis.set(now);
+        }
+        lastTrafficMillis.set(now);
+    }
+
+    private void keepWarm() {
+        long now = System.currentTimeMillis();
+        if (now - lastUseMillis.get() < keepWarmMillis && now - lastTrafficMillis.get() >= idleMillis) {
+            ping();
+        }
+    }
+
+    private void ping() {
+        lastTrafficMillis.set(System.currentTimeMillis());
+        pingCount.incrementAndGet();
+        try {
+            pinger.ping(PING_TEXT);
+        } catch (TranslationException | RuntimeException e) {
+            LOGGER.warn("翻译服务预热失败,provider:{}, msg:{}", getName(), e.toString());
+        }
+    }
+
+    /**
+     * 发送一次轻量的预热请求
+     */
+    @FunctionalInterface
+    public interface Pinger {
+        void ping(String text) throws TranslationException;
+    }
+}
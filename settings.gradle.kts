@@ -5,4 +5,7 @@ pluginManagement {
     }
 }
 
-rootProject.name = "FastTranslation"
\ No newline at end of file
+rootProject.name = "FastTranslation"
+// core: 不依赖 IntelliJ 平台的翻译核心，插件和命令行共用
+// cli: 在 IDE 之外批量翻译源码树中的注释，例如在 CI 中预先生成译文
+include("core", "cli")
@@ -0,0 +1,71 @@
+package com.plugin.fasttranslation.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 翻译记忆：打开映射文件，以及在不同规模的文件中查询命中和未命中的行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TranslationMemoryBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int entries;
+
+    private Path file;
+    private TranslationMemory memory;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<TranslationMemory.Entry> list = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            list.add(new TranslationMemory.Entry(source(i), "en", "zh", "返回第 " + i + " 个字段的值", i));
+        }
+        file = Files.createTempFile("translation-memory", ".bin");
+        TranslationMemory.write(file, list);
+        memory = TranslationMemory.open(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public TranslationMemory open() throws IOException {
+        return TranslationMemory.open(file);
+    }
+
+    @Benchmark
+    public String getHit() {
+        next = (next + 7919) % entries;
+        return memory.get(source(next), "en", "zh");
+    }
+
+    @Benchmark
+    public String getMiss() {
+        next = (next + 7919) % entries;
+        return memory.get(source(next), "en", "ja");
+    }
+
+    private static String source(int i) {
+        return "Returns the value of field number " + i + ".";
+    }
+}
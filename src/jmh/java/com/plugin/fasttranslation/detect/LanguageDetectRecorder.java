@@ -0,0 +1,58 @@
+package com.plugin.fasttranslation.detect;
+
+import com.plugin.fasttranslation.thirdparty.TencentTranslationProvider;
+import com.plugin.fasttranslation.thirdparty.TranslationException;
+import com.plugin.fasttranslation.thirdparty.TranslationProvider;
+import com.plugin.fasttranslation.thirdparty.TransportConfig;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用腾讯 LanguageDetect 识别 {@link LanguageDetectorBenchmark} 语料中的每一条文本，把结果写入
+ * language-detect-remote.tsv，供基准对比本地识别与远程识别的准确率。
+ * 凭证与命令行工具相同，取自环境变量 TENCENTCLOUD_SECRET_ID/TENCENTCLOUD_SECRET_KEY(/TENCENTCLOUD_REGION)。
+ * 运行：./gradlew recordLanguageDetect
+ */
+public final class LanguageDetectRecorder {
+
+    /** 请求间隔，远低于 LanguageDetect 的默认频率限制 */
+    private static final long REQUEST_INTERVAL_MILLIS = 250;
+
+    private LanguageDetectRecorder() {
+    }
+
+    /**
+     * @param args 输出文件，默认写入 jmh 资源目录中的 language-detect-remote.tsv
+     */
+    public static void main(String[] args) throws IOException, TranslationException, InterruptedException {
+        String secretId = System.getenv("TENCENTCLOUD_SECRET_ID");
+        String secretKey = System.getenv("TENCENTCLOUD_SECRET_KEY");
+        if (secretId == null || secretKey == null) {
+            throw new IllegalArgumentException("recording remote labels requires TENCENTCLOUD_SECRET_ID and TENCENTCLOUD_SECRET_KEY");
+        }
+        String region = System.getenv("TENCENTCLOUD_REGION");
+        TranslationProvider provider = new TencentTranslationProvider(secretId, secretKey,
+                region == null || region.isEmpty() ? "ap-beijing" : region,
+                TencentTranslationProvider.DEFAULT_ENDPOINT, null, TransportConfig.DEFAULT);
+        Path out = Paths.get(args.length > 0 ? args[0]
+                : "src/jmh/resources" + LanguageDetectorBenchmark.REMOTE_LABELS);
+
+        List<String[]> corpus = LanguageDetectorBenchmark.readTsv(LanguageDetectorBenchmark.CORPUS);
+        try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            writer.write("# 腾讯 LanguageDetect 对 language-detect.tsv 的识别结果，由 LanguageDetectRecorder 录制，"
+                    + "格式：远程语种<TAB>文本\n");
+            for (String[] row : corpus) {
+                String lang = provider.languageDetect(row[1]);
+                writer.write(lang + "\t" + row[1] + "\n");
+                TimeUnit.MILLISECONDS.sleep(REQUEST_INTERVAL_MILLIS);
+            }
+        }
+        System.out.printf("Recorded %d remote labels to %s%n", corpus.size(), out);
+    }
+}
@@ -0,0 +1,132 @@
+package com.plugin.fasttranslation.detect;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 本地语种识别的耗时与准确率。
+ * 准确率按"是否英语"统计，这正是 RequestTencent 选择翻译方向所需的判断；
+ * 置信度不足的样本会回退到远程识别，单独统计回退比例。
+ * 存在 {@link LanguageDetectRecorder} 录制的远程识别结果时，同时统计远程识别的准确率、本地与远程的一致率，
+ * 以及"本地优先、置信度不足时回退远程"与"全部使用远程"的准确率对比。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LanguageDetectorBenchmark {
+
+    static final String CORPUS = "/corpus/language-detect.tsv";
+    static final String REMOTE_LABELS = "/corpus/language-detect-remote.tsv";
+
+    private final List<String> expected = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        for (String[] row : readTsv(CORPUS)) {
+            expected.add(row[0]);
+            texts.add(row[1]);
+        }
+        Map<String, String> remote = new HashMap<>();
+        for (String[] row : readTsv(REMOTE_LABELS)) {
+            remote.put(row[1], row[0]);
+        }
+
+        int correct = 0;
+        int wrong = 0;
+        int fallback = 0;
+        int remoteSamples = 0;
+        int remoteCorrect = 0;
+        int agree = 0;
+        int confidentWithRemote = 0;
+        int combinedCorrect = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            LanguageDetector.Detection detection = LanguageDetector.detect(texts.get(i));
+            boolean english = "en".equals(expected.get(i));
+            if (!detection.isConfident()) {
+                fallback++;
+            } else if ("en".equals(detection.getLanguage()) == english) {
+                correct++;
+            } else {
+                wrong++;
+            }
+            String remoteLang = remote.get(texts.get(i));
+            if (remoteLang == null) {
+                continue;
+            }
+            remoteSamples++;
+            boolean remoteEnglish = "en".equals(remoteLang);
+            if (remoteEnglish == english) {
+                remoteCorrect++;
+            }
+            boolean decision = remoteEnglish;
+            if (detection.isConfident()) {
+                confidentWithRemote++;
+                decision = "en".equals(detection.getLanguage());
+                if (decision == remoteEnglish) {
+                    agree++;
+                }
+            }
+            if (decision == english) {
+                combinedCorrect++;
+            }
+        }
+        System.out.printf("%nLanguageDetector: %d samples, %d correct, %d wrong, %d fallback to remote%n",
+                texts.size(), correct, wrong, fallback);
+        if (remoteSamples == 0) {
+            System.out.printf("No recorded remote LanguageDetect labels in %s, run ./gradlew recordLanguageDetect%n",
+                    REMOTE_LABELS);
+            return;
+        }
+        System.out.printf("Remote LanguageDetect: %d samples, %d correct; local agrees with remote on %d of %d confident samples%n",
+                remoteSamples, remoteCorrect, agree, confidentWithRemote);
+        System.out.printf("Local with remote fallback: %d correct, remote only: %d correct (%s)%n",
+                combinedCorrect, remoteCorrect, combinedCorrect >= remoteCorrect ? "at least as accurate" : "LESS accurate");
+    }
+
+    @Benchmark
+    public void detectCorpus(Blackhole blackhole) {
+        for (String text : texts) {
+            blackhole.consume(LanguageDetector.detect(text));
+        }
+    }
+
+    /**
+     * 读取 "语种<TAB>文本" 格式的语料，跳过空行和 # 开头的注释
+     * @param resource 类路径资源，不存在时返回空列表
+     */
+    static List<String[]> readTsv(String resource) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        InputStream in = LanguageDetectorBenchmark.class.getResourceAsStream(resource);
+        if (in == null) {
+            return rows;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                rows.add(new String[]{line.substring(0, tab), line.substring(tab + 1)});
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,63 @@
+package com.plugin.fasttranslation.glossary;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 术语保护：逐个术语 indexOf 扫描 与 {@link Glossary} 自动机一次扫描对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GlossaryBenchmark {
+
+    @Param({"10", "1000"})
+    public int terms;
+
+    private String[] termArr;
+    private Glossary glossary;
+    private String text;
+
+    @Setup
+    public void setup() {
+        termArr = new String[terms];
+        StringBuilder definition = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            termArr[i] = "Product" + i;
+            definition.append(termArr[i]).append('\n');
+        }
+        glossary = Glossary.compile(definition.toString(), true);
+        StringBuilder sb = new StringBuilder();
+        int sentence = 0;
+        while (sb.length() < 2000) {
+            sb.append("Call getValue() on ").append(termArr[sentence % terms])
+                    .append(" before the cache is closed. ");
+            sentence++;
+        }
+        text = sb.toString();
+    }
+
+    @Benchmark
+    public String legacyIndexOf() {
+        String result = text;
+        for (int i = terms - 1; i >= 0; i--) {
+            if (result.contains(termArr[i])) {
+                result = result.replace(termArr[i], "{" + i + "}");
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String automaton() {
+        Glossary.Protected protectedText = glossary.protect(text);
+        return protectedText.restore(protectedText.getText());
+    }
+}
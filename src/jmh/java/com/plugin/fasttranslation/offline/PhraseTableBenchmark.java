@@ -0,0 +1,64 @@
+package com.plugin.fasttranslation.offline;
+
+import com.plugin.fasttranslation.text.JavadocCorpusBenchmark;
+import com.plugin.fasttranslation.text.JavadocFormatter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 离线短语表：加载打包的短语表，以及在 corpus/javadoc-comments.txt 语料上翻译(每次调用处理整份语料)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PhraseTableBenchmark {
+
+    private PhraseTable phraseTable;
+    private String[] lines;
+
+    @Setup
+    public void setup() throws IOException {
+        phraseTable = load();
+        List<String> lineList = new ArrayList<>();
+        for (String comment : JavadocCorpusBenchmark.loadCorpus("/corpus/javadoc-comments.txt")) {
+            for (String line : JavadocFormatter.format(comment).split("\n")) {
+                if (!line.trim().isEmpty()) {
+                    lineList.add(line);
+                }
+            }
+        }
+        lines = lineList.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public PhraseTable load() throws IOException {
+        try (InputStream in = PhraseTable.class.getResourceAsStream(PhraseTable.DEFAULT_RESOURCE)) {
+            return PhraseTable.load(in);
+        }
+    }
+
+    @Benchmark
+    public void translateToChinese(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(phraseTable.translate(line, "en", "zh"));
+        }
+    }
+
+    @Benchmark
+    public void translateToGerman(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(phraseTable.translate(line, "en", "de"));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.plugin.fasttranslation.text;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 在 corpus/javadoc-comments.txt 语料上测量 CommandPAction.parseAndFormat(即 {@link JavadocFormatter#format})
+ * 以及描述和标签内容的格式化，每次调用处理整份语料。
+ * 开始测量前逐条与旧实现(QDox)的输出比较，语料就是格式化结果的回归用例。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JavadocCorpusBenchmark {
+
+    private String[] comments;
+    private String[] descriptions;
+    private String[] tagContents;
+
+    @Setup
+    public void setup() throws IOException {
+        comments = loadCorpus("/corpus/javadoc-comments.txt");
+        List<String> descriptionList = new ArrayList<>();
+        List<String> tagList = new ArrayList<>();
+        for (String comment : comments) {
+            JavadocFormatterBenchmark.verifySameAsLegacy(comment);
+            // 粗略拆分：第一个 @ 标签之前为描述，之后每个标签的内容单独格式化
+            int tagStart = comment.indexOf("\n * @");
+            descriptionList.add(tagStart < 0 ? comment : comment.substring(0, tagStart));
+            if (tagStart >= 0) {
+                for (String tag : comment.substring(tagStart).split("\n \\* @")) {
+                    if (!tag.trim().isEmpty()) {
+                        tagList.add(tag);
+                    }
+                }
+            }
+        }
+        descriptions = descriptionList.toArray(new String[0]);
+        tagContents = tagList.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void format(Blackhole blackhole) {
+        for (String comment : comments) {
+            blackhole.consume(JavadocFormatter.format(comment));
+        }
+    }
+
+    @Benchmark
+    public void formatDescription(Blackhole blackhole) {
+        for (String description : descriptions) {
+            blackhole.consume(JavadocFormatter.formatDescription(description));
+        }
+    }
+
+    @Benchmark
+    public void formatTagContent(Blackhole blackhole) {
+        for (String tag : tagContents) {
+            blackhole.consume(JavadocFormatter.formatTagContent(tag));
+        }
+    }
+
+    /**
+     * 读取以 %% 分隔的语料，# 开头的行为注释
+     */
+    public static String[] loadCorpus(String resource) throws IOException {
+        List<String> entries = new ArrayList<>();
+        StringBuilder entry = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                JavadocCorpusBenchmark.class.getResourceAsStream(resource), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    continue;
+                }
+                if (line.equals("%%")) {
+                    entries.add(entry.toString().trim());
+                    entry.setLength(0);
+                } else {
+                    entry.append(line).append('\n');
+                }
+            }
+        }
+        if (entry.length() > 0) {
+            entries.add(entry.toString().trim());
+        }
+        return entries.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,190 @@
+package com.plugin.fasttranslation.text;
+
+import com.thoughtworks.qdox.JavaProjectBuilder;
+import com.thoughtworks.qdox.model.DocletTag;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaMethod;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Javadoc 格式化：旧实现(模拟类 + QDox + 逐条 replaceAll) 与 {@link JavadocFormatter} 对比。
+ * 开始测量前先确认两者对样例的输出一致，不一致时基准直接失败。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JavadocFormatterBenchmark {
+
+    private static final String SMALL = "/**\n"
+            + "     * Returns the number of elements in this list.\n"
+            + "     *\n"
+            + "     * @return the number of elements in this list\n"
+            + "     */";
+
+    private static final String LARGE = "/**\n"
+            + "     * Returns the value to which the specified key is mapped,\n"
+            + "     * or {@code null} if this map contains no mapping for the key.\n"
+            + "     *\n"
+            + "     * <p>More formally, if this map contains a mapping from a key\n"
+            + "     * {@code k} to a value {@code v} such that\n"
+            + "     * {@code Objects.equals(key, k)},\n"
+            + "     * then this method returns {@code v}; otherwise\n"
+            + "     * it returns {@code null}.  (There can be at most one such mapping.)\n"
+            + "     *\n"
+            + "     * <p>If this map permits null values, then a return value of\n"
+            + "     * {@code null} does not <i>necessarily</i> indicate that the map\n"
+            + "     * contains no mapping for the key; it's also possible that the map\n"
+            + "     * explicitly maps the key to {@code null}.  The {@link #containsKey\n"
+            + "     * containsKey} operation may be used to distinguish these two cases.\n"
+            + "     *\n"
+            + "     * <pre>\n"
+            + "     *   V v = map.get(key);\n"
+            + "     * </pre>\n"
+            + "     * See <a href=\"https://docs.oracle.com/javase/tutorial/collections/\">the\n"
+            + "     * Java&trade; Tutorial</a> for details.\n"
+            + "     *\n"
+            + "     * @param key the key whose associated value is to be returned\n"
+            + "     * @param defaultValue the default mapping of the key, returned when\n"
+            + "     *        the map contains no mapping for <tt>key</tt>\n"
+            + "     * @return the value to which the specified key is mapped, or\n"
+            + "     *         {@code null} if this map contains no mapping for the key\n"
+            + "     * @throws java.lang.ClassCastException if the key is of an inappropriate type for\n"
+            + "     *         this map\n"
+            + "     * @throws java.lang.NullPointerException if the specified key is null and this map\n"
+            + "     *         does not permit null keys\n"
+            + "     * @since 1.8\n"
+            + "     */";
+
+    @Param({"small", "large"})
+    public String size;
+
+    private String comment;
+
+    @Setup
+    public void setup() {
+        comment = "small".equals(size) ? SMALL : LARGE;
+        verifySameAsLegacy(comment);
+    }
+
+    /**
+     * @param comment 原始注释
+     * @throws IllegalStateException 新旧实现的输出不一致
+     */
+    static void verifySameAsLegacy(String comment) {
+        String expected = LegacyFormatter.parseAndFormat(comment);
+        String actual = JavadocFormatter.format(comment);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("JavadocFormatter output differs from the legacy formatter\n"
+                    + "comment:\n" + comment + "\nexpected:\n" + expected + "\nactual:\n" + actual);
+        }
+    }
+
+    @Benchmark
+    public String legacyQdox() {
+        return LegacyFormatter.parseAndFormat(comment);
+    }
+
+    @Benchmark
+    public String javadocFormatter() {
+        return JavadocFormatter.format(comment);
+    }
+
+    /**
+     * 改造前 CommandPAction.parseAndFormat 的实现，仅作为对比基线
+     */
+    static final class LegacyFormatter {
+
+        static String parseAndFormat(String rawComment) {
+            String processedComment = rawComment.trim()
+                    .replaceAll("^/\\*\\*\\s*", "")
+                    .replaceAll("\\s*\\*/$", "");
+            String mockClass = String.format(
+                    "public class Mock {\n    /**\n%s\n    */\n    public void mockMethod() {}\n}", processedComment);
+            JavaProjectBuilder builder = new JavaProjectBuilder();
+            builder.addSource(new StringReader(mockClass));
+            JavaClass javaClass = builder.getClasses().iterator().next();
+            JavaMethod method = javaClass.getMethods().get(0);
+
+            StringBuilder formatted = new StringBuilder();
+            String mainDescription = formatDescription(method.getComment());
+            if (!mainDescription.isEmpty()) {
+                formatted.append(mainDescription).append("\n");
+            }
+            List<DocletTag> paramTags = method.getTagsByName("param");
+            if (!paramTags.isEmpty()) {
+                formatted.append("Params:\n");
+                for (DocletTag param : paramTags) {
+                    List<String> parameters = param.getParameters();
+                    if (!parameters.isEmpty()) {
+                        formatted.append("     ").append(parameters.get(0)).append(" – ")
+                                .append(formatTagContent(param.getValue().replaceFirst("^" + parameters.get(0) + "\\s+", "")))
+                                .append("\n");
+                    }
+                }
+            }
+            DocletTag returnTag = method.getTagByName("return");
+            if (returnTag != null) {
+                formatted.append("Returns:\n").append("     ").append(formatTagContent(returnTag.getValue())).append("\n");
+            }
+            List<DocletTag> throwsTags = method.getTagsByName("throws");
+            if (!throwsTags.isEmpty()) {
+                formatted.append("Throws:\n");
+                for (DocletTag throwsTag : throwsTags) {
+                    List<String> parameters = throwsTag.getParameters();
+                    if (!parameters.isEmpty()) {
+                        String className = parameters.get(0);
+                        className = className.substring(className.lastIndexOf('.') + 1);
+                        formatted.append("     ").append(className).append(" – ")
+                                .append(formatTagContent(throwsTag.getValue().replaceFirst("^" + parameters.get(0) + "\\s+", "")))
+                                .append("\n");
+                    }
+                }
+            }
+            DocletTag sinceTag = method.getTagByName("since");
+            if (sinceTag != null) {
+                formatted.append("Since:\n").append("     ").append(formatTagContent(sinceTag.getValue())).append("\n");
+            }
+            return formatted.toString().trim();
+        }
+
+        static String formatDescription(String text) {
+            if (text == null) return "";
+            text = text.replaceAll("(?m)^\\s*\\*\\s*", "");
+            text = text.replaceAll("<tt>|</tt>", "");
+            text = text.replaceAll("<pre>\\s*", "\n     ");
+            text = text.replaceAll("</pre>", "");
+            text = text.replaceAll("</?p>", "\n");
+            text = text.replaceAll("<cite>|</cite>", "");
+            text = text.replaceAll("<a\\s+href=\"[^\"]*\">([^<]*)</a>", "$1");
+            text = text.replaceAll("&trade;", "™");
+            String[] lines = text.split("\n");
+            StringBuilder result = new StringBuilder();
+            for (String line : lines) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (result.length() > 0) {
+                    result.append(" ");
+                }
+                result.append(line);
+            }
+            return result.toString().trim();
+        }
+
+        static String formatTagContent(String text) {
+            if (text == null) return "";
+            text = text.replaceAll("<[^>]+>", "");
+            text = text.replaceAll("&trade;", "™");
+            return text.replaceAll("\\s+", " ").trim();
+        }
+    }
+}
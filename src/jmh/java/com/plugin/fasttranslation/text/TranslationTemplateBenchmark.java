@@ -0,0 +1,71 @@
+package com.plugin.fasttranslation.text;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 译文拼装：旧实现(每行一次 replaceFirst) 与 {@link TranslationTemplate} 对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TranslationTemplateBenchmark {
+
+    @Param({"500", "5000"})
+    public int chars;
+
+    private String text;
+    private String[] translated;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        int line = 0;
+        while (sb.length() < chars) {
+            sb.append(line % 4 == 0 ? "" : "     ").append("Returns the value mapped to key number ").append(line++).append('\n');
+        }
+        text = sb.toString();
+        String[] sources = TranslationTemplate.parse(text).getSources();
+        translated = new String[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            translated[i] = "返回与键 " + i + " 对应的值";
+        }
+    }
+
+    @Benchmark
+    public String legacyReplaceFirst() {
+        StringBuilder result = new StringBuilder();
+        String[] textArr = text.split("\n");
+        String[] paramArr = new String[textArr.length];
+        for (int i = 0; i < textArr.length; i++) {
+            paramArr[i] = textArr[i].trim();
+            for (char c : textArr[i].toCharArray()) {
+                if (c == ' ') {
+                    result.append(" ");
+                } else {
+                    break;
+                }
+            }
+            result.append("%s");
+        }
+        String retStr = result.toString();
+        for (int i = 0; i < translated.length; i++) {
+            retStr = retStr.replaceFirst("%s", translated[i] + "\n");
+        }
+        return retStr;
+    }
+
+    @Benchmark
+    public String template() {
+        TranslationTemplate template = TranslationTemplate.parse(text);
+        template.getSources();
+        return template.render(translated);
+    }
+}
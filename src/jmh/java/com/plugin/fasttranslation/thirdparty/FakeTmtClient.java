@@ -0,0 +1,39 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import com.tencentcloudapi.common.Credential;
+import com.tencentcloudapi.tmt.v20180321.TmtClient;
+import com.tencentcloudapi.tmt.v20180321.models.LanguageDetectRequest;
+import com.tencentcloudapi.tmt.v20180321.models.LanguageDetectResponse;
+import com.tencentcloudapi.tmt.v20180321.models.TextTranslateBatchRequest;
+import com.tencentcloudapi.tmt.v20180321.models.TextTranslateBatchResponse;
+
+/**
+ * 不访问网络的 TmtClient，译文为 "[目标语言] 原文"，只测量请求和响应对象的处理开销
+ */
+public class FakeTmtClient extends TmtClient {
+
+    public FakeTmtClient() {
+        super(new Credential("fake-id", "fake-key"), "ap-beijing");
+    }
+
+    @Override
+    public TextTranslateBatchResponse TextTranslateBatch(TextTranslateBatchRequest req) {
+        String[] sources = req.getSourceTextList();
+        String[] targets = new String[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            targets[i] = "[" + req.getTarget() + "] " + sources[i];
+        }
+        TextTranslateBatchResponse resp = new TextTranslateBatchResponse();
+        resp.setSource(req.getSource());
+        resp.setTarget(req.getTarget());
+        resp.setTargetTextList(targets);
+        return resp;
+    }
+
+    @Override
+    public LanguageDetectResponse LanguageDetect(LanguageDetectRequest req) {
+        LanguageDetectResponse resp = new LanguageDetectResponse();
+        resp.setLang("en");
+        return resp;
+    }
+}
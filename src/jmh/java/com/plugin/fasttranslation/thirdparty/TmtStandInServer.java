@@ -0,0 +1,117 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地的 TMT 替身服务(HTTP)：按 X-TC-Action 返回 TextTranslateBatch/LanguageDetect 的响应，译文为 "[目标语言] 原文"。
+ * 按客户端端口记录收到请求的连接数，用于确认 SDK 复用了长连接；
+ * 每个新连接的第一个请求额外等待 handshakeMillis，模拟真实环境中 DNS/TCP/TLS 握手的开销。
+ */
+public class TmtStandInServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long handshakeMillis;
+    private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * 在 127.0.0.1 的随机端口上启动
+     * @param handshakeMillis 新连接第一个请求的额外延迟
+     */
+    public TmtStandInServer(long handshakeMillis) throws IOException {
+        this.handshakeMillis = handshakeMillis;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(4, r -> {
+            Thread thread = new Thread(r, "tmt-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return 传给 TencentTranslationProvider 的接入域名，协议需配置为 http://
+     */
+    public String getEndpoint() {
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return 收到过请求的连接数
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * @return 已响应的请求数
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (connections.add(exchange.getRemoteAddress().getPort()) && handshakeMillis > 0) {
+                Thread.sleep(handshakeMillis);
+            }
+            JsonObject request;
+            try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                request = JsonParser.parseReader(reader).getAsJsonObject();
+            }
+            JsonObject response = new JsonObject();
+            if ("TextTranslateBatch".equals(exchange.getRequestHeaders().getFirst("X-TC-Action"))) {
+                String target = request.get("Target").getAsString();
+                JsonArray targets = new JsonArray();
+                for (JsonElement source : request.getAsJsonArray("SourceTextList")) {
+                    targets.add("[" + target + "] " + source.getAsString());
+                }
+                response.addProperty("Source", request.get("Source").getAsString());
+                response.addProperty("Target", target);
+                response.add("TargetTextList", targets);
+            } else {
+                response.addProperty("Lang", "en");
+            }
+            response.addProperty("RequestId", Long.toString(requestCount.get() + 1));
+            JsonObject body = new JsonObject();
+            body.add("Response", response);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+            requestCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,121 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import com.plugin.fasttranslation.pipeline.ChunkedTranslator;
+import com.plugin.fasttranslation.pipeline.CoalescingTranslator;
+import com.plugin.fasttranslation.text.TranslationTemplate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 与 RequestTencent.translateBatch(String) 相同的链路：解析模板、切块并发、请求合并、TMT 请求/响应处理、拼装译文。
+ * 网络由 {@link FakeTmtClient} 替代，缓存、限流和语种识别不在测量范围内。
+ * 开始前先确认取消后排队中的请求块不再发送请求。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TranslationPipelineBenchmark {
+
+    private static final int MAX_CHUNK_CHARS = 2000;
+
+    @Param({"500", "5000", "50000"})
+    public int chars;
+
+    private ExecutorService executor;
+    private ChunkedTranslator chunkedTranslator;
+    private CoalescingTranslator coalescer;
+    private String text;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        verifyCancelStopsQueuedChunks();
+        TranslationProvider provider = new TencentTranslationProvider("ap-beijing", null, new FakeTmtClient());
+        coalescer = new CoalescingTranslator((textArr, sourceLang, targetLang, priority) ->
+                provider.translateBatch(textArr, sourceLang, targetLang), 0, MAX_CHUNK_CHARS, 128);
+        executor = Executors.newFixedThreadPool(8, r -> {
+            Thread thread = new Thread(r, "benchmark-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+        chunkedTranslator = new ChunkedTranslator(executor, MAX_CHUNK_CHARS);
+        StringBuilder sb = new StringBuilder();
+        int line = 0;
+        while (sb.length() < chars) {
+            if (line % 6 == 5) {
+                sb.append('\n');
+            }
+            sb.append(line % 3 == 0 ? "" : "    ").append("Returns the element at position ").append(line++)
+                    .append(" of this list, or null if the index is out of range.\n");
+        }
+        text = sb.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 40 个请求块、2 个线程：前 2 块开始后取消，其余排队中的块不应再调用翻译
+     * @throws IllegalStateException 取消后仍有请求块被发送
+     */
+    static void verifyCancelStopsQueuedChunks() throws InterruptedException {
+        int chunkCount = 40;
+        int threads = 2;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < chunkCount; i++) {
+            sb.append("Line ").append(i).append(" of the cancellation check.\n");
+        }
+        int maxChunkChars = 40;
+        CompletableFuture<String> future = new ChunkedTranslator(pool, maxChunkChars).translate(
+                TranslationTemplate.parse(sb.toString(), maxChunkChars), textArr -> {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new TranslationException("check", "Interrupted", "translation interrupted", e);
+                    }
+                    return textArr;
+                }, null);
+        try {
+            if (!started.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("chunks did not start");
+            }
+            future.cancel(false);
+            release.countDown();
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (calls.get() != threads) {
+            throw new IllegalStateException("cancelled after " + threads + " of " + chunkCount
+                    + " chunks started, but " + calls.get() + " chunks were sent");
+        }
+    }
+
+    @Benchmark
+    public String translate() throws ExecutionException, InterruptedException {
+        TranslationTemplate template = TranslationTemplate.parse(text, MAX_CHUNK_CHARS);
+        return chunkedTranslator.translate(template, textArr -> coalescer.translate(textArr, "en", "zh"), null).get();
+    }
+}
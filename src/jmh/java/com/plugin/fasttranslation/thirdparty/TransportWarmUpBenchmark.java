@@ -0,0 +1,87 @@
+package com.plugin.fasttranslation.thirdparty;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 第一次翻译的延迟：每次迭代启动一个新的 {@link TmtStandInServer}(新连接额外等待 100ms 模拟握手)，
+ * 通过真实的 TMT SDK 以 http:// 访问，测量第一个批量翻译请求。
+ * <ul>
+ *     <li>cold：没有预热，第一个请求承担建连开销</li>
+ *     <li>warmed：先由 {@link WarmUpTranslationProvider} 发送预热请求，应与 steady 一致</li>
+ *     <li>steady：先发送一次真实翻译，之后的稳定状态</li>
+ * </ul>
+ * 每次迭代结束时确认替身服务只看到一个连接，即预热和翻译复用了同一个长连接，否则基准直接失败。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 30)
+public class TransportWarmUpBenchmark {
+
+    private static final long HANDSHAKE_MILLIS = 100;
+    private static final String[] TEXT_ARR = {"Returns the number of elements in this list."};
+
+    @Param({"cold", "warmed", "steady"})
+    public String scenario;
+
+    private TmtStandInServer server;
+    private TranslationProvider provider;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException, TranslationException, InterruptedException {
+        server = new TmtStandInServer(HANDSHAKE_MILLIS);
+        TranslationProvider tencent = new TencentTranslationProvider("fake-id", "fake-key", "ap-beijing",
+                server.getEndpoint(), null, new TransportConfig("http://", 5, 10));
+        if ("warmed".equals(scenario)) {
+            WarmUpTranslationProvider warmUp = new WarmUpTranslationProvider(tencent, 60_000, 60_000);
+            // 等到预热请求在客户端完成、连接归还连接池后再测量
+            CountDownLatch pinged = new CountDownLatch(1);
+            warmUp.setPinger(text -> {
+                warmUp.languageDetect(text);
+                pinged.countDown();
+            });
+            warmUp.warmUpAsync();
+            if (!pinged.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("warm-up ping did not complete");
+            }
+            provider = warmUp;
+        } else {
+            provider = tencent;
+            if ("steady".equals(scenario)) {
+                provider.translateBatch(TEXT_ARR, "en", "zh");
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        try {
+            if (server.getConnectionCount() != 1) {
+                throw new IllegalStateException("expected one reused connection, stand-in saw "
+                        + server.getConnectionCount() + " for " + server.getRequestCount() + " requests");
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    @Benchmark
+    public String[] firstTranslation() throws TranslationException {
+        return provider.translateBatch(TEXT_ARR, "en", "zh");
+    }
+}
@@ -0,0 +1,79 @@
+package com.plugin.fasttranslation.util;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link I18nUtil} 各种取值方式的开销，设置界面刷新时会成批调用
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class I18nUtilBenchmark {
+
+    private static final Locale[] LOCALES = {Locale.SIMPLIFIED_CHINESE, Locale.ENGLISH, Locale.JAPAN, Locale.GERMANY};
+    private static final String[] SETTING_KEYS = {"setting.code.lang.key", "setting.code.lang.val",
+            "setting.your.native.lang.key", "setting.after.translate.key", "setting.glossary.key",
+            "setting.glossary.tip", "setting.protect.identifiers", "setting.prefetch.enabled",
+            "setting.after.translate.val.pop", "setting.after.translate.val.replace", "setting.after.translate.val.inline"};
+
+    @Setup
+    public void setup() {
+        I18nUtil.setLocale(Locale.SIMPLIFIED_CHINESE);
+    }
+
+    @Benchmark
+    public String getMessage() {
+        return I18nUtil.getMessage("setting.after.translate.key");
+    }
+
+    @Benchmark
+    public String getMessageMissing() {
+        return I18nUtil.getMessage("setting.missing.key");
+    }
+
+    @Benchmark
+    public String getMessageWithLocale() {
+        return I18nUtil.getMessage("setting.title", Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public String getMessageWithParams() {
+        return I18nUtil.getMessage("bulk.result.done", 12, 3);
+    }
+
+    /**
+     * 对照：每次重新解析格式串
+     */
+    @Benchmark
+    public String stringFormatBaseline() {
+        return String.format("已翻译 %d 条注释，共 %d 个文件。", 12, 3);
+    }
+
+    /**
+     * 设置界面切换语言后刷新所有文本
+     */
+    @Benchmark
+    public int switchLocaleAndRefresh() {
+        int length = 0;
+        for (Locale locale : LOCALES) {
+            I18nUtil.setLocale(locale);
+            for (String key : SETTING_KEYS) {
+                length += I18nUtil.getMessage(key).length();
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    public boolean hasMessage() {
+        return I18nUtil.hasMessage("translate.task.title");
+    }
+}
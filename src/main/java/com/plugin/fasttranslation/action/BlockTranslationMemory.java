@@ -0,0 +1,85 @@
+package com.plugin.fasttranslation.action;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.RangeMarker;
+import com.intellij.openapi.util.Key;
+import com.plugin.fasttranslation.pipeline.TranslatedBlock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按文档和文本范围记住最近几次的翻译结果，再次翻译同一段(例如修改过的注释)时只发送变化的行。
+ * 范围用 RangeMarker 记录，随文档编辑自动移动；只在 EDT 上访问。
+ */
+final class BlockTranslationMemory {
+
+    private static final Key<List<Entry>> KEY = Key.create("FastTranslation.BlockTranslationMemory");
+    /** 每个文档最多记住的段数 */
+    private static final int MAX_ENTRIES = 8;
+
+    private BlockTranslationMemory() {
+    }
+
+    /**
+     * @param document 文档
+     * @param start 本次翻译的起始偏移量
+     * @param end 本次翻译的结束偏移量
+     * @return 与该范围重叠最多的上次翻译结果，没有时返回 null
+     */
+    static TranslatedBlock find(Document document, int start, int end) {
+        Entry entry = findEntry(document, start, end);
+        return entry == null ? null : entry.block;
+    }
+
+    /**
+     * 记住本次的翻译结果，替换同一段上次的结果
+     */
+    static void remember(Document document, int start, int end, TranslatedBlock block) {
+        List<Entry> entries = document.getUserData(KEY);
+        if (entries == null) {
+            entries = new ArrayList<>();
+            document.putUserData(KEY, entries);
+        }
+        Entry previous = findEntry(document, start, end);
+        if (previous != null) {
+            entries.remove(previous);
+            previous.marker.dispose();
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.remove(0).marker.dispose();
+        }
+        entries.add(new Entry(document.createRangeMarker(start, end), block));
+    }
+
+    private static Entry findEntry(Document document, int start, int end) {
+        List<Entry> entries = document.getUserData(KEY);
+        if (entries == null) {
+            return null;
+        }
+        Entry best = null;
+        int bestOverlap = 0;
+        for (Entry entry : new ArrayList<>(entries)) {
+            if (!entry.marker.isValid()) {
+                // 整段被删除
+                entries.remove(entry);
+                continue;
+            }
+            int overlap = Math.min(end, entry.marker.getEndOffset()) - Math.max(start, entry.marker.getStartOffset());
+            if (overlap > bestOverlap) {
+                best = entry;
+                bestOverlap = overlap;
+            }
+        }
+        return best;
+    }
+
+    private static final class Entry {
+        private final RangeMarker marker;
+        private final TranslatedBlock block;
+
+        Entry(RangeMarker marker, TranslatedBlock block) {
+            this.marker = marker;
+            this.block = block;
+        }
+    }
+}
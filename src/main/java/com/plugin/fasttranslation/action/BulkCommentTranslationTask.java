@@ -0,0 +1,318 @@
+package com.plugin.fasttranslation.action;
+
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.plugin.fasttranslation.detect.LanguageDetector;
+import com.plugin.fasttranslation.limit.TranslationPriority;
+import com.plugin.fasttranslation.memory.ProjectTranslationMemory;
+import com.plugin.fasttranslation.metrics.TranslationMetrics;
+import com.plugin.fasttranslation.setting.BulkTranslationState;
+import com.plugin.fasttranslation.setting.FastTranslationSettings;
+import com.plugin.fasttranslation.text.CommentText;
+import com.plugin.fasttranslation.thirdparty.RequestTencent;
+import com.plugin.fasttranslation.util.I18nUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import kotlin.Pair;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 批量翻译注释的后台任务：
+ * <ul>
+ *     <li>按轮处理文件，每轮只解析少量文件的注释，内存占用与总文件数无关</li>
+ *     <li>同一轮内相同的注释行只翻译一次，去重后大批量并发请求</li>
+ *     <li>每个文件的替换是一次独立的 WriteCommandAction，可以单独撤销</li>
+ *     <li>每轮结束记录已处理的文件，取消或失败后对同一范围再次执行时从断点继续</li>
+ * </ul>
+ */
+public class BulkCommentTranslationTask extends Task.Backgroundable {
+
+    /** 每轮处理的文件数 */
+    private static final int FILES_PER_ROUND = 32;
+
+    private final VirtualFile[] roots;
+    private final boolean toEnglish;
+
+    private int totalFiles;
+    private int processedFiles;
+    private int changedFiles;
+    private int changedComments;
+    private int skippedFiles;
+    private boolean failed;
+
+    /**
+     * @param project 项目
+     * @param roots 选中的文件或目录
+     * @param toEnglish true 时把非英文注释翻译为英文，否则把英文注释翻译为母语
+     */
+    public BulkCommentTranslationTask(Project project, VirtualFile[] roots, boolean toEnglish) {
+        super(project, I18nUtil.getMessage("bulk.task.title"), true);
+        this.roots = roots;
+        this.toEnglish = toEnglish;
+    }
+
+    @Override
+    public void run(@NotNull ProgressIndicator indicator) {
+        indicator.setIndeterminate(true);
+        ProjectTranslationMemory.ensureLoaded(myProject);
+        BulkTranslationState state = BulkTranslationState.getInstance(myProject);
+        Set<String> completed = state.begin(jobKey());
+        List<VirtualFile> files = ReadAction.compute(() -> collectFiles(indicator));
+        totalFiles = files.size();
+
+        List<VirtualFile> pending = new ArrayList<>();
+        for (VirtualFile file : files) {
+            if (!completed.contains(file.getUrl())) {
+                pending.add(file);
+            }
+        }
+        processedFiles = totalFiles - pending.size();
+        indicator.setIndeterminate(false);
+
+        for (int from = 0; from < pending.size(); from += FILES_PER_ROUND) {
+            indicator.checkCanceled();
+            indicator.setFraction((double) processedFiles / totalFiles);
+            List<VirtualFile> round = pending.subList(from, Math.min(from + FILES_PER_ROUND, pending.size()));
+            indicator.setText2(round.get(0).getPresentableUrl());
+
+            List<FileComments> roundComments = new ArrayList<>();
+            for (VirtualFile file : round) {
+                FileComments fileComments = ReadAction.compute(() -> collectComments(file));
+                if (fileComments != null) {
+                    roundComments.add(fileComments);
+                }
+            }
+            Map<String, String> translations = translate(roundComments, indicator);
+            if (translations == null) {
+                failed = true;
+                return;
+            }
+
+            List<String> finished = new ArrayList<>();
+            for (VirtualFile file : round) {
+                finished.add(file.getUrl());
+            }
+            for (FileComments fileComments : roundComments) {
+                if (!apply(fileComments, translations)) {
+                    // 翻译期间被修改的文件不记为已处理，下次继续时重新翻译
+                    finished.remove(fileComments.file.getUrl());
+                    skippedFiles++;
+                }
+            }
+            state.markCompleted(finished);
+            processedFiles += round.size();
+        }
+        state.finish();
+    }
+
+    @Override
+    public void onSuccess() {
+        if (failed) {
+            showNotification(I18nUtil.getMessage("bulk.result.failed", processedFiles, totalFiles));
+            return;
+        }
+        String message = I18nUtil.getMessage("bulk.result.done", changedComments, changedFiles);
+        if (skippedFiles > 0) {
+            message += " " + I18nUtil.getMessage("bulk.result.skipped", skippedFiles);
+        }
+        showNotification(message);
+    }
+
+    @Override
+    public void onCancel() {
+        showNotification(I18nUtil.getMessage("bulk.result.canceled", processedFiles, totalFiles));
+    }
+
+    /**
+     * 任务的范围和方向，用于判断是否可以从断点继续
+     */
+    private String jobKey() {
+        String[] urls = new String[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            urls[i] = roots[i].getUrl();
+        }
+        Arrays.sort(urls);
+        return (toEnglish ? "en:" : "native:") + String.join("|", urls);
+    }
+
+    /**
+     * 收集范围内所有项目内容中的文本文件，只保留文件引用，不读取内容
+     */
+    private List<VirtualFile> collectFiles(ProgressIndicator indicator) {
+        ProjectFileIndex fileIndex = ProjectRootManager.getInstance(myProject).getFileIndex();
+        Set<VirtualFile> files = new LinkedHashSet<>();
+        for (VirtualFile root : roots) {
+            VfsUtilCore.iterateChildrenRecursively(root, file -> !fileIndex.isExcluded(file), file -> {
+                indicator.checkCanceled();
+                if (!file.isDirectory() && fileIndex.isInContent(file) && !file.getFileType().isBinary()) {
+                    files.add(file);
+                }
+                return true;
+            });
+        }
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * 解析文件中需要翻译的注释
+     * @return 没有需要翻译的注释时返回 null
+     */
+    private FileComments collectComments(VirtualFile file) {
+        if (!file.isValid()) {
+            return null;
+        }
+        PsiFile psiFile = PsiManager.getInstance(myProject).findFile(file);
+        if (psiFile == null) {
+            return null;
+        }
+        Document document = PsiDocumentManager.getInstance(myProject).getDocument(psiFile);
+        if (document == null || !document.isWritable()) {
+            return null;
+        }
+        List<CommentEdit> edits = new ArrayList<>();
+        for (PsiComment comment : PsiTreeUtil.collectElementsOfType(psiFile, PsiComment.class)) {
+            CommentText text = CommentText.parse(comment.getText());
+            if (text.getTranslatableCount() == 0) {
+                continue;
+            }
+            boolean english = "en".equals(LanguageDetector.detect(text.getPlainText()).getLanguage());
+            if (english != toEnglish) {
+                edits.add(new CommentEdit(comment.getTextRange(), text));
+            }
+        }
+        return edits.isEmpty() ? null : new FileComments(file, document, document.getModificationStamp(), edits);
+    }
+
+    /**
+     * 翻译本轮所有注释行，相同的行只翻译一次
+     * @return 原文到译文的映射，请求失败时返回 null
+     */
+    private Map<String, String> translate(List<FileComments> roundComments, ProgressIndicator indicator) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (FileComments fileComments : roundComments) {
+            for (CommentEdit edit : fileComments.edits) {
+                for (String body : edit.text.getBodies()) {
+                    if (body != null) {
+                        unique.add(body);
+                    }
+                }
+            }
+        }
+        Map<String, String> translations = new HashMap<>();
+        if (unique.isEmpty()) {
+            return translations;
+        }
+        String[] textArr = unique.toArray(new String[0]);
+        String sourceLang = toEnglish ? "auto" : "en";
+        String targetLang = toEnglish ? "en" : FastTranslationSettings.getInstance().nativeLanguage;
+        Pair<Boolean, String[]> result = CommandPAction.awaitWithCancel(
+                RequestTencent.translateLinesAsync(textArr, sourceLang, targetLang, TranslationPriority.BACKGROUND),
+                indicator);
+        if (!result.getFirst()) {
+            return null;
+        }
+        for (int i = 0; i < textArr.length; i++) {
+            translations.put(textArr[i], result.getSecond()[i]);
+        }
+        return translations;
+    }
+
+    /**
+     * 在 EDT 上以一次 WriteCommandAction 替换文件中的全部注释
+     * @return 文件在解析后被修改过时返回 false
+     */
+    private boolean apply(FileComments fileComments, Map<String, String> translations) {
+        boolean[] applied = new boolean[1];
+        ApplicationManager.getApplication().invokeAndWait(() -> {
+            Document document = fileComments.document;
+            if (myProject.isDisposed() || document.getModificationStamp() != fileComments.modificationStamp) {
+                return;
+            }
+            long startNanos = System.nanoTime();
+            WriteCommandAction.runWriteCommandAction(myProject, I18nUtil.getMessage("bulk.command.name"), null, () -> {
+                // 从后往前替换，前面注释的偏移量不受影响
+                for (int i = fileComments.edits.size() - 1; i >= 0; i--) {
+                    CommentEdit edit = fileComments.edits.get(i);
+                    String[] bodies = edit.text.getBodies();
+                    String[] translated = new String[bodies.length];
+                    for (int j = 0; j < bodies.length; j++) {
+                        if (bodies[j] != null) {
+                            translated[j] = translations.get(bodies[j]);
+                        }
+                    }
+                    document.replaceString(edit.range.getStartOffset(), edit.range.getEndOffset(),
+                            edit.text.render(translated));
+                }
+            });
+            PsiDocumentManager.getInstance(myProject).commitDocument(document);
+            TranslationMetrics.record(TranslationMetrics.Stage.DOCUMENT_WRITE, startNanos);
+            // 及时保存，避免大量未保存的文档驻留内存
+            FileDocumentManager.getInstance().saveDocument(document);
+            applied[0] = true;
+        });
+        if (applied[0]) {
+            changedFiles++;
+            changedComments += fileComments.edits.size();
+        }
+        return applied[0];
+    }
+
+    private void showNotification(String message) {
+        Notification notification = new Notification(
+                "com.plugin.fasttranslation",
+                "Tips",
+                message,
+                NotificationType.INFORMATION
+        );
+        Notifications.Bus.notify(notification, myProject);
+    }
+
+    private static final class FileComments {
+        private final VirtualFile file;
+        private final Document document;
+        private final long modificationStamp;
+        /** 按偏移量升序排列 */
+        private final List<CommentEdit> edits;
+
+        FileComments(VirtualFile file, Document document, long modificationStamp, List<CommentEdit> edits) {
+            this.file = file;
+            this.document = document;
+            this.modificationStamp = modificationStamp;
+            this.edits = edits;
+        }
+    }
+
+    private static final class CommentEdit {
+        private final TextRange range;
+        private final CommentText text;
+
+        CommentEdit(TextRange range, CommentText text) {
+            this.range = range;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.plugin.fasttranslation.action;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 批量翻译选中的文件、目录或模块中的所有注释
+ */
+public class BulkTranslateCommentsAction extends AnAction {
+
+    private final boolean toEnglish;
+
+    /**
+     * @param toEnglish true 时把非英文注释翻译为英文，否则把英文注释翻译为母语
+     */
+    protected BulkTranslateCommentsAction(boolean toEnglish) {
+        this.toEnglish = toEnglish;
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        VirtualFile[] files = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        e.getPresentation().setEnabledAndVisible(e.getProject() != null && files != null && files.length > 0);
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        VirtualFile[] files = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        if (project == null || files == null || files.length == 0) {
+            return;
+        }
+        ProgressManager.getInstance().run(new BulkCommentTranslationTask(project, files, toEnglish));
+    }
+
+    public static final class ToEnglish extends BulkTranslateCommentsAction {
+        public ToEnglish() {
+            super(true);
+        }
+    }
+
+    public static final class ToNativeLanguage extends BulkTranslateCommentsAction {
+        public ToNativeLanguage() {
+            super(false);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.plugin.fasttranslation.action;
 
-import com.intellij.openapi.ui.popup.IconButton;
+import com.plugin.fasttranslation.inline.InlineTranslationController;
+import com.plugin.fasttranslation.memory.ProjectTranslationMemory;
+import com.plugin.fasttranslation.metrics.TranslationMetrics;
+import com.plugin.fasttranslation.pipeline.TranslatedBlock;
 import com.plugin.fasttranslation.setting.FastTranslationSettings;
+import com.plugin.fasttranslation.text.IdentifierText;
 import com.plugin.fasttranslation.thirdparty.RequestTencent;
 import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
@@ -9,38 +13,32 @@ import com.intellij.notification.Notifications;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.FoldingModel;
 import com.intellij.openapi.editor.FoldRegion;
 import com.intellij.openapi.editor.SelectionModel;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.ui.popup.JBPopupFactory;
-import com.intellij.openapi.ui.popup.JBPopup;
+import com.plugin.fasttranslation.text.JavadocFormatter;
 import com.plugin.fasttranslation.util.I18nUtil;
-import com.thoughtworks.qdox.JavaProjectBuilder;
-import com.thoughtworks.qdox.model.DocletTag;
-import com.thoughtworks.qdox.model.JavaClass;
-import com.thoughtworks.qdox.model.JavaMethod;
-import java.awt.BorderLayout;
-import java.awt.Dimension;
-import java.awt.Font;
-import java.awt.FontMetrics;
-import java.util.List;
-import javax.swing.BorderFactory;
-import javax.swing.Icon;
-import javax.swing.JPanel;
-import javax.swing.JTextArea;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import kotlin.Pair;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.intellij.openapi.util.TextRange;
-import com.intellij.icons.AllIcons;
-
-import java.io.StringReader;
-import com.intellij.util.IconUtil;
 
 public class CommandPAction extends AnAction {
 
@@ -53,73 +51,233 @@ public class CommandPAction extends AnAction {
         Project project = e.getProject();
         Editor editor = e.getData(CommonDataKeys.EDITOR);
 
+        if (editor != null && project != null
+                && "inline".equals(FastTranslationSettings.getInstance().afterTranslation)) {
+            // 行内模式下快捷键用于开关当前编辑器的行内翻译
+            if (InlineTranslationController.isAttached(editor)) {
+                InlineTranslationController.detach(editor);
+            } else {
+                InlineTranslationController.attach(editor, project);
+            }
+            return;
+        }
+
         if (editor != null) {
+            long selectionStartNanos = System.nanoTime();
             // 获取选中的文本，包括折叠区域
             SelectionModel selectionModel = editor.getSelectionModel();
             FoldingModel foldingModel = editor.getFoldingModel();
             int caretOffset = editor.getCaretModel().getOffset();
 
             String selectedText = null;
+            // 原文在文档中的范围，用于增量翻译时找到同一段上次的结果
+            int sourceStart = selectionModel.getSelectionStart();
+            int sourceEnd = selectionModel.getSelectionEnd();
             // 首先检查是否在折叠区域内
-            FoldRegion[] foldRegions = foldingModel.getAllFoldRegions();
-            for (FoldRegion region : foldRegions) {
-                if (region.isValid() && !region.isExpanded()) {
-                    int startOffset = region.getStartOffset();
-                    int endOffset = region.getEndOffset();
-                    if (caretOffset >= startOffset && caretOffset <= endOffset) {
-                        selectedText = editor.getDocument().getText(TextRange.create(startOffset, endOffset));
-                        break;
-                    }
-                }
+            FoldRegion foldRegion = findCollapsedRegion(foldingModel, caretOffset);
+            if (foldRegion != null) {
+                sourceStart = foldRegion.getStartOffset();
+                sourceEnd = foldRegion.getEndOffset();
+                selectedText = editor.getDocument().getText(TextRange.create(sourceStart, sourceEnd));
             }
 
             // 如果不在折叠区域内，使用普通的选择
-            if (selectedText == null) {
-                int selectionStart = selectionModel.getSelectionStart();
-                int selectionEnd = selectionModel.getSelectionEnd();
-                if (selectionStart != selectionEnd) {
-                    selectedText = editor.getDocument().getText(TextRange.create(selectionStart, selectionEnd));
-                }
+            if (selectedText == null && sourceStart != sourceEnd) {
+                selectedText = editor.getDocument().getText(TextRange.create(sourceStart, sourceEnd));
             }
 
+            TranslationMetrics.record(TranslationMetrics.Stage.SELECTION, selectionStartNanos);
             if (StringUtils.isBlank(selectedText)) {
                 showNotification(project, "Please select the translated text.");
                 return;
             }
-            selectedText = parseAndFormat(selectedText);
-            if (selectedText.length() > 5000) {
-                showNotification(project, "Translation length cannot exceed 1000.");
-                return;
-            }
-            // 自定义逻辑：将选中文本转换
-            Pair<Boolean, String> transformedTextPair = RequestTencent.translateBatch(selectedText);
-            if (!transformedTextPair.getFirst()) {
-                showNotification(project, "Translation failed,please try again.");
-                return;
+            // 在 EDT 上只捕获选区和文档状态，解析与网络请求全部放到后台任务中执行
+            Document document = editor.getDocument();
+            String rawText = selectedText;
+            int replaceStart = selectionModel.getSelectionStart();
+            int replaceEnd = selectionModel.getSelectionEnd();
+            long modificationStamp = document.getModificationStamp();
+            boolean writable = document.isWritable();
+            int blockStart = sourceStart;
+            int blockEnd = sourceEnd;
+            // 再次翻译修改过的同一段时，未变化的行沿用上次的译文，只发送变化的行
+            TranslatedBlock previousBlock = BlockTranslationMemory.find(document, blockStart, blockEnd);
+            // 只读文档或弹窗模式下立即打开弹窗，译文按块完成的顺序逐段追加
+            AtomicReference<ProgressIndicator> indicatorRef = new AtomicReference<>();
+            AtomicBoolean popupClosed = new AtomicBoolean();
+            TranslationPopup popup = null;
+            if (!writable || !"replace".equals(FastTranslationSettings.getInstance().afterTranslation)) {
+                // 用户提前关闭弹窗时不再需要结果，取消剩余请求
+                popup = new TranslationPopup(() -> {
+                    popupClosed.set(true);
+                    ProgressIndicator indicator = indicatorRef.get();
+                    if (indicator != null && indicator.isRunning()) {
+                        indicator.cancel();
+                    }
+                });
+                popup.show(editor);
             }
-            String translatedText = transformedTextPair.getSecond();
-            // 判断文档是否可写
-            if (!editor.getDocument().isWritable()) {
-                // 创建自定义的非模态窗口显示翻译结果
-                showTranslationPopup(translatedText, editor);
-            } else {
-                if ("replace".equals(FastTranslationSettings.getInstance().afterTranslation)) {
-                    // 使用 WriteCommandAction 来修改文档
-                    WriteCommandAction.runWriteCommandAction(project, () -> {
-                        // 执行替换操作
-                        editor.getDocument().replaceString(
-                                selectionModel.getSelectionStart(),
-                                selectionModel.getSelectionEnd(),
-                                translatedText
-                        );
-                        // 确保光标位于替换后的文本位置
-                        editor.getCaretModel().moveToOffset(selectionModel.getSelectionStart() + translatedText.length());
-                    });
-                    // 取消选中
-                    selectionModel.removeSelection();
-                } else {
-                    showTranslationPopup(translatedText, editor);
+            TranslationPopup resultPopup = popup;
+
+            ProgressManager.getInstance().run(new Task.Backgroundable(project, I18nUtil.getMessage("translate.task.title"), true) {
+                private String translatedText;
+                private TranslatedBlock translatedBlock;
+                private String errorMessage;
+
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    indicatorRef.set(indicator);
+                    // 后台任务开始前弹窗已被关闭，此时关闭回调还拿不到进度指示器，由这里取消
+                    if (popupClosed.get()) {
+                        indicator.cancel();
+                    }
+                    indicator.checkCanceled();
+                    indicator.setIndeterminate(true);
+                    ProjectTranslationMemory.ensureLoaded(project);
+                    if (translateIdentifiers(indicator)) {
+                        return;
+                    }
+                    long formatStartNanos = System.nanoTime();
+                    String formattedText = parseAndFormat(rawText);
+                    TranslationMetrics.record(TranslationMetrics.Stage.FORMAT, formatStartNanos);
+                    indicator.checkCanceled();
+                    // 大段文本会被切分为多个请求块并发翻译，按完成的块数更新进度
+                    Pair<Boolean, TranslatedBlock> transformedTextPair = awaitWithCancel(
+                            RequestTencent.translateBlockAsync(formattedText, (text, completedChunks, totalChunks) -> {
+                                indicator.setIndeterminate(false);
+                                indicator.setFraction((double) completedChunks / totalChunks);
+                                if (resultPopup != null) {
+                                    ApplicationManager.getApplication().invokeLater(() -> resultPopup.append(text));
+                                }
+                            }, previousBlock), indicator);
+                    if (!transformedTextPair.getFirst()) {
+                        errorMessage = "Translation failed,please try again.";
+                        return;
+                    }
+                    translatedBlock = transformedTextPair.getSecond();
+                    translatedText = translatedBlock.getTranslation();
+                }
+
+                /**
+                 * 选中的是代码时按单词翻译标识符；替换模式下选中的是非英文短语时翻译为 camelCase 名称
+                 * @return 已按标识符处理时返回 true
+                 */
+                private boolean translateIdentifiers(ProgressIndicator indicator) {
+                    IdentifierText identifiers = IdentifierText.parse(rawText);
+                    boolean toName = identifiers == null && resultPopup == null && IdentifierText.isNameCandidate(rawText);
+                    if (identifiers == null && !toName) {
+                        return false;
+                    }
+                    Pair<Boolean, String> translatedPair = awaitWithCancel(identifiers != null
+                            ? RequestTencent.translateIdentifiersAsync(identifiers)
+                            : RequestTencent.translateToNameAsync(rawText), indicator);
+                    if (!translatedPair.getFirst()) {
+                        errorMessage = "Translation failed,please try again.";
+                    } else {
+                        translatedText = translatedPair.getSecond();
+                    }
+                    return true;
+                }
+
+                @Override
+                public void onSuccess() {
+                    if (errorMessage != null) {
+                        if (resultPopup != null) {
+                            resultPopup.close();
+                        }
+                        showNotification(project, errorMessage);
+                        return;
+                    }
+                    if (translatedText == null || editor.isDisposed()) {
+                        return;
+                    }
+                    if (resultPopup != null) {
+                        // 只读文档或弹窗模式，以完整译文校正流式追加的内容
+                        resultPopup.finish(translatedText);
+                        // 原文仍在文档中，记住本次结果供修改后再次翻译时使用
+                        if (translatedBlock != null && document.getModificationStamp() == modificationStamp) {
+                            BlockTranslationMemory.remember(document, blockStart, blockEnd, translatedBlock);
+                        }
+                    } else {
+                        // 翻译期间文档被修改过，原选区已失效，放弃替换
+                        if (document.getModificationStamp() != modificationStamp) {
+                            showNotification(project, "The document has changed during translation, please try again.");
+                            return;
+                        }
+                        // 使用 WriteCommandAction 来修改文档
+                        long writeStartNanos = System.nanoTime();
+                        WriteCommandAction.runWriteCommandAction(project, () -> {
+                            // 执行替换操作
+                            document.replaceString(replaceStart, replaceEnd, translatedText);
+                            // 确保光标位于替换后的文本位置
+                            editor.getCaretModel().moveToOffset(replaceStart + translatedText.length());
+                        });
+                        TranslationMetrics.record(TranslationMetrics.Stage.DOCUMENT_WRITE, writeStartNanos);
+                        // 取消选中
+                        selectionModel.removeSelection();
+                    }
+                }
+
+                @Override
+                public void onCancel() {
+                    if (resultPopup != null) {
+                        resultPopup.close();
+                    }
                 }
+
+                @Override
+                public void onThrowable(@NotNull Throwable error) {
+                    if (resultPopup != null) {
+                        resultPopup.close();
+                    }
+                    super.onThrowable(error);
+                }
+            });
+        }
+    }
+
+    /**
+     * 查找包含光标(含两端)的最外层已折叠区域。
+     * FoldingModel 内部按偏移量缓存了已折叠区域，折叠状态变化时才失效，按偏移量查询是二分查找，
+     * 不需要每次复制并遍历 getAllFoldRegions()
+     * @param foldingModel 折叠模型
+     * @param offset 光标偏移量
+     * @return 折叠区域，不在折叠区域内时返回 null
+     */
+    static FoldRegion findCollapsedRegion(FoldingModel foldingModel, int offset) {
+        // getCollapsedRegionAtOffset 匹配 start <= offset < end，已包含起点；
+        // 光标位于区域终点时向前偏移一位再查，与原来遍历时的 [start, end] 一致
+        FoldRegion region = foldingModel.getCollapsedRegionAtOffset(offset);
+        if (region == null && offset > 0) {
+            region = foldingModel.getCollapsedRegionAtOffset(offset - 1);
+        }
+        return region != null && region.isValid() ? region : null;
+    }
+
+    /**
+     * 等待后台请求完成，期间响应进度条的取消操作，取消时一并取消后台请求
+     * @param future 后台请求
+     * @param indicator 进度指示器
+     * @return 请求结果
+     */
+    static <T> T awaitWithCancel(Future<T> future, ProgressIndicator indicator) {
+        while (true) {
+            try {
+                indicator.checkCanceled();
+            } catch (ProcessCanceledException e) {
+                future.cancel(true);
+                throw e;
+            }
+            try {
+                return future.get(50, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ignored) {
+                // 继续轮询取消状态
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                throw new ProcessCanceledException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
             }
         }
     }
@@ -136,214 +294,11 @@ public class CommandPAction extends AnAction {
     }
 
     /**
-     * 显示翻译结果的弹出窗口
-     * @param translatedText 翻译后的文本
-     * @param editor 编辑器实例
+     * 解析 Javadoc 并格式化为与快速文档一致的纯文本
+     * @param rawComment 选中的原始注释
+     * @return 格式化后的文本
      */
-    private void showTranslationPopup(String translatedText, Editor editor) {
-        // 创建一个面板来容纳文本
-        JPanel panel = new JPanel(new BorderLayout());
-        
-        // 使用JTextArea来显示文本，支持自动换行
-        JTextArea textArea = new JTextArea(translatedText);
-        textArea.setEditable(false);
-        textArea.setWrapStyleWord(true);
-        textArea.setLineWrap(true);
-        textArea.setBackground(null);
-        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
-        
-        // 计算合适的大小
-        FontMetrics fm = textArea.getFontMetrics(textArea.getFont());
-        int maxWidth = 600; // 最大宽度
-        String[] lines = translatedText.split("\n");
-        int width = 0;
-        for (String line : lines) {
-            width = Math.max(width, fm.stringWidth(line) + 20);
-        }
-        width = Math.min(width, maxWidth);
-        
-        // 根据文本内容计算所需的行数
-        int lineHeight = fm.getHeight();
-        int totalHeight = 0;
-        for (String line : lines) {
-            int lineWidth = fm.stringWidth(line);
-            int wrappedLines = (int) Math.ceil((double) lineWidth / width);
-            totalHeight += wrappedLines * lineHeight;
-        }
-        
-        // 设置首选大小
-        Dimension preferredSize = new Dimension(width, Math.min(totalHeight + 20, 400));
-        textArea.setPreferredSize(preferredSize);
-        
-        panel.add(textArea, BorderLayout.CENTER);
-        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-
-        // 创建弹出窗口
-        Icon closeIcon = IconUtil.scale(AllIcons.Actions.Close, null, 1.5f);
-        Icon hoveredIcon = IconUtil.scale(AllIcons.Actions.CloseHovered, null, 1.5f);
-        
-        JBPopup popup = JBPopupFactory.getInstance()
-                .createComponentPopupBuilder(panel, textArea)
-                .setTitle(I18nUtil.getMessage("translate.result.pop.title"))
-                .setMovable(true)
-                .setRequestFocus(true)
-                .setResizable(true)
-                .setMinSize(new Dimension(200, 100))
-                .setCancelOnClickOutside(true)
-                .setCancelButton(new IconButton(I18nUtil.getMessage("translate.result.pop.close.tip"), closeIcon, hoveredIcon))
-                .createPopup();
-
-        // 显示在编辑器的当前位置附近
-        popup.showInBestPositionFor(editor);
-    }
-
     public static String parseAndFormat(String rawComment) {
-        if (rawComment == null || rawComment.trim().isEmpty()) {
-            return "";
-        }
-
-        // 预处理注释，移除开头的/**和结尾的*/
-        String processedComment = rawComment.trim()
-                .replaceAll("^/\\*\\*\\s*", "")
-                .replaceAll("\\s*\\*/$", "");
-
-        String mockClass = String.format(
-                "public class Mock {\n" +
-                        "    /**\n" +
-                        "%s\n" +
-                        "    */\n" +
-                        "    public void mockMethod() {}\n" +
-                        "}", processedComment);
-
-        JavaProjectBuilder builder = new JavaProjectBuilder();
-        try {
-            builder.addSource(new StringReader(mockClass));
-            JavaClass javaClass = builder.getClasses().iterator().next();
-            JavaMethod method = javaClass.getMethods().get(0);
-
-            StringBuilder formatted = new StringBuilder();
-
-            // 处理主要描述
-            String mainDescription = formatDescription(method.getComment());
-            if (!mainDescription.isEmpty()) {
-                formatted.append(mainDescription).append("\n");
-            }
-
-            // 处理@param标签
-            List<DocletTag> paramTags = method.getTagsByName("param");
-            if (!paramTags.isEmpty()) {
-                formatted.append("Params:\n");
-                for (DocletTag param : paramTags) {
-                    List<String> parameters = param.getParameters();
-                    if (!parameters.isEmpty()) {
-                        formatted.append("     ")
-                                .append(parameters.get(0))
-                                .append(" – ")
-                                .append(formatTagContent(param.getValue().replaceFirst("^" + parameters.get(0) + "\\s+", "")))
-                                .append("\n");
-                    }
-                }
-            }
-
-            // 处理@return标签
-            DocletTag returnTag = method.getTagByName("return");
-            if (returnTag != null) {
-                formatted.append("Returns:\n")
-                        .append("     ")
-                        .append(formatTagContent(returnTag.getValue()))
-                        .append("\n");
-            }
-
-            // 处理@throws标签
-            List<DocletTag> throwsTags = method.getTagsByName("throws");
-            if (!throwsTags.isEmpty()) {
-                formatted.append("Throws:\n");
-                for (DocletTag throwsTag : throwsTags) {
-                    List<String> parameters = throwsTag.getParameters();
-                    if (!parameters.isEmpty()) {
-                        String className = parameters.get(0);
-                        // 移除完整的包名，只保留类名
-                        className = className.substring(className.lastIndexOf('.') + 1);
-                        formatted.append("     ")
-                                .append(className)
-                                .append(" – ")
-                                .append(formatTagContent(throwsTag.getValue().replaceFirst("^" + parameters.get(0) + "\\s+", "")))
-                                .append("\n");
-                    }
-                }
-            }
-
-            // 处理@since标签
-            DocletTag sinceTag = method.getTagByName("since");
-            if (sinceTag != null) {
-                formatted.append("Since:\n")
-                        .append("     ")
-                        .append(formatTagContent(sinceTag.getValue()))
-                        .append("\n");
-            }
-
-            return formatted.toString().trim();
-        } catch (Exception e) {
-            return "Error parsing JavaDoc: " + e.getMessage();
-        }
-    }
-
-    private static String formatDescription(String text) {
-        if (text == null) return "";
-
-        // 移除每行开头的*和空格
-        text = text.replaceAll("(?m)^\\s*\\*\\s*", "");
-
-        // 处理HTML标签
-        text = text.replaceAll("<tt>|</tt>", "");
-        text = text.replaceAll("<pre>\\s*", "\n     ");
-        text = text.replaceAll("</pre>", "");
-        text = text.replaceAll("</?p>", "\n");
-        text = text.replaceAll("<cite>|</cite>", "");
-
-        // 处理链接
-        text = text.replaceAll("<a\\s+href=\"[^\"]*\">([^<]*)</a>", "$1");
-
-        // 处理特殊字符
-        text = text.replaceAll("&trade;", "™");
-
-        // 合并多行文本，保留必要的换行
-        String[] lines = text.split("\n");
-        StringBuilder result = new StringBuilder();
-        boolean inPreBlock = false;
-
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if (line.isEmpty()) continue;
-
-            if (line.startsWith("     ")) {
-                // 这是预格式化的代码块
-                if (!inPreBlock) {
-                    result.append("\n");
-                    inPreBlock = true;
-                }
-                result.append(line).append("\n");
-            } else {
-                if (inPreBlock) {
-                    inPreBlock = false;
-                } else if (result.length() > 0) {
-                    result.append(" ");
-                }
-                result.append(line);
-            }
-        }
-
-        return result.toString().trim();
-    }
-
-    private static String formatTagContent(String text) {
-        if (text == null) return "";
-
-        // 移除HTML标签和特殊格式
-        text = text.replaceAll("<[^>]+>", "");
-        text = text.replaceAll("&trade;", "™");
-
-        // 合并多行为单行
-        return text.replaceAll("\\s+", " ").trim();
+        return JavadocFormatter.format(rawComment);
     }
 }
@@ -0,0 +1,108 @@
+package com.plugin.fasttranslation.action;
+
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.plugin.fasttranslation.cache.TranslationMemory;
+import com.plugin.fasttranslation.memory.ProjectTranslationMemory;
+import com.plugin.fasttranslation.thirdparty.RequestTencent;
+import com.plugin.fasttranslation.util.I18nUtil;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 导出或导入项目的翻译记忆文件({@link ProjectTranslationMemory#RELATIVE_PATH})，提交到仓库后团队成员共享译文
+ */
+public class TranslationMemoryAction extends AnAction {
+
+    private final boolean export;
+
+    /**
+     * @param export true 时把本机缓存导出到项目的翻译记忆，否则把选择的文件合并进来
+     */
+    protected TranslationMemoryAction(boolean export) {
+        this.export = export;
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        e.getPresentation().setEnabledAndVisible(project != null && ProjectTranslationMemory.fileOf(project) != null);
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        Path file = project == null ? null : ProjectTranslationMemory.fileOf(project);
+        if (file == null) {
+            return;
+        }
+        Path source = chooseSource(project);
+        if (source == null && !export) {
+            return;
+        }
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, I18nUtil.getMessage("memory.task.title"), false) {
+            private String message;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                try {
+                    int entries = export ? RequestTencent.exportMemory(file) : TranslationMemory.merge(file, source);
+                    message = I18nUtil.getMessage(export ? "memory.export.done" : "memory.import.done",
+                            entries, ProjectTranslationMemory.RELATIVE_PATH);
+                } catch (IOException | RuntimeException ex) {
+                    message = I18nUtil.getMessage("memory.failed", ex.getMessage());
+                    return;
+                }
+                ProjectTranslationMemory.reload(project);
+                // 让版本控制看到新文件
+                LocalFileSystem.getInstance().refreshNioFiles(Collections.singletonList(file));
+            }
+
+            @Override
+            public void onFinished() {
+                if (message != null) {
+                    Notifications.Bus.notify(new Notification("com.plugin.fasttranslation", "Tips", message,
+                            NotificationType.INFORMATION), project);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return 导入时选择的文件，取消选择或导出时返回 null
+     */
+    private Path chooseSource(Project project) {
+        if (export) {
+            return null;
+        }
+        VirtualFile chosen = FileChooser.chooseFile(FileChooserDescriptorFactory.createSingleFileDescriptor("bin"),
+                project, null);
+        return chosen == null ? null : chosen.toNioPath();
+    }
+
+    public static final class Export extends TranslationMemoryAction {
+        public Export() {
+            super(true);
+        }
+    }
+
+    public static final class Import extends TranslationMemoryAction {
+        public Import() {
+            super(false);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.plugin.fasttranslation.action;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.ui.popup.IconButton;
+import com.intellij.openapi.ui.popup.JBPopup;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.ui.popup.JBPopupListener;
+import com.intellij.openapi.ui.popup.LightweightWindowEvent;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.IconUtil;
+import com.plugin.fasttranslation.util.I18nUtil;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import javax.swing.BorderFactory;
+import javax.swing.Icon;
+import javax.swing.JPanel;
+import javax.swing.JTextArea;
+import javax.swing.ScrollPaneConstants;
+import javax.swing.text.DefaultCaret;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 显示翻译结果的非模态弹窗，支持在翻译完成前打开并逐段追加译文：
+ * <ul>
+ *     <li>尺寸只根据新追加的行增量计算，不会重复测量已有内容</li>
+ *     <li>文本区放在滚动面板中，超出最大尺寸后只绘制可见部分，长译文不会撑大弹窗</li>
+ * </ul>
+ * 所有方法都需要在 EDT 上调用。
+ */
+class TranslationPopup {
+
+    private static final int MAX_WIDTH = 600;
+    private static final int MAX_HEIGHT = 400;
+    private static final int MIN_WIDTH = 200;
+    private static final int MIN_HEIGHT = 100;
+    /** 文本区内边距和滚动条预留的宽度 */
+    private static final int PADDING = 20;
+
+    private final JTextArea textArea;
+    private final JBPopup popup;
+    private final FontMetrics fontMetrics;
+    /** 仍显示占位文本，尚未收到任何译文 */
+    private boolean placeholder;
+    private int contentWidth;
+    /** 按最大宽度折行后的总行数 */
+    private int wrappedLines;
+    /** 上一次追加的片段末尾不是换行时，该行已测量的宽度 */
+    private int openLineWidth;
+
+    /**
+     * @param onClosed 弹窗被用户关闭时回调，可用于取消仍在进行的翻译，可为 null
+     */
+    TranslationPopup(Runnable onClosed) {
+        textArea = new JTextArea(I18nUtil.getMessage("translate.task.title"));
+        textArea.setEditable(false);
+        textArea.setWrapStyleWord(true);
+        textArea.setLineWrap(true);
+        textArea.setBackground(null);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
+        // 追加内容时光标不跟随，保持停留在译文开头
+        ((DefaultCaret) textArea.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
+        fontMetrics = textArea.getFontMetrics(textArea.getFont());
+        placeholder = true;
+
+        JBScrollPane scrollPane = new JBScrollPane(textArea,
+                ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.setOpaque(false);
+        scrollPane.getViewport().setOpaque(false);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.setPreferredSize(new Dimension(MIN_WIDTH, MIN_HEIGHT));
+
+        // 创建弹出窗口
+        Icon closeIcon = IconUtil.scale(AllIcons.Actions.Close, null, 1.5f);
+        Icon hoveredIcon = IconUtil.scale(AllIcons.Actions.CloseHovered, null, 1.5f);
+
+        popup = JBPopupFactory.getInstance()
+                .createComponentPopupBuilder(panel, textArea)
+                .setTitle(I18nUtil.getMessage("translate.result.pop.title"))
+                .setMovable(true)
+                .setRequestFocus(true)
+                .setResizable(true)
+                .setMinSize(new Dimension(MIN_WIDTH, MIN_HEIGHT))
+                .setCancelOnClickOutside(true)
+                .setCancelButton(new IconButton(I18nUtil.getMessage("translate.result.pop.close.tip"), closeIcon, hoveredIcon))
+                .createPopup();
+        if (onClosed != null) {
+            popup.addListener(new JBPopupListener() {
+                @Override
+                public void onClosed(@NotNull LightweightWindowEvent event) {
+                    onClosed.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * 显示在编辑器的当前位置附近
+     * @param editor 编辑器实例
+     */
+    void show(Editor editor) {
+        popup.showInBestPositionFor(editor);
+    }
+
+    /**
+     * 追加一段已完成的译文
+     * @param text 译文片段
+     */
+    void append(String text) {
+        if (popup.isDisposed() || text.isEmpty()) {
+            return;
+        }
+        if (placeholder) {
+            textArea.setText("");
+            placeholder = false;
+        }
+        textArea.append(text);
+        measure(text);
+    }
+
+    /**
+     * 翻译完成，以完整译文为准；流式追加的内容与其一致时不再重复设置
+     * @param translatedText 完整译文
+     */
+    void finish(String translatedText) {
+        if (popup.isDisposed()) {
+            return;
+        }
+        if (placeholder || !translatedText.equals(textArea.getText())) {
+            textArea.setText("");
+            placeholder = false;
+            contentWidth = 0;
+            wrappedLines = 0;
+            openLineWidth = 0;
+            textArea.append(translatedText);
+            measure(translatedText);
+        }
+    }
+
+    void close() {
+        if (!popup.isDisposed()) {
+            popup.cancel();
+        }
+    }
+
+    /**
+     * 只测量新追加的行，更新内容宽度和折行数，在达到最大尺寸前随内容增长调整弹窗大小
+     */
+    private void measure(String text) {
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf('\n', start);
+            boolean lineClosed = end >= 0;
+            if (!lineClosed) {
+                end = text.length();
+            }
+            if (start == end && !lineClosed) {
+                break;
+            }
+            int lineWidth = openLineWidth + fontMetrics.stringWidth(text.substring(start, end));
+            contentWidth = Math.max(contentWidth, lineWidth + PADDING);
+            if (lineClosed) {
+                wrappedLines += Math.max(1, (int) Math.ceil((double) lineWidth / (MAX_WIDTH - PADDING)));
+                openLineWidth = 0;
+            } else {
+                openLineWidth = lineWidth;
+            }
+            start = end + 1;
+        }
+        int lines = wrappedLines + (openLineWidth > 0 ? 1 : 0);
+        Dimension size = new Dimension(
+                Math.max(MIN_WIDTH, Math.min(contentWidth, MAX_WIDTH) + PADDING),
+                Math.max(MIN_HEIGHT, Math.min(lines * fontMetrics.getHeight() + PADDING * 2, MAX_HEIGHT)));
+        Dimension current = popup.getSize();
+        if (current == null || size.width > current.width || size.height > current.height) {
+            popup.setSize(new Dimension(Math.max(size.width, current == null ? 0 : current.width),
+                    Math.max(size.height, current == null ? 0 : current.height)));
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.plugin.fasttranslation.inline;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.EditorKind;
+import com.intellij.openapi.editor.Inlay;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
+import com.intellij.openapi.editor.event.VisibleAreaListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Alarm;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.plugin.fasttranslation.detect.LanguageDetector;
+import com.plugin.fasttranslation.limit.TranslationPriority;
+import com.plugin.fasttranslation.memory.ProjectTranslationMemory;
+import com.plugin.fasttranslation.setting.FastTranslationSettings;
+import com.plugin.fasttranslation.text.CommentText;
+import com.plugin.fasttranslation.thirdparty.RequestTencent;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import kotlin.Pair;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 行内翻译：只为编辑器视口内的注释在其下方显示译文。
+ * <ul>
+ *     <li>滚动或编辑停止 300ms 后，把视口内尚未显示译文的注释合并为一批请求</li>
+ *     <li>滚出视口的译文立即移除，同时存在的 inlay 数量只与视口大小有关</li>
+ *     <li>再次滚回时由翻译缓存直接命中，不会重复请求</li>
+ * </ul>
+ * 所有字段只在 EDT 上访问。
+ */
+public class InlineTranslationController implements Disposable {
+
+    private static final Key<InlineTranslationController> KEY = Key.create("FastTranslation.InlineTranslationController");
+    /** 滚动停止后等待的时间 */
+    private static final int DEBOUNCE_MILLIS = 300;
+
+    private final Editor editor;
+    private final Project project;
+    private final Alarm alarm;
+    private final List<Inlay<InlineTranslationRenderer>> inlays = new ArrayList<>();
+    private final Set<CompletableFuture<?>> pending = new HashSet<>();
+    private boolean disposed;
+
+    private InlineTranslationController(Editor editor, Project project) {
+        this.editor = editor;
+        this.project = project;
+        this.alarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+        VisibleAreaListener areaListener = e -> scheduleRefresh();
+        editor.getScrollingModel().addVisibleAreaListener(areaListener);
+        Disposer.register(this, () -> editor.getScrollingModel().removeVisibleAreaListener(areaListener));
+        editor.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void documentChanged(@NotNull DocumentEvent event) {
+                scheduleRefresh();
+            }
+        }, this);
+    }
+
+    /**
+     * 为编辑器开启行内翻译，已开启时不做任何事
+     * @param editor 编辑器
+     * @param project 编辑器所属项目
+     */
+    public static void attach(Editor editor, Project project) {
+        if (editor.isDisposed() || editor.getUserData(KEY) != null) {
+            return;
+        }
+        InlineTranslationController controller = new InlineTranslationController(editor, project);
+        editor.putUserData(KEY, controller);
+        Disposer.register(project, controller);
+        controller.scheduleRefresh();
+    }
+
+    /**
+     * 关闭编辑器的行内翻译并移除已显示的译文
+     */
+    public static void detach(Editor editor) {
+        InlineTranslationController controller = editor.getUserData(KEY);
+        if (controller != null) {
+            Disposer.dispose(controller);
+        }
+    }
+
+    /**
+     * 切换翻译后操作时，为所有已打开的代码编辑器开启或关闭行内翻译
+     * @param enabled 是否开启
+     */
+    public static void syncOpenEditors(boolean enabled) {
+        for (Editor editor : EditorFactory.getInstance().getAllEditors()) {
+            Project project = editor.getProject();
+            if (!enabled) {
+                detach(editor);
+            } else if (project != null && editor.getEditorKind() == EditorKind.MAIN_EDITOR) {
+                attach(editor, project);
+            }
+        }
+    }
+
+    public static boolean isAttached(Editor editor) {
+        return editor.getUserData(KEY) != null;
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        for (CompletableFuture<?> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        for (Inlay<InlineTranslationRenderer> inlay : inlays) {
+            Disposer.dispose(inlay);
+        }
+        inlays.clear();
+        editor.putUserData(KEY, null);
+    }
+
+    private void scheduleRefresh() {
+        if (disposed) {
+            return;
+        }
+        alarm.cancelAllRequests();
+        alarm.addRequest(this::refresh, DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * 移除视口外的译文，在后台收集视口内的注释
+     */
+    private void refresh() {
+        if (disposed || editor.isDisposed()) {
+            return;
+        }
+        TextRange visibleRange = getVisibleRange();
+        Iterator<Inlay<InlineTranslationRenderer>> iterator = inlays.iterator();
+        while (iterator.hasNext()) {
+            Inlay<InlineTranslationRenderer> inlay = iterator.next();
+            if (!inlay.isValid() || !visibleRange.containsOffset(inlay.getOffset())) {
+                Disposer.dispose(inlay);
+                iterator.remove();
+            }
+        }
+        long modificationStamp = editor.getDocument().getModificationStamp();
+        ReadAction.nonBlocking(() -> collectComments(visibleRange))
+                .withDocumentsCommitted(project)
+                .expireWith(this)
+                .finishOnUiThread(ModalityState.defaultModalityState(),
+                        comments -> requestTranslations(comments, modificationStamp))
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    /**
+     * 按翻译方向把尚未显示译文的注释合并为一批请求
+     */
+    private void requestTranslations(List<VisibleComment> comments, long modificationStamp) {
+        if (disposed || editor.getDocument().getModificationStamp() != modificationStamp) {
+            return;
+        }
+        Map<Integer, String> displayed = getDisplayed();
+        List<VisibleComment> toNative = new ArrayList<>();
+        List<VisibleComment> toEnglish = new ArrayList<>();
+        for (VisibleComment comment : comments) {
+            String shown = displayed.get(comment.endOffset);
+            if (comment.source.equals(shown)) {
+                continue;
+            }
+            if (shown != null) {
+                // 注释已被修改，移除过期的译文
+                removeInlayAt(comment.endOffset);
+            }
+            (comment.english ? toNative : toEnglish).add(comment);
+        }
+        request(toNative, "en", FastTranslationSettings.getInstance().nativeLanguage, modificationStamp);
+        request(toEnglish, "auto", "en", modificationStamp);
+    }
+
+    private void request(List<VisibleComment> comments, String sourceLang, String targetLang, long modificationStamp) {
+        if (comments.isEmpty()) {
+            return;
+        }
+        Set<String> unique = new LinkedHashSet<>();
+        for (VisibleComment comment : comments) {
+            for (String body : comment.text.getBodies()) {
+                if (body != null) {
+                    unique.add(body);
+                }
+            }
+        }
+        String[] textArr = unique.toArray(new String[0]);
+        ProjectTranslationMemory.ensureLoaded(project);
+        CompletableFuture<Pair<Boolean, String[]>> future = RequestTencent.translateLinesAsync(textArr, sourceLang, targetLang,
+                TranslationPriority.VIEWPORT);
+        pending.add(future);
+        future.whenComplete((pair, error) -> ApplicationManager.getApplication().invokeLater(() -> {
+            pending.remove(future);
+            if (error != null || !pair.getFirst()) {
+                return;
+            }
+            Map<String, String> translations = new HashMap<>();
+            for (int i = 0; i < textArr.length; i++) {
+                translations.put(textArr[i], pair.getSecond()[i]);
+            }
+            show(comments, translations, modificationStamp);
+        }, ModalityState.any()));
+    }
+
+    /**
+     * 为仍在视口内、尚未显示译文的注释添加 inlay
+     */
+    private void show(List<VisibleComment> comments, Map<String, String> translations, long modificationStamp) {
+        if (disposed || editor.isDisposed() || editor.getDocument().getModificationStamp() != modificationStamp) {
+            return;
+        }
+        TextRange visibleRange = getVisibleRange();
+        Map<Integer, String> displayed = getDisplayed();
+        for (VisibleComment comment : comments) {
+            if (!visibleRange.containsOffset(comment.endOffset) || displayed.containsKey(comment.endOffset)) {
+                continue;
+            }
+            List<String> lines = new ArrayList<>();
+            for (String body : comment.text.getBodies()) {
+                if (body != null) {
+                    lines.add(translations.getOrDefault(body, body));
+                }
+            }
+            int indentX = editor.offsetToXY(comment.startOffset).x;
+            Inlay<InlineTranslationRenderer> inlay = editor.getInlayModel().addBlockElement(comment.endOffset, true,
+                    false, 0, new InlineTranslationRenderer(comment.source, lines.toArray(new String[0]), indentX));
+            if (inlay != null) {
+                inlays.add(inlay);
+            }
+        }
+    }
+
+    /**
+     * 在读操作中收集视口内的注释，解析注释文本并识别语种
+     */
+    private List<VisibleComment> collectComments(TextRange visibleRange) {
+        if (editor.isDisposed()) {
+            return Collections.emptyList();
+        }
+        PsiFile psiFile = PsiDocumentManager.getInstance(project).getPsiFile(editor.getDocument());
+        if (psiFile == null) {
+            return Collections.emptyList();
+        }
+        List<VisibleComment> comments = new ArrayList<>();
+        PsiElement leaf = psiFile.findElementAt(visibleRange.getStartOffset());
+        while (leaf != null && leaf.getTextRange().getStartOffset() <= visibleRange.getEndOffset()) {
+            PsiComment comment = PsiTreeUtil.getParentOfType(leaf, PsiComment.class, false);
+            if (comment == null) {
+                leaf = PsiTreeUtil.nextLeaf(leaf);
+                continue;
+            }
+            TextRange range = comment.getTextRange();
+            // 注释结尾在视口内时才显示，译文显示在注释下方
+            if (visibleRange.containsOffset(range.getEndOffset())) {
+                String source = comment.getText();
+                CommentText text = CommentText.parse(source);
+                if (text.getTranslatableCount() > 0) {
+                    boolean english = "en".equals(LanguageDetector.detect(text.getPlainText()).getLanguage());
+                    comments.add(new VisibleComment(range.getStartOffset(), range.getEndOffset(), source, text, english));
+                }
+            }
+            leaf = PsiTreeUtil.nextLeaf(comment);
+        }
+        return comments;
+    }
+
+    private TextRange getVisibleRange() {
+        Document document = editor.getDocument();
+        Rectangle area = editor.getScrollingModel().getVisibleArea();
+        int startOffset = editor.logicalPositionToOffset(editor.xyToLogicalPosition(new Point(0, area.y)));
+        int endOffset = editor.logicalPositionToOffset(editor.xyToLogicalPosition(new Point(0, area.y + area.height)));
+        int endLine = document.getLineNumber(Math.min(endOffset, document.getTextLength()));
+        return new TextRange(startOffset, document.getLineEndOffset(endLine));
+    }
+
+    /**
+     * @return 已显示的译文，键为注释的结束偏移量，值为注释原文
+     */
+    private Map<Integer, String> getDisplayed() {
+        Map<Integer, String> displayed = new HashMap<>();
+        for (Inlay<InlineTranslationRenderer> inlay : inlays) {
+            if (inlay.isValid()) {
+                displayed.put(inlay.getOffset(), inlay.getRenderer().getSource());
+            }
+        }
+        return displayed;
+    }
+
+    private void removeInlayAt(int offset) {
+        Iterator<Inlay<InlineTranslationRenderer>> iterator = inlays.iterator();
+        while (iterator.hasNext()) {
+            Inlay<InlineTranslationRenderer> inlay = iterator.next();
+            if (inlay.isValid() && inlay.getOffset() == offset) {
+                Disposer.dispose(inlay);
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class VisibleComment {
+        private final int startOffset;
+        private final int endOffset;
+        private final String source;
+        private final CommentText text;
+        private final boolean english;
+
+        VisibleComment(int startOffset, int endOffset, String source, CommentText text, boolean english) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.source = source;
+            this.text = text;
+            this.english = english;
+        }
+    }
+}
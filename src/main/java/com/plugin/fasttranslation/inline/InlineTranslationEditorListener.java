@@ -0,0 +1,30 @@
+package com.plugin.fasttranslation.inline;
+
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorKind;
+import com.intellij.openapi.editor.event.EditorFactoryEvent;
+import com.intellij.openapi.editor.event.EditorFactoryListener;
+import com.intellij.openapi.project.Project;
+import com.plugin.fasttranslation.setting.FastTranslationSettings;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 翻译后操作设置为行内显示时，为新打开的代码编辑器开启行内翻译
+ */
+public class InlineTranslationEditorListener implements EditorFactoryListener {
+
+    @Override
+    public void editorCreated(@NotNull EditorFactoryEvent event) {
+        Editor editor = event.getEditor();
+        Project project = editor.getProject();
+        if (project != null && editor.getEditorKind() == EditorKind.MAIN_EDITOR
+                && "inline".equals(FastTranslationSettings.getInstance().afterTranslation)) {
+            InlineTranslationController.attach(editor, project);
+        }
+    }
+
+    @Override
+    public void editorReleased(@NotNull EditorFactoryEvent event) {
+        InlineTranslationController.detach(event.getEditor());
+    }
+}
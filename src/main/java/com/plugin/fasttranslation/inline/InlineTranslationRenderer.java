@@ -0,0 +1,82 @@
+package com.plugin.fasttranslation.inline;
+
+import com.intellij.openapi.editor.DefaultLanguageHighlighterColors;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorCustomElementRenderer;
+import com.intellij.openapi.editor.Inlay;
+import com.intellij.openapi.editor.colors.EditorFontType;
+import com.intellij.openapi.editor.markup.TextAttributes;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 在注释下方以斜体绘制译文，与注释左对齐
+ */
+public class InlineTranslationRenderer implements EditorCustomElementRenderer {
+
+    /** 对应注释的原文，注释被修改后据此判断译文是否过期 */
+    private final String source;
+    private final String[] lines;
+    private final int indentX;
+
+    /**
+     * @param source 注释原文
+     * @param lines 译文，每个元素一行
+     * @param indentX 注释起始位置的横坐标
+     */
+    public InlineTranslationRenderer(String source, String[] lines, int indentX) {
+        this.source = source;
+        this.lines = lines;
+        this.indentX = indentX;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public int calcWidthInPixels(@NotNull Inlay inlay) {
+        Editor editor = inlay.getEditor();
+        FontMetrics metrics = editor.getContentComponent().getFontMetrics(getFont(editor));
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, metrics.stringWidth(line));
+        }
+        return indentX + width;
+    }
+
+    @Override
+    public int calcHeightInPixels(@NotNull Inlay inlay) {
+        return inlay.getEditor().getLineHeight() * lines.length;
+    }
+
+    @Override
+    public void paint(@NotNull Inlay inlay, @NotNull Graphics g, @NotNull Rectangle targetRegion,
+                      @NotNull TextAttributes textAttributes) {
+        Editor editor = inlay.getEditor();
+        Font font = getFont(editor);
+        g.setFont(font);
+        g.setColor(getColor(editor));
+        FontMetrics metrics = g.getFontMetrics(font);
+        int lineHeight = editor.getLineHeight();
+        int baseline = targetRegion.y + (lineHeight + metrics.getAscent() - metrics.getDescent()) / 2;
+        for (String line : lines) {
+            g.drawString(line, targetRegion.x + indentX, baseline);
+            baseline += lineHeight;
+        }
+    }
+
+    private static Font getFont(Editor editor) {
+        return editor.getColorsScheme().getFont(EditorFontType.ITALIC);
+    }
+
+    private static Color getColor(Editor editor) {
+        TextAttributes attributes = editor.getColorsScheme().getAttributes(DefaultLanguageHighlighterColors.LINE_COMMENT);
+        Color color = attributes == null ? null : attributes.getForegroundColor();
+        return color != null ? color : Color.GRAY;
+    }
+}
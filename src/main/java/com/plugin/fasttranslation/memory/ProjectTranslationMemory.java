@@ -0,0 +1,177 @@
+package com.plugin.fasttranslation.memory;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.plugin.fasttranslation.cache.TranslationMemory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 项目内随仓库共享的翻译记忆文件：在项目中第一次翻译时才映射，文件被更新(例如拉取了其他成员导出的版本)后重新映射，
+ * 项目关闭时释放。翻译时按顺序查询所有已打开项目的翻译记忆。
+ * 映射的是复制到 IDE 系统目录下的快照，而不是项目中的文件：映射在回收前不会释放，
+ * Windows 上映射中的文件不能被替换，导出、导入和版本控制更新项目文件时不受影响。
+ */
+public final class ProjectTranslationMemory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectTranslationMemory.class);
+    /** 相对于项目根目录的路径 */
+    public static final String RELATIVE_PATH = ".fasttranslation/translation-memory.bin";
+    /** 两次检查文件是否更新的最小间隔，翻译入口在 EDT 上频繁调用 */
+    private static final long CHECK_INTERVAL_MILLIS = 5000;
+    /** 快照所在目录 */
+    private static final Path SNAPSHOT_DIR = Paths.get(PathManager.getSystemPath(), "fast-translation", "memory");
+
+    private static final Map<Project, Loaded> LOADED = new ConcurrentHashMap<>();
+    /** 已打开的翻译记忆，整体替换 */
+    private static volatile List<TranslationMemory> memories = Collections.emptyList();
+
+    private ProjectTranslationMemory() {
+    }
+
+    /**
+     * @param project 项目
+     * @return 项目的翻译记忆文件，默认项目等没有根目录时返回 null
+     */
+    public static Path fileOf(Project project) {
+        String basePath = project.getBasePath();
+        return basePath == null ? null : Paths.get(basePath, RELATIVE_PATH);
+    }
+
+    /**
+     * 在项目中翻译前调用：第一次调用时打开翻译记忆，之后每隔一段时间检查文件是否更新
+     * @param project 项目
+     */
+    public static void ensureLoaded(Project project) {
+        Loaded loaded = LOADED.get(project);
+        if (loaded != null && System.currentTimeMillis() - loaded.checkedAt < CHECK_INTERVAL_MILLIS) {
+            return;
+        }
+        refresh(project, false);
+    }
+
+    /**
+     * 导出或导入后立即重新打开
+     * @param project 项目
+     */
+    public static void reload(Project project) {
+        refresh(project, true);
+    }
+
+    /**
+     * @return 已打开的翻译记忆
+     */
+    public static List<TranslationMemory> getLoaded() {
+        return memories;
+    }
+
+    private static synchronized void refresh(Project project, boolean force) {
+        if (project.isDisposed()) {
+            return;
+        }
+        Loaded loaded = LOADED.get(project);
+        long now = System.currentTimeMillis();
+        if (!force && loaded != null && now - loaded.checkedAt < CHECK_INTERVAL_MILLIS) {
+            return;
+        }
+        if (loaded == null) {
+            Disposer.register(project, () -> unload(project));
+        }
+        Path file = fileOf(project);
+        FileTime modified = null;
+        TranslationMemory memory = loaded == null ? null : loaded.memory;
+        try {
+            if (file != null && Files.isRegularFile(file)) {
+                modified = Files.getLastModifiedTime(file);
+            }
+            if (force || loaded == null || !Objects.equals(modified, loaded.modified)) {
+                memory = modified == null ? null : openSnapshot(file, modified);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("打开翻译记忆失败,file:{}, msg:{}", file, e.toString());
+            memory = null;
+        }
+        LOADED.put(project, new Loaded(memory, modified, now));
+        publish();
+    }
+
+    /**
+     * 把项目中的文件复制为快照(文件名包含修改时间和大小，内容不变时复用)再映射，并删除该项目旧的快照
+     */
+    private static TranslationMemory openSnapshot(Path file, FileTime modified) throws IOException {
+        String prefix = Integer.toHexString(file.toAbsolutePath().normalize().toString().hashCode()) + "-";
+        Path snapshot = SNAPSHOT_DIR.resolve(prefix + modified.toMillis() + "-" + Files.size(file) + ".bin");
+        if (!Files.exists(snapshot)) {
+            Files.createDirectories(SNAPSHOT_DIR);
+            Path temp = Files.createTempFile(SNAPSHOT_DIR, prefix, ".tmp");
+            try {
+                Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        TranslationMemory memory = TranslationMemory.open(snapshot);
+        deleteStaleSnapshots(prefix, snapshot);
+        return memory;
+    }
+
+    /**
+     * 尽力删除旧快照；仍被映射(Windows)时删除失败，下次打开时再试
+     */
+    private static void deleteStaleSnapshots(String prefix, Path current) {
+        try (Stream<Path> files = Files.list(SNAPSHOT_DIR)) {
+            files.filter(path -> path.getFileName().toString().startsWith(prefix) && !path.equals(current))
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            LOGGER.debug("删除翻译记忆快照失败,file:{}, msg:{}", path, e.toString());
+                        }
+                    });
+        } catch (IOException e) {
+            LOGGER.debug("清理翻译记忆快照失败,dir:{}, msg:{}", SNAPSHOT_DIR, e.toString());
+        }
+    }
+
+    private static synchronized void unload(Project project) {
+        LOADED.remove(project);
+        publish();
+    }
+
+    private static void publish() {
+        List<TranslationMemory> opened = new ArrayList<>();
+        for (Loaded loaded : LOADED.values()) {
+            if (loaded.memory != null) {
+                opened.add(loaded.memory);
+            }
+        }
+        memories = Collections.unmodifiableList(opened);
+    }
+
+    private static final class Loaded {
+        private final TranslationMemory memory;
+        private final FileTime modified;
+        private final long checkedAt;
+
+        Loaded(TranslationMemory memory, FileTime modified, long checkedAt) {
+            this.memory = memory;
+            this.modified = modified;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
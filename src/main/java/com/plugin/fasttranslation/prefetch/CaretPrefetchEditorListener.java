@@ -0,0 +1,30 @@
+package com.plugin.fasttranslation.prefetch;
+
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorKind;
+import com.intellij.openapi.editor.event.EditorFactoryEvent;
+import com.intellij.openapi.editor.event.EditorFactoryListener;
+import com.intellij.openapi.project.Project;
+import com.plugin.fasttranslation.setting.FastTranslationSettings;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 开启光标预取时，为新打开的代码编辑器挂载预取
+ */
+public class CaretPrefetchEditorListener implements EditorFactoryListener {
+
+    @Override
+    public void editorCreated(@NotNull EditorFactoryEvent event) {
+        Editor editor = event.getEditor();
+        Project project = editor.getProject();
+        if (project != null && editor.getEditorKind() == EditorKind.MAIN_EDITOR
+                && FastTranslationSettings.getInstance().prefetchEnabled) {
+            CaretPrefetcher.attach(editor, project);
+        }
+    }
+
+    @Override
+    public void editorReleased(@NotNull EditorFactoryEvent event) {
+        CaretPrefetcher.detach(event.getEditor());
+    }
+}
@@ -0,0 +1,193 @@
+package com.plugin.fasttranslation.prefetch;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.EditorKind;
+import com.intellij.openapi.editor.event.CaretEvent;
+import com.intellij.openapi.editor.event.CaretListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Alarm;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.plugin.fasttranslation.action.CommandPAction;
+import com.plugin.fasttranslation.memory.ProjectTranslationMemory;
+import com.plugin.fasttranslation.setting.FastTranslationSettings;
+import com.plugin.fasttranslation.thirdparty.RequestTencent;
+import java.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 光标预取：光标在注释内或符号上停留一段时间后，按与 {@link CommandPAction} 相同的方式格式化注释，
+ * 在后台低优先级地翻译并写入缓存，之后按下快捷键时直接命中缓存。
+ * <ul>
+ *     <li>光标在注释内时预取该注释，在符号上时预取符号声明处的文档注释(例如库类的 Javadoc)</li>
+ *     <li>光标移动后取消尚未完成的预取</li>
+ *     <li>只在没有在途请求且限流余量充足时发送请求，不影响交互翻译</li>
+ * </ul>
+ * 所有字段只在 EDT 上访问。
+ */
+public class CaretPrefetcher implements Disposable {
+
+    private static final Key<CaretPrefetcher> KEY = Key.create("FastTranslation.CaretPrefetcher");
+
+    private final Editor editor;
+    private final Project project;
+    private final Alarm alarm;
+    private Future<?> pending;
+    /** 最近一次预取的文本，光标在同一注释内移动时不重复预取 */
+    private String lastText;
+    private boolean disposed;
+
+    private CaretPrefetcher(Editor editor, Project project) {
+        this.editor = editor;
+        this.project = project;
+        this.alarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+        editor.getCaretModel().addCaretListener(new CaretListener() {
+            @Override
+            public void caretPositionChanged(@NotNull CaretEvent event) {
+                schedule();
+            }
+        }, this);
+    }
+
+    /**
+     * 为编辑器开启光标预取，已开启时不做任何事
+     * @param editor 编辑器
+     * @param project 编辑器所属项目
+     */
+    public static void attach(Editor editor, Project project) {
+        if (editor.isDisposed() || editor.getUserData(KEY) != null) {
+            return;
+        }
+        CaretPrefetcher prefetcher = new CaretPrefetcher(editor, project);
+        editor.putUserData(KEY, prefetcher);
+        Disposer.register(project, prefetcher);
+    }
+
+    /**
+     * 关闭编辑器的光标预取并取消尚未完成的预取
+     */
+    public static void detach(Editor editor) {
+        CaretPrefetcher prefetcher = editor.getUserData(KEY);
+        if (prefetcher != null) {
+            Disposer.dispose(prefetcher);
+        }
+    }
+
+    /**
+     * 切换预取设置时，为所有已打开的代码编辑器开启或关闭光标预取
+     * @param enabled 是否开启
+     */
+    public static void syncOpenEditors(boolean enabled) {
+        for (Editor editor : EditorFactory.getInstance().getAllEditors()) {
+            Project project = editor.getProject();
+            if (!enabled) {
+                detach(editor);
+            } else if (project != null && editor.getEditorKind() == EditorKind.MAIN_EDITOR) {
+                attach(editor, project);
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        cancelPending();
+        editor.putUserData(KEY, null);
+    }
+
+    private void schedule() {
+        if (disposed) {
+            return;
+        }
+        alarm.cancelAllRequests();
+        alarm.addRequest(this::prefetch, Math.max(0, FastTranslationSettings.getInstance().prefetchDelayMillis));
+    }
+
+    /**
+     * 在后台读操作中查找光标处的注释并格式化，完成时光标仍在原处才开始预取
+     */
+    private void prefetch() {
+        if (disposed || editor.isDisposed()) {
+            return;
+        }
+        int offset = editor.getCaretModel().getOffset();
+        long modificationStamp = editor.getDocument().getModificationStamp();
+        ReadAction.nonBlocking(() -> findComment(offset))
+                .inSmartMode(project)
+                .withDocumentsCommitted(project)
+                .expireWith(this)
+                .finishOnUiThread(ModalityState.defaultModalityState(), comment -> {
+                    if (comment == null || disposed || comment.equals(lastText)
+                            || editor.getCaretModel().getOffset() != offset
+                            || editor.getDocument().getModificationStamp() != modificationStamp) {
+                        return;
+                    }
+                    cancelPending();
+                    lastText = comment;
+                    ProjectTranslationMemory.ensureLoaded(project);
+                    pending = RequestTencent.prefetchAsync(CommandPAction.parseAndFormat(comment));
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    /**
+     * 光标移开后之前的预取不再需要
+     */
+    private void cancelPending() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    /**
+     * @return 光标所在的注释，或光标处符号声明的文档注释，都没有时返回 null
+     */
+    private String findComment(int offset) {
+        if (editor.isDisposed()) {
+            return null;
+        }
+        PsiFile psiFile = PsiDocumentManager.getInstance(project).getPsiFile(editor.getDocument());
+        if (psiFile == null) {
+            return null;
+        }
+        PsiComment comment = PsiTreeUtil.getParentOfType(psiFile.findElementAt(offset), PsiComment.class, false);
+        if (comment != null) {
+            return comment.getText();
+        }
+        PsiReference reference = psiFile.findReferenceAt(offset);
+        PsiElement target = reference == null ? null : reference.resolve();
+        if (target == null) {
+            return null;
+        }
+        // 编译后的库类通过导航元素找到附带的源码
+        comment = findDocComment(target.getNavigationElement());
+        return comment == null ? null : comment.getText();
+    }
+
+    /**
+     * 文档注释通常是声明的第一个子元素(Java、Kotlin)，也可能是紧挨在声明前面的兄弟元素
+     */
+    private static PsiComment findDocComment(PsiElement declaration) {
+        for (PsiElement child = declaration.getFirstChild(); child instanceof PsiComment || child instanceof PsiWhiteSpace;
+             child = child.getNextSibling()) {
+            if (child instanceof PsiComment) {
+                return (PsiComment) child;
+            }
+        }
+        PsiElement previous = PsiTreeUtil.skipWhitespacesBackward(declaration);
+        return previous instanceof PsiComment ? (PsiComment) previous : null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.plugin.fasttranslation.setting;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 批量翻译注释的断点：记录未完成任务的范围和已处理的文件，取消或失败后再次执行同一任务时跳过这些文件
+ */
+@State(
+        name = "FastTranslationBulkState",
+        storages = @Storage(StoragePathMacros.WORKSPACE_FILE)
+)
+@Service(Service.Level.PROJECT)
+public final class BulkTranslationState implements PersistentStateComponent<BulkTranslationState> {
+
+    public String jobKey = ""; // 未完成任务的范围和翻译方向
+    public List<String> completedFiles = new ArrayList<>(); // 已处理的文件 URL
+
+    public static BulkTranslationState getInstance(Project project) {
+        return ServiceManager.getService(project, BulkTranslationState.class);
+    }
+
+    @Nullable
+    @Override
+    public synchronized BulkTranslationState getState() {
+        return this;
+    }
+
+    @Override
+    public synchronized void loadState(@NotNull BulkTranslationState state) {
+        this.jobKey = state.jobKey;
+        this.completedFiles = new ArrayList<>(state.completedFiles);
+    }
+
+    /**
+     * 开始任务，与上次未完成的任务相同时继续，否则丢弃旧的断点
+     * @param jobKey 任务的范围和翻译方向
+     * @return 可以跳过的文件 URL
+     */
+    public synchronized Set<String> begin(String jobKey) {
+        if (!jobKey.equals(this.jobKey)) {
+            this.jobKey = jobKey;
+            this.completedFiles = new ArrayList<>();
+        }
+        return new HashSet<>(completedFiles);
+    }
+
+    public synchronized void markCompleted(Collection<String> fileUrls) {
+        completedFiles.addAll(fileUrls);
+    }
+
+    /**
+     * 任务全部完成，清除断点
+     */
+    public synchronized void finish() {
+        this.jobKey = "";
+        this.completedFiles = new ArrayList<>();
+    }
+}
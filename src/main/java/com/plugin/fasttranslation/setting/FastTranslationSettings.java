@@ -17,7 +17,23 @@ import org.jetbrains.annotations.Nullable;
 public final class FastTranslationSettings implements PersistentStateComponent<FastTranslationSettings> {
 
     public String nativeLanguage = "zh"; // 一个简单的配置字段
-    public String afterTranslation = "replace"; // 一个简单的配置字段
+    public String afterTranslation = "replace"; // replace、popup 或 inline(在注释下方显示译文)
+    public String translationProvider = "tencent"; // tencent、mock(本地替身，不访问网络) 或 offline(离线短语表)
+    public boolean offlineFallbackEnabled = true; // 在线翻译失败时使用离线短语表兜底
+    public String primaryRegion = "ap-beijing"; // 主地域
+    public String secondaryRegion = "ap-shanghai"; // 备用地域，为空时不对冲
+    public long hedgeDelayMillis = 800; // 对冲等待时间的初始值，积累足够的主地域延迟样本后改用其 p95
+    public int connectTimeoutSeconds = 5; // 建连超时
+    public int readTimeoutSeconds = 10; // 读超时
+    public boolean warmUpEnabled = true; // 插件加载和连接空闲后发送预热请求
+    public String glossary = ""; // 本地术语表，每行 "术语" 或 "术语=固定译文"
+    public boolean protectIdentifiers = true; // 翻译时保留代码标识符和内联代码
+    public boolean metricsJmxEnabled = false; // 通过 JMX 暴露翻译指标
+    public boolean prefetchEnabled = false; // 光标停留时预取所在注释的翻译
+    public int prefetchDelayMillis = 500; // 光标停留超过该时间才预取
+    public long dailyCharacterBudget = 0; // 每日发送给翻译服务的字符数上限，0 表示不限，超过后只使用缓存和离线兜底
+    public String budgetDay = ""; // budgetUsedChars 对应的日期(yyyy-MM-dd)
+    public long budgetUsedChars = 0; // 当天已发送的字符数
     public static FastTranslationSettings getInstance() {
         return ServiceManager.getService(FastTranslationSettings.class);
     }
@@ -32,5 +48,21 @@ public final class FastTranslationSettings implements PersistentStateComponent<F
     public void loadState(@NotNull FastTranslationSettings state) {
         this.nativeLanguage = state.nativeLanguage;
         this.afterTranslation = state.afterTranslation;
+        this.translationProvider = state.translationProvider;
+        this.offlineFallbackEnabled = state.offlineFallbackEnabled;
+        this.primaryRegion = state.primaryRegion;
+        this.secondaryRegion = state.secondaryRegion;
+        this.hedgeDelayMillis = state.hedgeDelayMillis;
+        this.connectTimeoutSeconds = state.connectTimeoutSeconds;
+        this.readTimeoutSeconds = state.readTimeoutSeconds;
+        this.warmUpEnabled = state.warmUpEnabled;
+        this.glossary = state.glossary;
+        this.protectIdentifiers = state.protectIdentifiers;
+        this.metricsJmxEnabled = state.metricsJmxEnabled;
+        this.prefetchEnabled = state.prefetchEnabled;
+        this.prefetchDelayMillis = state.prefetchDelayMillis;
+        this.dailyCharacterBudget = state.dailyCharacterBudget;
+        this.budgetDay = state.budgetDay;
+        this.budgetUsedChars = state.budgetUsedChars;
     }
 }
@@ -5,6 +5,8 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectManager;
 import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.wm.WindowManager;
+import com.plugin.fasttranslation.inline.InlineTranslationController;
+import com.plugin.fasttranslation.prefetch.CaretPrefetcher;
 import com.plugin.fasttranslation.util.I18nUtil;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.Nullable;
@@ -47,8 +49,14 @@ public class SettingsConfigurable implements Configurable {
             currentAfterTranslation = "popup";
         }
         
+        FastTranslationSettings settings = FastTranslationSettings.getInstance();
+        String currentGlossary = settings.glossary == null ? "" : settings.glossary;
+
         return !selectedLocale.getLanguage().equals(currentLanguageCode)
-                || !selectedAfterTranslation.equals(currentAfterTranslation);
+                || !selectedAfterTranslation.equals(currentAfterTranslation)
+                || !settingsComponent.getGlossaryText().equals(currentGlossary)
+                || settingsComponent.isProtectIdentifiers() != settings.protectIdentifiers
+                || settingsComponent.isPrefetchEnabled() != settings.prefetchEnabled;
     }
 
     @Override
@@ -62,6 +70,11 @@ public class SettingsConfigurable implements Configurable {
             FastTranslationSettings.getInstance().nativeLanguage = selectedLocale.getLanguage() + "-" + selectedLocale.getCountry();
         }
         FastTranslationSettings.getInstance().afterTranslation = selectedAfterTranslation;
+        InlineTranslationController.syncOpenEditors("inline".equals(selectedAfterTranslation));
+        FastTranslationSettings.getInstance().glossary = settingsComponent.getGlossaryText();
+        FastTranslationSettings.getInstance().protectIdentifiers = settingsComponent.isProtectIdentifiers();
+        FastTranslationSettings.getInstance().prefetchEnabled = settingsComponent.isPrefetchEnabled();
+        CaretPrefetcher.syncOpenEditors(settingsComponent.isPrefetchEnabled());
         
         // 应用设置后立即更新UI
         settingsComponent.updateUILanguage();
@@ -79,6 +92,10 @@ public class SettingsConfigurable implements Configurable {
         private final JLabel codingLanguageValue;
         private final JLabel nativeLanguageLabel;
         private final JLabel afterTranslationLabel;
+        private final JLabel glossaryLabel;
+        private final JTextArea glossaryTextArea;
+        private final JCheckBox protectIdentifiersCheckBox;
+        private final JCheckBox prefetchCheckBox;
         private final JPanel mainPanel;
 
         // 映射语言名和对应的 Locale
@@ -98,6 +115,7 @@ public class SettingsConfigurable implements Configurable {
             {
                 put("setting.after.translate.val.pop", "popup");
                 put("setting.after.translate.val.replace", "replace");
+                put("setting.after.translate.val.inline", "inline");
             }
         };
 
@@ -125,6 +143,12 @@ public class SettingsConfigurable implements Configurable {
             codingLanguageValue = new JLabel(I18nUtil.getMessage("setting.code.lang.val"));
             nativeLanguageLabel = new JLabel(I18nUtil.getMessage("setting.your.native.lang.key") + ": ");
             afterTranslationLabel = new JLabel(I18nUtil.getMessage("setting.after.translate.key") + ": ");
+            glossaryLabel = new JLabel(I18nUtil.getMessage("setting.glossary.key") + ": ");
+            glossaryLabel.setVerticalAlignment(SwingConstants.TOP);
+            glossaryTextArea = new JTextArea(8, 30);
+            glossaryTextArea.setToolTipText(I18nUtil.getMessage("setting.glossary.tip"));
+            protectIdentifiersCheckBox = new JCheckBox(I18nUtil.getMessage("setting.protect.identifiers"));
+            prefetchCheckBox = new JCheckBox(I18nUtil.getMessage("setting.prefetch.enabled"));
 
             // 创建下拉框
             languageComboBox = createLanguageComboBox();
@@ -150,10 +174,21 @@ public class SettingsConfigurable implements Configurable {
             mainPanel.add(afterTranslationLabel, labelConstraints);
             mainPanel.add(afterTranslationComboBox, valueConstraints);
 
+            labelConstraints.gridy = 3;
+            valueConstraints.gridy = 3;
+            mainPanel.add(glossaryLabel, labelConstraints);
+            mainPanel.add(new JScrollPane(glossaryTextArea), valueConstraints);
+
+            valueConstraints.gridy = 4;
+            mainPanel.add(protectIdentifiersCheckBox, valueConstraints);
+
+            valueConstraints.gridy = 5;
+            mainPanel.add(prefetchCheckBox, valueConstraints);
+
             // 添加垂直弹簧推动组件到顶部
             GridBagConstraints glueConstraints = new GridBagConstraints();
             glueConstraints.gridx = 0;
-            glueConstraints.gridy = 3;
+            glueConstraints.gridy = 6;
             glueConstraints.gridwidth = 2;
             glueConstraints.weighty = 1.0;
             glueConstraints.fill = GridBagConstraints.VERTICAL;
@@ -163,7 +198,7 @@ public class SettingsConfigurable implements Configurable {
             GridBagConstraints horizontalGlueConstraints = new GridBagConstraints();
             horizontalGlueConstraints.gridx = 2;
             horizontalGlueConstraints.gridy = 0;
-            horizontalGlueConstraints.gridheight = 3;
+            horizontalGlueConstraints.gridheight = 6;
             horizontalGlueConstraints.weightx = 0.0;
             horizontalGlueConstraints.fill = GridBagConstraints.HORIZONTAL;
             mainPanel.add(Box.createHorizontalGlue(), horizontalGlueConstraints);
@@ -203,6 +238,10 @@ public class SettingsConfigurable implements Configurable {
                 codingLanguageValue.setText(I18nUtil.getMessage("setting.code.lang.val"));
                 nativeLanguageLabel.setText(I18nUtil.getMessage("setting.your.native.lang.key") + ": ");
                 afterTranslationLabel.setText(I18nUtil.getMessage("setting.after.translate.key") + ": ");
+                glossaryLabel.setText(I18nUtil.getMessage("setting.glossary.key") + ": ");
+                glossaryTextArea.setToolTipText(I18nUtil.getMessage("setting.glossary.tip"));
+                protectIdentifiersCheckBox.setText(I18nUtil.getMessage("setting.protect.identifiers"));
+                prefetchCheckBox.setText(I18nUtil.getMessage("setting.prefetch.enabled"));
 
                 // Update combobox items
                 updateAfterTranslationComboBoxItems();
@@ -279,6 +318,18 @@ public class SettingsConfigurable implements Configurable {
             return languageComboBox;
         }
 
+        public String getGlossaryText() {
+            return glossaryTextArea.getText();
+        }
+
+        public boolean isProtectIdentifiers() {
+            return protectIdentifiersCheckBox.isSelected();
+        }
+
+        public boolean isPrefetchEnabled() {
+            return prefetchCheckBox.isSelected();
+        }
+
         public void loadSettings(FastTranslationSettings settings) {
             String currentLanguageCode = settings.nativeLanguage;
             if (currentLanguageCode == null || currentLanguageCode.isEmpty()) {
@@ -305,6 +356,11 @@ public class SettingsConfigurable implements Configurable {
                     afterTranslationComboBox.setSelectedItem(I18nUtil.getMessage(key));
                 }
             });
+
+            // 设置术语表
+            glossaryTextArea.setText(settings.glossary == null ? "" : settings.glossary);
+            protectIdentifiersCheckBox.setSelected(settings.protectIdentifiers);
+            prefetchCheckBox.setSelected(settings.prefetchEnabled);
         }
 
         private static class CustomComboBoxRenderer extends DefaultListCellRenderer {
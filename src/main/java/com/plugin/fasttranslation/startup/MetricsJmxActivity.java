@@ -0,0 +1,20 @@
+package com.plugin.fasttranslation.startup;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.plugin.fasttranslation.metrics.TranslationMetricsJmx;
+import com.plugin.fasttranslation.setting.FastTranslationSettings;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 设置中开启 JMX 时注册翻译指标 MBean
+ */
+public class MetricsJmxActivity implements StartupActivity.DumbAware {
+
+    @Override
+    public void runActivity(@NotNull Project project) {
+        if (FastTranslationSettings.getInstance().metricsJmxEnabled) {
+            TranslationMetricsJmx.register();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.plugin.fasttranslation.startup;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.plugin.fasttranslation.thirdparty.RequestTencent;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 第一个项目打开后在后台初始化翻译服务并预热连接
+ */
+public class TranslationWarmUpActivity implements StartupActivity.DumbAware {
+
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    @Override
+    public void runActivity(@NotNull Project project) {
+        if (STARTED.compareAndSet(false, true)) {
+            ApplicationManager.getApplication().executeOnPooledThread(RequestTencent::warmUp);
+        }
+    }
+}
@@ -1,117 +1,323 @@
 package com.plugin.fasttranslation.thirdparty;
 
+import com.intellij.openapi.application.PathManager;
+import com.plugin.fasttranslation.cache.TranslationCache;
+import com.plugin.fasttranslation.cache.TranslationMemory;
+import com.plugin.fasttranslation.glossary.Glossary;
+import com.plugin.fasttranslation.limit.AdaptiveConcurrencyLimiter;
+import com.plugin.fasttranslation.limit.CharacterBudget;
+import com.plugin.fasttranslation.limit.RetryPolicy;
+import com.plugin.fasttranslation.limit.TokenBucketRateLimiter;
+import com.plugin.fasttranslation.limit.TranslationPriority;
+import com.plugin.fasttranslation.memory.ProjectTranslationMemory;
+import com.plugin.fasttranslation.offline.PhraseTable;
+import com.plugin.fasttranslation.pipeline.ChunkedTranslator;
+import com.plugin.fasttranslation.pipeline.CoalescingTranslator;
+import com.plugin.fasttranslation.pipeline.TranslatedBlock;
+import com.plugin.fasttranslation.pipeline.TranslationEngine;
 import com.plugin.fasttranslation.setting.FastTranslationSettings;
-import com.tencentcloudapi.common.Credential;
-import com.tencentcloudapi.common.exception.TencentCloudSDKException;
-import com.tencentcloudapi.common.profile.ClientProfile;
-import com.tencentcloudapi.common.profile.HttpProfile;
-import com.tencentcloudapi.tmt.v20180321.TmtClient;
-import com.tencentcloudapi.tmt.v20180321.models.LanguageDetectRequest;
-import com.tencentcloudapi.tmt.v20180321.models.LanguageDetectResponse;
-import com.tencentcloudapi.tmt.v20180321.models.TextTranslateBatchRequest;
-import com.tencentcloudapi.tmt.v20180321.models.TextTranslateBatchResponse;
-import java.util.Arrays;
+import com.plugin.fasttranslation.text.IdentifierText;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import kotlin.Pair;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+/**
+ * 插件内的翻译入口：按 IDE 设置创建提供方、缓存和线程池，翻译逻辑由 {@link TranslationEngine} 完成，
+ * 结果转换为 (是否成功, 结果) 供界面使用。
+ */
 public class RequestTencent {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(RequestTencent.class);
     private static final String SECRET_ID = "";
     private static final String SECRET_KEY = "";
-    private static final TmtClient client;
+    private static final String TERM_REPO_ID = "1c0e664bc5d811ef96a9ef92c8199dee";
+    /** 内存缓存最多保留的字符数 */
+    private static final long CACHE_MEMORY_CHARS = 2_000_000L;
+    /** 同时在途的请求块数上限，实际并发由 AIMD 在 [1, 8] 之间自适应调整 */
+    private static final int MAX_PARALLEL_CHUNKS = 8;
+    private static final int INITIAL_CONCURRENCY = 4;
+    /** 连接空闲超过 4 分钟后预热，OkHttp 连接池默认 5 分钟回收空闲连接 */
+    private static final long WARM_UP_IDLE_MILLIS = 4 * 60 * 1000L;
+    /** 最后一次翻译后保持预热 30 分钟 */
+    private static final long KEEP_WARM_MILLIS = 30 * 60 * 1000L;
+    /** TMT 默认 QPS 上限为 5 */
+    private static final double REQUESTS_PER_SECOND = 5;
+    /** 离线提供方在本地查表，只需防止失控的调用方 */
+    private static final double OFFLINE_REQUESTS_PER_SECOND = 1000;
+    // 以下状态均为静态，整个 IDE 进程(所有项目)共享同一套限流和并发控制
+    private static final TranslationProvider rawProvider = createProvider();
+    private static final double PERMITS_PER_SECOND = rawProvider instanceof OfflineTranslationProvider
+            ? OFFLINE_REQUESTS_PER_SECOND : REQUESTS_PER_SECOND;
+    private static final ThrottledTranslationProvider provider = new ThrottledTranslationProvider(rawProvider,
+            new TokenBucketRateLimiter(PERMITS_PER_SECOND, (int) PERMITS_PER_SECOND),
+            new AdaptiveConcurrencyLimiter(INITIAL_CONCURRENCY, 1, MAX_PARALLEL_CHUNKS),
+            new RetryPolicy(4, 200, 5000));
+    /** 缓存键中的术语库字段，本地替身和离线短语表的译文单独存放，避免污染真实译文 */
+    private static final String CACHE_NAMESPACE = rawProvider instanceof MockTranslationProvider
+            || rawProvider instanceof OfflineTranslationProvider ? rawProvider.getName() : TERM_REPO_ID;
+    private static final TranslationCache cache = new TranslationCache(
+            Paths.get(PathManager.getSystemPath(), "fast-translation", "translation-cache.bin"), CACHE_MEMORY_CHARS);
+    private static final ExecutorService executor = Executors.newFixedThreadPool(MAX_PARALLEL_CHUNKS, new ThreadFactory() {
+        private final AtomicInteger index = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FastTranslation-request-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /** 预取使用独立的单个低优先级线程，不占用交互请求的线程 */
+    private static final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "FastTranslation-prefetch");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final TranslationEngine engine = new TranslationEngine(provider, cache, CACHE_NAMESPACE, executor,
+            new IdeSettings());
 
     static {
-        // 实例化一个认证对象，入参需要传入腾讯云账户 SecretId 和 SecretKey，此处还需注意密钥对的保密
-        // 代码泄露可能会导致 SecretId 和 SecretKey 泄露，并威胁账号下所有资源的安全性。以下代码示例仅供参考，建议采用更安全的方式来使用密钥，请参见：https://cloud.tencent.com/document/product/1278/85305
-        // 密钥可前往官网控制台 https://console.cloud.tencent.com/cam/capi 进行获取
-        Credential cred = new Credential(SECRET_ID, SECRET_KEY);
-        // 实例化一个http选项，可选的，没有特殊需求可以跳过
-        HttpProfile httpProfile = new HttpProfile();
-        httpProfile.setEndpoint("tmt.tencentcloudapi.com");
-        // 实例化一个client选项，可选的，没有特殊需求可以跳过
-        ClientProfile clientProfile = new ClientProfile();
-        clientProfile.setHttpProfile(httpProfile);
-        // 实例化要请求产品的client对象,clientProfile是可选的
-        client = new TmtClient(cred, "ap-beijing", clientProfile);
+        TranslationProvider routed = rawProvider;
+        if (rawProvider instanceof WarmUpTranslationProvider) {
+            // 预热请求同样占用限流令牌和字符预算
+            ((WarmUpTranslationProvider) rawProvider).setPinger(engine::warmUp);
+            routed = ((WarmUpTranslationProvider) rawProvider).getDelegate();
+        }
+        if (routed instanceof HedgingTranslationRouter) {
+            // 对冲请求同样占用限流令牌和字符预算
+            ((HedgingTranslationRouter) routed).setHedgeGate(engine::tryAcquireHedge);
+        }
     }
 
-    public static Pair<Boolean, String> translateBatch(String text) {
-        StringBuilder result = new StringBuilder();
-        String[] textArr = text.split("\n");
-        String[] paramArr = new String[textArr.length];
-        for (int i = 0; i < textArr.length; i++) {
-            paramArr[i] = textArr[i].trim();
-            for (char c : textArr[i].toCharArray()) {
-                if (c == ' ') {
-                    result.append(" ");
-                } else {
-                    break;
-                }
-            }
-            result.append("%s");
-        }
-        Pair<Boolean, String> pair = languageDetect(text);
-        if (!pair.getFirst()) {
-            return pair;
+    /**
+     * 根据设置创建提供方：主地域 + 可选的备用地域对冲，外层按需包装连接预热
+     */
+    private static TranslationProvider createProvider() {
+        FastTranslationSettings settings = FastTranslationSettings.getInstance();
+        if ("mock".equals(settings.translationProvider)) {
+            return new MockTranslationProvider();
         }
-        String sourceLang = pair.getSecond();
-        Pair<Boolean, String[]> retPair = null;
-        if ("en".equalsIgnoreCase(sourceLang)) {
-            retPair = translateBatch(paramArr, "en", FastTranslationSettings.getInstance().nativeLanguage);
+        if (OfflineTranslationProvider.NAME.equals(settings.translationProvider)) {
+            return new OfflineTranslationProvider(PhraseTable.getDefault());
         }
-        if (retPair == null) {
-            retPair = translateBatch(paramArr, "auto", "en");
+        TransportConfig transport = new TransportConfig(TransportConfig.DEFAULT.getProtocol(),
+                settings.connectTimeoutSeconds, settings.readTimeoutSeconds);
+        TranslationProvider primary = new TencentTranslationProvider(SECRET_ID, SECRET_KEY,
+                settings.primaryRegion, TencentTranslationProvider.DEFAULT_ENDPOINT, TERM_REPO_ID, transport);
+        TranslationProvider routed = primary;
+        if (settings.secondaryRegion != null && !settings.secondaryRegion.isEmpty()
+                && !settings.secondaryRegion.equals(settings.primaryRegion)) {
+            TranslationProvider secondary = new TencentTranslationProvider(SECRET_ID, SECRET_KEY,
+                    settings.secondaryRegion, null, TERM_REPO_ID, transport);
+            routed = new HedgingTranslationRouter(primary, secondary, settings.hedgeDelayMillis);
         }
-        String retStr = result.toString();
-        if (retPair.getFirst()) {
-            for (int i = 0; i < retPair.getSecond().length; i++) {
-                retStr = retStr.replaceFirst("%s", retPair.getSecond()[i] + "\n");
-            }
-            return new Pair<>(true, retStr);
+        if (!settings.warmUpEnabled) {
+            return routed;
         }
-        return new Pair<>(false, null);
+        return new WarmUpTranslationProvider(routed, WARM_UP_IDLE_MILLIS, KEEP_WARM_MILLIS);
     }
 
     /**
-     * 文本批量翻译
-     * @param textArr
-     * @param sourceLang
-     * @param targetLang
-     * @return
+     * 插件加载时预热连接，使第一次翻译的延迟与稳定状态一致
      */
-    private static Pair<Boolean, String[]> translateBatch(String[] textArr, String sourceLang, String targetLang) {
-        try {
-            // 实例化一个请求对象,每个接口都会对应一个request对象
-            TextTranslateBatchRequest req = new TextTranslateBatchRequest();
-            req.setSource(sourceLang);
-            req.setTarget(targetLang);
-            req.setProjectId(0L);
-            req.setSourceTextList(textArr);
-            req.setTermRepoIDList(new String[]{"1c0e664bc5d811ef96a9ef92c8199dee"});
-            // 返回的resp是一个TextTranslateBatchResponse的实例，与请求对象对应
-            TextTranslateBatchResponse resp = client.TextTranslateBatch(req);
-            return new Pair<>(true, resp.getTargetTextList());
-        } catch (TencentCloudSDKException e) {
-            LOGGER.warn("请求腾讯翻译失败,TextTranslateBatch,textArr:{},sourceLang:{},targetLang:{}, msg:{}",
-                    Arrays.toString(textArr), sourceLang, targetLang, e.toString());
-            LOGGER.error("translateBatch", e);
-            return new Pair<>(false, null);
+    public static void warmUp() {
+        if (rawProvider instanceof WarmUpTranslationProvider) {
+            ((WarmUpTranslationProvider) rawProvider).warmUpAsync();
         }
     }
 
-    private static Pair<Boolean, String> languageDetect(String text) {
+    public static Pair<Boolean, String> translateBatch(String text) {
         try {
-            LanguageDetectRequest req = new LanguageDetectRequest();
-            req.setText(text);
-            req.setProjectId(0L);
-            LanguageDetectResponse resp = client.LanguageDetect(req);
-            return new Pair<>(true, resp.getLang());
-        } catch (TencentCloudSDKException e) {
-            LOGGER.warn("请求腾讯翻译失败,LanguageDetect,text:{}, msg:{}", text, e.toString());
-            return new Pair<>(false, e.getMessage());
+            return translateBatchAsync(text, null).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Pair<>(false, null);
+        } catch (ExecutionException e) {
+            return new Pair<>(false, null);
         }
     }
 
+    /**
+     * 异步翻译任意长度的文本：按段落/行切分为多个请求块并发翻译，按原顺序流式回调已完成的部分
+     * @param text 原文
+     * @param listener 流式结果监听，可为 null
+     * @return 翻译结果，取消该 future 会同时取消尚未完成的请求
+     */
+    public static CompletableFuture<Pair<Boolean, String>> translateBatchAsync(String text, ChunkedTranslator.Listener listener) {
+        return toPair(engine.translateAsync(text, listener));
+    }
+
+    /**
+     * 增量翻译同一段文本：与上次的结果逐行比较，只有新增或修改的行发送请求
+     * @param text 原文
+     * @param listener 流式结果监听，可为 null
+     * @param previous 同一段上次的翻译结果，可为 null
+     * @return 翻译结果，取消该 future 会同时取消尚未完成的请求
+     */
+    public static CompletableFuture<Pair<Boolean, TranslatedBlock>> translateBlockAsync(String text,
+                                                                                      ChunkedTranslator.Listener listener,
+                                                                                      TranslatedBlock previous) {
+        return toPair(engine.translateBlockAsync(text, listener, previous));
+    }
+
+    /**
+     * 翻译代码片段中的标识符，整个片段的单词去重后一次批量翻译
+     * @param identifiers 解析后的代码片段
+     * @return 重建后的文本，取消该 future 会同时取消尚未完成的请求
+     */
+    public static CompletableFuture<Pair<Boolean, String>> translateIdentifiersAsync(IdentifierText identifiers) {
+        return toPair(engine.translateIdentifiersAsync(identifiers));
+    }
+
+    /**
+     * 把非英文的短语翻译为英文 camelCase 名称
+     * @param text 短语
+     * @return 名称，取消该 future 会同时取消尚未完成的请求
+     */
+    public static CompletableFuture<Pair<Boolean, String>> translateToNameAsync(String text) {
+        return toPair(engine.translateToNameAsync(text));
+    }
+
+    /**
+     * 异步翻译多条互不相关的文本(例如批量翻译注释)，按字符数切分为多个请求并发发送，命中缓存的不发请求
+     * @param textArr 原文，调用方负责去重
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @return 与 textArr 一一对应的译文，取消该 future 会同时取消尚未完成的请求
+     */
+    public static CompletableFuture<Pair<Boolean, String[]>> translateLinesAsync(String[] textArr, String sourceLang,
+                                                                                 String targetLang) {
+        return translateLinesAsync(textArr, sourceLang, targetLang, TranslationPriority.INTERACTIVE);
+    }
+
+    /**
+     * 与 {@link #translateLinesAsync(String[], String, String)} 相同，按指定优先级排队：
+     * 用户主动触发的翻译使用 INTERACTIVE，视口内自动显示的译文使用 VIEWPORT，批量任务使用 BACKGROUND
+     * @param priority 请求的优先级
+     */
+    public static CompletableFuture<Pair<Boolean, String[]>> translateLinesAsync(String[] textArr, String sourceLang,
+                                                                                 String targetLang,
+                                                                                 TranslationPriority priority) {
+        return toPair(engine.translateLinesAsync(textArr, sourceLang, targetLang, priority));
+    }
+
+    /**
+     * 低优先级地预先翻译文本并写入缓存，之后对同一文本调用 {@link #translateBatchAsync} 时直接命中缓存。
+     * 与 translateBatchAsync 使用相同的语种识别和切分规则，缓存键完全一致。
+     * 只在没有在途请求且限流余量充足时发送请求，否则放弃本次预取。
+     * @param text 原文，应与之后实际翻译的文本相同(例如经过 parseAndFormat 格式化)
+     * @return 取消该 future 会中断尚未完成的预取
+     */
+    public static Future<?> prefetchAsync(String text) {
+        return prefetchExecutor.submit(() -> engine.prefetch(text));
+    }
+
+    /**
+     * 把本机缓存中的译文合并到翻译记忆文件，供团队共享
+     * @param file 翻译记忆文件
+     * @return 文件中的条目数
+     */
+    public static int exportMemory(Path file) throws IOException {
+        return engine.exportMemory(file);
+    }
+
+    public static TranslationCache getCache() {
+        return cache;
+    }
+
+    public static ThrottledTranslationProvider getProvider() {
+        return provider;
+    }
+
+    public static CoalescingTranslator getCoalescer() {
+        return engine.getCoalescer();
+    }
+
+    /**
+     * 失败(异常结束)转换为 (false, null)，取消返回的 future 时同时取消原 future
+     */
+    private static <T> CompletableFuture<Pair<Boolean, T>> toPair(CompletableFuture<T> future) {
+        CompletableFuture<Pair<Boolean, T>> result = future.handle(
+                (value, error) -> error == null ? new Pair<>(true, value) : new Pair<>(false, null));
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 每次翻译时读取 IDE 设置，术语表在设置变化时重新编译
+     */
+    private static class IdeSettings implements TranslationEngine.Settings {
+
+        /** 当前生效的本地术语表 */
+        private volatile Glossary glossary = Glossary.EMPTY;
+        /** 每日字符预算，已用字符数保存在设置中，重启 IDE 后继续累计 */
+        private final CharacterBudget characterBudget = new CharacterBudget(new CharacterBudget.Store() {
+            @Override
+            public long getDailyLimit() {
+                return FastTranslationSettings.getInstance().dailyCharacterBudget;
+            }
+
+            @Override
+            public String getDay() {
+                return FastTranslationSettings.getInstance().budgetDay;
+            }
+
+            @Override
+            public long getUsedChars() {
+                return FastTranslationSettings.getInstance().budgetUsedChars;
+            }
+
+            @Override
+            public void setUsage(String day, long usedChars) {
+                FastTranslationSettings settings = FastTranslationSettings.getInstance();
+                settings.budgetDay = day;
+                settings.budgetUsedChars = usedChars;
+            }
+        });
+
+        @Override
+        public String getNativeLanguage() {
+            return FastTranslationSettings.getInstance().nativeLanguage;
+        }
+
+        @Override
+        public Glossary getGlossary() {
+            FastTranslationSettings settings = FastTranslationSettings.getInstance();
+            String definition = settings.glossary == null ? "" : settings.glossary;
+            Glossary compiled = glossary;
+            if (!compiled.getDefinition().equals(definition) || compiled.isProtectIdentifiers() != settings.protectIdentifiers) {
+                compiled = Glossary.compile(definition, settings.protectIdentifiers);
+                glossary = compiled;
+            }
+            return compiled;
+        }
+
+        @Override
+        public boolean isOfflineFallbackEnabled() {
+            return FastTranslationSettings.getInstance().offlineFallbackEnabled;
+        }
+
+        @Override
+        public List<TranslationMemory> getTranslationMemories() {
+            return ProjectTranslationMemory.getLoaded();
+        }
+
+        @Override
+        public CharacterBudget getCharacterBudget() {
+            return characterBudget;
+        }
+    }
 }
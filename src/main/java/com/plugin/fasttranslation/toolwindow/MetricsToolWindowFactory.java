@@ -0,0 +1,59 @@
+package com.plugin.fasttranslation.toolwindow;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.plugin.fasttranslation.metrics.TranslationMetrics;
+import com.plugin.fasttranslation.util.I18nUtil;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 翻译指标工具窗口：每秒刷新各阶段的 p50/p95/p99 和计数器，只在窗口可见时刷新
+ */
+public class MetricsToolWindowFactory implements ToolWindowFactory, DumbAware {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        JTextArea textArea = new JTextArea();
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        textArea.setText(TranslationMetrics.report());
+
+        JButton resetButton = new JButton(I18nUtil.getMessage("metrics.reset"));
+        resetButton.addActionListener(e -> {
+            TranslationMetrics.reset();
+            textArea.setText(TranslationMetrics.report());
+        });
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        toolbar.add(resetButton);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(toolbar, BorderLayout.NORTH);
+        panel.add(new JBScrollPane(textArea), BorderLayout.CENTER);
+
+        Timer timer = new Timer(REFRESH_MILLIS, e -> {
+            if (toolWindow.isVisible()) {
+                textArea.setText(TranslationMetrics.report());
+            }
+        });
+        timer.start();
+
+        Content content = ContentFactory.SERVICE.getInstance().createContent(panel, "", false);
+        Disposer.register(content, timer::stop);
+        toolWindow.getContentManager().addContent(content);
+    }
+}
@@ -1,16 +1,38 @@
 package com.plugin.fasttranslation.util;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Formattable;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.MissingResourceException;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 国际化消息。每个语言环境的消息在第一次使用时从 messages_*.properties 读取为不可变的消息表，
+ * 插件自带的语言在类加载时全部构建好；切换语言只替换当前消息表的引用，不再重新加载资源包。
+ * 读取时只有一次 volatile 读和一次哈希查找，不加锁，也不分配对象。
+ */
 public class I18nUtil {
     private static final String BUNDLE_NAME = "messages";
-    private static ResourceBundle bundle;
-    private static Locale currentLocale;
+    /** 插件自带消息文件的语言，与设置界面的语言列表一致 */
+    private static final Locale[] BUNDLED_LOCALES = {Locale.SIMPLIFIED_CHINESE, Locale.TRADITIONAL_CHINESE,
+            Locale.ENGLISH, Locale.JAPAN, Locale.KOREA, Locale.FRANCE, Locale.GERMANY};
+    /** 已构建的消息表，只增不改 */
+    private static final Map<Locale, MessageTable> TABLES = new ConcurrentHashMap<>();
+    /** 当前语言环境的消息表，整体替换 */
+    private static volatile MessageTable current;
 
 
     static {
+        for (Locale locale : BUNDLED_LOCALES) {
+            tableFor(locale);
+        }
         // 使用系统默认语言初始化
         setLocale(Locale.getDefault());
     }
@@ -20,8 +42,7 @@ public class I18nUtil {
      * @param locale 要设置的语言环境
      */
     public static void setLocale(Locale locale) {
-        currentLocale = locale;
-        bundle = ResourceBundle.getBundle(BUNDLE_NAME, locale);
+        current = tableFor(locale);
     }
 
     /**
@@ -30,26 +51,17 @@ public class I18nUtil {
      * @return 本地化后的消息
      */
     public static String getMessage(String key) {
-        try {
-            return bundle.getString(key);
-        } catch (MissingResourceException e) {
-            return '!' + key + '!';
-        }
+        return current.getMessage(key);
     }
 
     /**
      * 获取指定语言的值
-     * @param key
-     * @param locale
-     * @return
+     * @param key 消息的键值
+     * @param locale 语言环境
+     * @return 本地化后的消息
      */
     public static String getMessage(String key, Locale locale) {
-        try {
-            ResourceBundle tempBundle = ResourceBundle.getBundle(BUNDLE_NAME, locale);
-            return tempBundle.getString(key);
-        } catch (MissingResourceException e) {
-            return '!' + key + '!';
-        }
+        return tableFor(locale).getMessage(key);
     }
 
     /**
@@ -59,12 +71,17 @@ public class I18nUtil {
      * @return 本地化并替换参数后的消息
      */
     public static String getMessage(String key, Object... params) {
-        try {
-            String message = bundle.getString(key);
-            return String.format(message, params);
-        } catch (MissingResourceException e) {
+        MessageTable table = current;
+        MessageTemplate template = table.templates.get(key);
+        if (template != null) {
+            return template.format(params);
+        }
+        String message = table.messages.get(key);
+        if (message == null) {
             return '!' + key + '!';
         }
+        // 不含占位符的消息，与 String.format 的结果相同
+        return message;
     }
 
     /**
@@ -72,7 +89,7 @@ public class I18nUtil {
      * @return 当前的语言环境
      */
     public static Locale getCurrentLocale() {
-        return currentLocale;
+        return current.locale;
     }
 
     /**
@@ -81,6 +98,138 @@ public class I18nUtil {
      * @return 如果消息存在返回true，否则返回false
      */
     public static boolean hasMessage(String key) {
-        return bundle.containsKey(key);
+        return current.messages.containsKey(key);
+    }
+
+    private static MessageTable tableFor(Locale locale) {
+        MessageTable table = TABLES.get(locale);
+        return table != null ? table : TABLES.computeIfAbsent(locale, MessageTable::load);
+    }
+
+    /**
+     * 一个语言环境的全部消息，以及其中带占位符的消息预先解析出的模板，构建后不再修改
+     */
+    private static final class MessageTable {
+        private final Locale locale;
+        private final Map<String, String> messages;
+        private final Map<String, MessageTemplate> templates;
+
+        private MessageTable(Locale locale, Map<String, String> messages, Map<String, MessageTemplate> templates) {
+            this.locale = locale;
+            this.messages = messages;
+            this.templates = templates;
+        }
+
+        /**
+         * 按 ResourceBundle 的查找规则(包括回退到默认语言和 messages.properties)读取消息
+         */
+        static MessageTable load(Locale locale) {
+            Map<String, String> messages = new HashMap<>();
+            Map<String, MessageTemplate> templates = new HashMap<>();
+            try {
+                ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE_NAME, locale);
+                for (Enumeration<String> keys = bundle.getKeys(); keys.hasMoreElements(); ) {
+                    String key = keys.nextElement();
+                    String message = bundle.getString(key);
+                    messages.put(key, message);
+                    if (message.indexOf('%') >= 0) {
+                        templates.put(key, MessageTemplate.parse(message));
+                    }
+                }
+            } catch (MissingResourceException e) {
+                // 没有任何消息文件时所有键都按缺失处理
+            }
+            return new MessageTable(locale, Collections.unmodifiableMap(messages), Collections.unmodifiableMap(templates));
+        }
+
+        String getMessage(String key) {
+            String message = messages.get(key);
+            return message != null ? message : '!' + key + '!';
+        }
+    }
+
+    /**
+     * 预先解析的格式串，只直接处理消息文件中用到的 %d、%s 和 %%。
+     * 含有其他格式(宽度、精度、参数下标等)或参数类型不匹配时交给 String.format，结果与之前一致。
+     */
+    private static final class MessageTemplate {
+        private final String pattern;
+        /** 占位符之间的文本，比占位符多一个 */
+        private final String[] literals;
+        /** 每个占位符是否为 %d */
+        private final boolean[] integral;
+        /** 含有不支持的格式时为 false */
+        private final boolean simple;
+        private final int literalChars;
+
+        private MessageTemplate(String pattern, String[] literals, boolean[] integral, boolean simple) {
+            this.pattern = pattern;
+            this.literals = literals;
+            this.integral = integral;
+            this.simple = simple;
+            int chars = 0;
+            if (literals != null) {
+                for (String literal : literals) {
+                    chars += literal.length();
+                }
+            }
+            this.literalChars = chars;
+        }
+
+        static MessageTemplate parse(String pattern) {
+            List<String> literals = new ArrayList<>();
+            List<Boolean> integral = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c != '%') {
+                    literal.append(c);
+                    continue;
+                }
+                char conversion = i + 1 < pattern.length() ? pattern.charAt(i + 1) : 0;
+                if (conversion == '%') {
+                    literal.append('%');
+                } else if (conversion == 'd' || conversion == 's') {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    integral.add(conversion == 'd');
+                } else {
+                    return new MessageTemplate(pattern, null, null, false);
+                }
+                i++;
+            }
+            literals.add(literal.toString());
+            boolean[] flags = new boolean[integral.size()];
+            for (int i = 0; i < flags.length; i++) {
+                flags[i] = integral.get(i);
+            }
+            return new MessageTemplate(pattern, literals.toArray(new String[0]), flags, true);
+        }
+
+        String format(Object... params) {
+            if (!simple || params == null || params.length < integral.length) {
+                return String.format(pattern, params);
+            }
+            for (int i = 0; i < integral.length; i++) {
+                if (integral[i] ? !isIntegral(params[i]) : params[i] instanceof Formattable) {
+                    return String.format(pattern, params);
+                }
+            }
+            StringBuilder sb = new StringBuilder(literalChars + integral.length * 8);
+            sb.append(literals[0]);
+            for (int i = 0; i < integral.length; i++) {
+                sb.append(params[i]);
+                sb.append(literals[i + 1]);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * %d 只接受整数类型，null 输出为 "null"
+         */
+        private static boolean isIntegral(Object param) {
+            return param == null || param instanceof Integer || param instanceof Long || param instanceof Short
+                    || param instanceof Byte || param instanceof BigInteger;
+        }
     }
 }